@@ -0,0 +1,71 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rest.ApiUtil;
+import rest.CustomResponse;
+import rest.StubServer;
+
+/**
+ * The full ApiUtil request path, from given() to CustomResponse, against an
+ * in-process {@link StubServer} on a free port. The limiter, coalescing and
+ * retries are switched off so only the client's own cost is measured; the
+ * pool, compression and latency metrics stay as configured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xmx4g", "-Dlimiter.enabled=false", "-Dcoalesce.enabled=false",
+		"-Dhttp.retry.enabled=false", "-Dbreaker.enabled=false", "-Dcache.enabled=false", "-Dfixtures.mode=off" })
+public class ApiUtilBenchmark {
+
+	@Param({ "100", "10000", "100000" })
+	public int rows;
+
+	private StubServer server;
+	private ApiUtil apiUtil;
+
+	@Setup
+	public void setUp() throws InterruptedException {
+		server = new StubServer(0, 0, rows).start();
+		// Before any class that reads base.url is loaded
+		System.setProperty("base.url", server.getBaseUrl());
+		apiUtil = new ApiUtil();
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.close();
+	}
+
+	@Benchmark
+	public CustomResponse getAllStocks() {
+		return apiUtil.getAllStocks("/PharmacyStock/AllStockDetails", null);
+	}
+
+	@Benchmark
+	public CustomResponse getMainStore() {
+		return apiUtil.getMainStore("/PharmacySettings/MainStore", null);
+	}
+
+	@Benchmark
+	public CustomResponse getInPatientProvItems() {
+		return apiUtil.getInPatientProvItems(
+				"/Billing/InPatientProvisionalItems?patientId=176&patientVisitId=147&module=radiology", null);
+	}
+}
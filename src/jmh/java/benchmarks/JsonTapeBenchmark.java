@@ -0,0 +1,77 @@
+package benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rest.JsonDocument;
+import rest.JsonTape;
+
+/**
+ * Checking every row of a getAllStocks body the way the validator does, once
+ * by parsing it into a {@link JsonDocument} and once over a {@link JsonTape}
+ * read in place from a direct buffer. Both include the parse or index step;
+ * run with -prof gc to compare the allocation per body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class JsonTapeBenchmark {
+
+	@Param({ "100", "10000", "1000000" })
+	public int rows;
+
+	private byte[] body;
+	private ByteBuffer directBody;
+
+	@Setup
+	public void setUp() {
+		body = Payloads.stockList(rows);
+		directBody = ByteBuffer.allocateDirect(body.length);
+		directBody.put(body).flip();
+	}
+
+	@Benchmark
+	public long documentScan() {
+		List<Map<String, Object>> results = JsonDocument.parse(body).getList("Results");
+		long checksum = 0;
+		for (Map<String, Object> row : results) {
+			checksum += ((Number) row.get("ItemId")).intValue();
+			if (row.get("ItemName") != null && "Paracetamol".equals(row.get("GenericName"))) {
+				checksum++;
+			}
+		}
+		return checksum;
+	}
+
+	@Benchmark
+	public long tapeScan() {
+		JsonTape tape = JsonTape.index(directBody);
+		int results = tape.node("Results");
+		long checksum = 0;
+		for (int row = tape.firstElement(results); row >= 0; row = tape.nextElement(results, row)) {
+			checksum += tape.intValue(tape.field(row, "ItemId"));
+			if (!tape.isNull(tape.field(row, "ItemName"))
+					&& tape.textEquals(tape.field(row, "GenericName"), "Paracetamol")) {
+				checksum++;
+			}
+		}
+		return checksum;
+	}
+}
@@ -0,0 +1,37 @@
+package benchmarks;
+
+import java.nio.charset.StandardCharsets;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+
+/**
+ * Synthetic /PharmacyStock/AllStockDetails bodies for the decoding benchmarks.
+ * The rows have the fields the PL2 tests read, plus a few more so a row is
+ * about as large as a real one.
+ */
+final class Payloads {
+
+	private Payloads() {
+	}
+
+	static byte[] stockList(int rows) {
+		StringBuilder json = new StringBuilder(rows * 160 + 64).append("{\"Status\":\"OK\",\"Results\":[");
+		for (int i = 0; i < rows; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"ItemId\":").append(1000 + i).append(",\"ItemName\":\"Paracetamol 500mg #").append(i)
+					.append("\",\"GenericName\":\"Paracetamol\",\"BatchNo\":\"B").append(5000 + i)
+					.append("\",\"ExpiryDate\":\"2025-12-31T10:30:00\",\"AvailableQuantity\":").append(10 + i % 500)
+					.append(",\"CostPrice\":").append(5 + i % 1000 / 4.0).append(",\"StoreId\":1,\"IsActive\":true}");
+		}
+		return json.append("],\"ErrorMessage\":null}").toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	// A fresh, unparsed response around the body, as RestAssured hands it to ApiUtil
+	static Response response(byte[] body) {
+		return new ResponseBuilder().setStatusCode(200).setStatusLine("HTTP/1.1 200 OK")
+				.setContentType("application/json; charset=utf-8").setBody(body).build();
+	}
+}
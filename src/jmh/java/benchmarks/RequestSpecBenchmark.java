@@ -0,0 +1,56 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.specification.RequestSpecification;
+import rest.AuthUtil;
+import rest.SpecUtil;
+import restConfig.ConfigManager;
+
+/**
+ * The specification setup every ApiUtil getter pays for, once with its own
+ * given() chain and once merging the shared specification from
+ * {@link SpecUtil}. No request is sent; run with -prof gc to compare the bytes
+ * allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dfixtures.mode=off")
+public class RequestSpecBenchmark {
+
+	private String baseUrl;
+	private RequestSpecification sharedSpec;
+
+	@Setup
+	public void setUp() {
+		baseUrl = ConfigManager.getProperty("base.url");
+		sharedSpec = SpecUtil.getRequestSpec();
+	}
+
+	@Benchmark
+	public RequestSpecification perCallGiven() {
+		return RestAssured.given().baseUri(baseUrl).header("Authorization", AuthUtil.getAuthHeader())
+				.contentType(ContentType.JSON).basePath("/PharmacyStock/AllStockDetails");
+	}
+
+	@Benchmark
+	public RequestSpecification sharedSpec() {
+		return RestAssured.given().spec(sharedSpec).basePath("/PharmacyStock/AllStockDetails");
+	}
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
+import rest.CustomResponse;
+import rest.JsonResultsReader;
+
+/**
+ * Decoding cost of a results list of the given size: the jsonPath() extraction
+ * every ApiUtil getter performs, single lookups on a fresh and on an already
+ * parsed JsonPath, and streaming the rows with {@link JsonResultsReader}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class ResponseDecodingBenchmark {
+
+	@Param({ "100", "10000", "1000000" })
+	public int rows;
+
+	private byte[] body;
+	private JsonPath parsed;
+
+	@Setup
+	public void setUp() {
+		body = Payloads.stockList(rows);
+		parsed = Payloads.response(body).jsonPath();
+	}
+
+	// What getAllStocks does once the response has arrived
+	@Benchmark
+	public CustomResponse listExtraction() {
+		Response response = Payloads.response(body);
+		JsonPath jsonPath = response.jsonPath();
+		String status = jsonPath.getString("Status");
+		List<Map<String, Object>> results = jsonPath.getList("Results");
+		return new CustomResponse(response, response.getStatusCode(), status, results);
+	}
+
+	// A single field read through response.jsonPath(), which parses the whole body
+	@Benchmark
+	public String statusLookup() {
+		return Payloads.response(body).jsonPath().getString("Status");
+	}
+
+	@Benchmark
+	public Object lookupOnParsedJsonPath() {
+		return parsed.get("Results[0].ItemName");
+	}
+
+	@Benchmark
+	public void streamResults(Blackhole blackhole) throws IOException {
+		try (JsonResultsReader reader = new JsonResultsReader(new ByteArrayInputStream(body))) {
+			while (reader.hasNext()) {
+				blackhole.consume(reader.next());
+			}
+		}
+	}
+}
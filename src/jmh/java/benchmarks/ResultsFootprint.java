@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Map;
+
+import rest.ColumnarResults;
+
+/**
+ * Retained heap per row of a getAllStocks results list, as the JsonPath maps
+ * and as {@link ColumnarResults}. JMH measures allocation rather than what
+ * stays reachable, so this is a plain main run through the benchmark profile
+ * with -Djmh.main=benchmarks.ResultsFootprint; the arguments are row counts.
+ * Run it with a heap large enough for the largest list and without other load,
+ * since the numbers come from the used heap after a full GC.
+ */
+public final class ResultsFootprint {
+
+	private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+	// Keeps the measured structure reachable until its size has been taken
+	private static volatile Object retained;
+
+	private ResultsFootprint() {
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		String[] counts = args.length == 0 ? new String[] { "10000", "100000", "1000000" } : args;
+		// Loads JsonPath and Groovy before the first baseline
+		ColumnarResults.of(Payloads.response(Payloads.stockList(1)).jsonPath().getList("Results"));
+		for (String count : counts) {
+			int rows = Integer.parseInt(count);
+			byte[] body = Payloads.stockList(rows);
+
+			long baseline = usedAfterGc();
+			List<Map<String, Object>> maps = Payloads.response(body).jsonPath().getList("Results");
+			long mapBytes = usedAfterGc() - baseline;
+			retained = maps;
+
+			ColumnarResults columnar = ColumnarResults.of(maps);
+			maps = null;
+			retained = null;
+			// JsonPath keeps the last document it parsed reachable until the next parse
+			Payloads.response(Payloads.stockList(1)).jsonPath().getList("Results");
+			long columnarBytes = usedAfterGc() - baseline;
+			retained = columnar;
+			retained = null;
+
+			System.out.printf("%,d rows: maps %.1f bytes/row, columnar %.1f bytes/row (%.1fx smaller)%n", rows,
+					(double) mapBytes / rows, (double) columnarBytes / rows, (double) mapBytes / columnarBytes);
+		}
+	}
+
+	private static long usedAfterGc() throws InterruptedException {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(100);
+		}
+		return MEMORY.getHeapMemoryUsage().getUsed();
+	}
+}
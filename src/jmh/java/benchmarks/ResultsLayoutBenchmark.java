@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rest.ColumnarResults;
+
+/**
+ * Scanning a getAllStocks results list the way the PL2 tests do, over the
+ * JsonPath maps and over {@link ColumnarResults}: through its row maps, and
+ * column by column with the typed accessors. convertToColumnar is the one-off
+ * cost of the copy. Retained memory per row is reported by
+ * {@link ResultsFootprint}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class ResultsLayoutBenchmark {
+
+	@Param({ "100", "10000", "1000000" })
+	public int rows;
+
+	private List<Map<String, Object>> maps;
+	private ColumnarResults columnar;
+
+	@Setup
+	public void setUp() {
+		maps = Payloads.response(Payloads.stockList(rows)).jsonPath().getList("Results");
+		columnar = ColumnarResults.of(maps);
+	}
+
+	@Benchmark
+	public long scanMaps() {
+		return scan(maps);
+	}
+
+	@Benchmark
+	public long scanRowViews() {
+		return scan(columnar);
+	}
+
+	@Benchmark
+	public long scanColumns() {
+		int itemId = columnar.columnIndex("ItemId");
+		int itemName = columnar.columnIndex("ItemName");
+		int genericName = columnar.columnIndex("GenericName");
+		long checksum = 0;
+		for (int row = 0; row < columnar.size(); row++) {
+			checksum += columnar.getInt(row, itemId);
+			if (!columnar.isNull(row, itemName) && "Paracetamol".equals(columnar.get(row, genericName))) {
+				checksum++;
+			}
+		}
+		return checksum;
+	}
+
+	@Benchmark
+	public ColumnarResults convertToColumnar() {
+		return ColumnarResults.of(maps);
+	}
+
+	private static long scan(List<Map<String, Object>> results) {
+		long checksum = 0;
+		for (Map<String, Object> row : results) {
+			checksum += ((Number) row.get("ItemId")).intValue();
+			if (row.get("ItemName") != null && "Paracetamol".equals(row.get("GenericName"))) {
+				checksum++;
+			}
+		}
+		return checksum;
+	}
+}
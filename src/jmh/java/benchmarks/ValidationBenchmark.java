@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.restassured.response.Response;
+import rest.CustomResponse;
+import testcases.TestCodeValidator;
+
+/**
+ * Cost of {@link TestCodeValidator#validateResponseFields} on a getAllStocks
+ * response of the given size. The validator pretty-prints the response; the
+ * formatting is measured but the output is discarded. Each invocation gets a
+ * fresh CustomResponse, so the one parse behind its path lookups is measured
+ * every time rather than only on the first call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class ValidationBenchmark {
+
+	@Param({ "100", "10000", "1000000" })
+	public int rows;
+
+	private Response response;
+	private List<Map<String, Object>> results;
+	private PrintStream stdout;
+
+	@Setup
+	public void setUp() {
+		response = Payloads.response(Payloads.stockList(rows));
+		results = response.jsonPath().getList("Results");
+		stdout = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		}));
+	}
+
+	@TearDown
+	public void tearDown() {
+		System.setOut(stdout);
+	}
+
+	@Benchmark
+	public boolean validateResponseFields() {
+		return TestCodeValidator.validateResponseFields("getAllStocks",
+				new CustomResponse(response, 200, "OK", results));
+	}
+}
@@ -11,8 +11,23 @@ import org.testng.ITestResult;
 
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
 
 import coreUtilities.utils.ExtentReportManager;
+import rest.CircuitBreaker;
+import rest.CircuitBreakerFilter;
+import rest.FixtureFilter;
+import rest.LatencyMetrics;
+import rest.LatencyStatistics;
+import rest.RequestCoalescer;
+import rest.RequestLimiter;
+import rest.ResponseCache;
+import rest.RetryPolicy;
+import rest.RetryStatistics;
+import rest.StubServer;
+import rest.TransferMetrics;
+import rest.TransferStatistics;
+import rest.TransportFilter;
 
 public class TestListener implements ITestListener {
 
@@ -22,13 +37,92 @@ public class TestListener implements ITestListener {
 
 	public synchronized void onStart(ITestContext context) {
 		System.out.println("Extent Reports Version 3 Test Suite started!");
+		if (StubServer.isStubEnabled()) {
+			try {
+				StubServer.startShared();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while starting the stub server", e);
+			}
+		}
 	}
 
 	public synchronized void onFinish(ITestContext context) {
 		System.out.println(("Extent Reports Version 3  Test Suite is ending!"));
+		System.out.println(TransportFilter.getConnectionStatistics());
+		System.out.println(RequestCoalescer.getInstance());
+		for (TransferStatistics transfer : TransferMetrics.getStatistics().values()) {
+			System.out.println(transfer);
+		}
+		if (FixtureFilter.isFixturesEnabled()) {
+			System.out.println(FixtureFilter.getInstance());
+		}
+		if (ResponseCache.isCacheEnabled()) {
+			System.out.println(ResponseCache.getInstance().getStatistics());
+		}
+		if (CircuitBreakerFilter.isBreakerEnabled()) {
+			for (CircuitBreaker breaker : CircuitBreakerFilter.getInstance().getBreakers().values()) {
+				if (breaker.getState() != CircuitBreaker.State.CLOSED || breaker.getRejected() > 0) {
+					System.out.println(breaker);
+				}
+			}
+		}
+		reportLatency();
+		reportRetries();
+		reportLimiterWaits();
 		extent.flush();
 	}
 
+	// Adds the per-endpoint latency percentiles to the Extent report and writes
+	// them as JSON
+	private void reportLatency() {
+		if (!LatencyMetrics.isLatencyEnabled() || LatencyMetrics.getStatistics().isEmpty()) {
+			return;
+		}
+		for (LatencyStatistics latency : LatencyMetrics.getStatistics().values()) {
+			System.out.println(latency);
+		}
+		extent.createTest("API latency", "Send to last byte, per endpoint")
+				.info(MarkupHelper.createTable(LatencyMetrics.toTable()));
+		try {
+			System.out.println("Latency report: " + LatencyMetrics.writeReport().getAbsolutePath());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Retries are reported even when there were none, so a clean run is visible
+	private void reportRetries() {
+		if (!RetryPolicy.isRetryEnabled()) {
+			return;
+		}
+		RetryStatistics retries = RetryPolicy.getInstance().getStatistics();
+		System.out.println(retries);
+		extent.createTest("API retries", "Request-level retries of transient failures")
+				.info(MarkupHelper.createTable(new String[][] { { "Retries", "Recovered", "Exhausted",
+						"Budget denied", "Budget left", "Added ms", "By reason", "By endpoint" },
+						{ String.valueOf(retries.getRetries()), String.valueOf(retries.getRecovered()),
+								String.valueOf(retries.getExhausted()), String.valueOf(retries.getBudgetDenied()),
+								retries.getBudgetRemaining() + "/" + retries.getBudget(),
+								String.format("%.1f", retries.getAddedMillis()),
+								retries.getRetriesByReason().toString(), retries.getRetriesByEndpoint().toString() } }));
+	}
+
+	// Time spent queued in the client-side limiter, kept apart from server latency
+	private void reportLimiterWaits() {
+		if (!RequestLimiter.isLimiterEnabled() || RequestLimiter.getInstance().getWaitStatistics().isEmpty()) {
+			return;
+		}
+		for (LatencyStatistics wait : RequestLimiter.getInstance().getWaitStatistics().values()) {
+			System.out.println(String.format(
+					"Limiter wait %-48s count=%d p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms", wait.getPath(),
+					wait.getCount(), wait.getP50Millis(), wait.getP90Millis(), wait.getP99Millis(),
+					wait.getMaxMillis()));
+		}
+		extent.createTest("API limiter wait", "Time waiting for a rate token or in-flight slot, per endpoint")
+				.info(MarkupHelper.createTable(RequestLimiter.getInstance().toWaitTable()));
+	}
+
 	public synchronized void onTestStart(ITestResult result) {
 		System.out.println((result.getMethod().getMethodName() + " started!"));
 		ExtentTest extentTest = extent.createTest(result.getMethod().getMethodName(),
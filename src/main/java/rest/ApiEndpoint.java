@@ -0,0 +1,129 @@
+package rest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+/**
+ * The endpoint and parameter set exercised by RestAssured_TestCases_PL2, one
+ * constant per {@link ApiUtil} operation. Runners that drive all operations
+ * (sweeps, load generation, fixtures) iterate over these instead of repeating
+ * the paths.
+ */
+public enum ApiEndpoint {
+
+	GET_ALL_STOCKS("getAllStocks", "/PharmacyStock/AllStockDetails",
+			(apiUtil, endpoint) -> apiUtil.getAllStocks(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getAllStocks(endpoint, null)),
+	GET_MAIN_STORE("getMainStore", "/PharmacySettings/MainStore",
+			(apiUtil, endpoint) -> apiUtil.getMainStore(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getMainStore(endpoint, null)),
+	GET_REQUISITION_BY_DATE_RANGE("getRequisitionByDateRange",
+			"/DispensaryRequisition/Dispensary/1?FromDate=2020-01-01&ToDate=2024-11-19",
+			(apiUtil, endpoint) -> apiUtil.getRequisitionByDateRange(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getRequisitionByDateRange(endpoint, null)),
+	GET_PATIENT_CONSUMPTIONS("getPatientConsumptions", "/PatientConsumption/PatientConsumptions",
+			(apiUtil, endpoint) -> apiUtil.getPatientConsumptions(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getPatientConsumptions(endpoint, null)),
+	GET_PATIENT_CONSUMPTION_INFO("getPatientConsumptionInfoByPatientIdAndVisitId",
+			"/PatientConsumption/PatientConsumptionInfo?patientId=114&patientVisitId=53",
+			(apiUtil, endpoint) -> apiUtil.getPatientConsumptionInfoByPatientIdAndVisitId(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getPatientConsumptionInfoByPatientIdAndVisitId(endpoint, null)),
+	GET_BILLING_SCHEME_BY_SCHEME_ID("getBillingSchemeBySchemeId",
+			"/PatientConsumption/PharmacyIpBillingScheme?schemeId=4",
+			(apiUtil, endpoint) -> apiUtil.getBillingSchemeBySchemeId(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getBillingSchemeBySchemeId(endpoint, null)),
+	GET_BILLING_SUMMARY_BY_PATIENT_ID("getBillingSummaryByPatientId",
+			"/PharmacySales/PatientBillingSummary?patientId=114",
+			(apiUtil, endpoint) -> apiUtil.getBillingSummaryByPatientId(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getBillingSummaryByPatientId(endpoint, null)),
+	GET_CONSUMPTIONS_LIST_OF_A_PATIENT("getConsumptionsListOfAPatientById",
+			"/PatientConsumption/ConsumptionsOfPatient?patientId=114&patientVisitId=53",
+			(apiUtil, endpoint) -> apiUtil.getConsumptionsListOfAPatientById(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getConsumptionsListOfAPatientById(endpoint, null)),
+	GET_RETURN_CONSUMPTIONS_LIST("getReturnConsumptionsList", "/PatientConsumption/Returns",
+			(apiUtil, endpoint) -> apiUtil.getReturnConsumptionsList(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getReturnConsumptionsList(endpoint, null)),
+	GET_DISCHARGED_PATIENTS("getDischargedPatients",
+			"/Admission/DischargedPatients?admissionStatus=discharged&FromDate=2020-01-01&ToDate=2024-11-19",
+			(apiUtil, endpoint) -> apiUtil.getDischargedPatients(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getDischargedPatients(endpoint, null)),
+	GET_FILM_TYPES_IN_RADIOLOGY("getFilmTypesInRadiology", "/radiology/FilmTypes",
+			(apiUtil, endpoint) -> apiUtil.getFilmTypesInRadiology(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getFilmTypesInRadiology(endpoint, null)),
+	GET_REQUISITIONS_BY_ORDER_STATUS_AND_DATE_RANGE("getRequisitionsByOrderStatusAndDateRange",
+			"/radiology/Requisitions?reqOrderStatus=active&reportOrderStatus=pending&typeList=[1,2,3,4]&fromDate=2024-01-15&toDate=2025-01-20",
+			(apiUtil, endpoint) -> apiUtil.getRequisitionsByOrderStatusAndDateRange(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getRequisitionsByOrderStatusAndDateRange(endpoint, null)),
+	GET_IMAGING_REPORTS_WITH_STATUS_AND_DATE_RANGE("getImagingReportsWithStatusAndDateRange",
+			"/radiology/ImagingReports?reportOrderStatus=final&fromDate=2024-01-14&toDate=2025-01-21&typeList=[1,2,3,4]",
+			(apiUtil, endpoint) -> apiUtil.getImagingReportsWithStatusAndDateRange(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getImagingReportsWithStatusAndDateRange(endpoint, null)),
+	GET_ADMITTED_PATIENT_DATA("getAdmittedPatientData",
+			"/Billing/InPatientProvisionalItems?patientId=176&patientVisitId=147&module=radiology",
+			(apiUtil, endpoint) -> apiUtil.getAdmittedPatientData(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getAdmittedPatientData(endpoint, null)),
+	GET_IN_PATIENT_PROV_ITEMS("getInPatientProvItems",
+			"/Billing/InPatientProvisionalItems?patientId=176&patientVisitId=147&module=radiology",
+			(apiUtil, endpoint) -> apiUtil.getInPatientProvItems(endpoint, null),
+			(asyncApiUtil, endpoint) -> asyncApiUtil.getInPatientProvItems(endpoint, null));
+
+	private final String methodName;
+	private final String endpoint;
+	private final BiFunction<ApiUtil, String, CustomResponse> call;
+	private final BiFunction<AsyncApiUtil, String, CompletableFuture<CustomResponse>> asyncCall;
+
+	ApiEndpoint(String methodName, String endpoint, BiFunction<ApiUtil, String, CustomResponse> call,
+			BiFunction<AsyncApiUtil, String, CompletableFuture<CustomResponse>> asyncCall) {
+		this.methodName = methodName;
+		this.endpoint = endpoint;
+		this.call = call;
+		this.asyncCall = asyncCall;
+	}
+
+	// Name of the ApiUtil method behind this endpoint
+	public String getMethodName() {
+		return methodName;
+	}
+
+	// Path and query string as used by the PL2 test cases
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	// Path without the query string
+	public String getPath() {
+		int queryStart = endpoint.indexOf('?');
+		return queryStart < 0 ? endpoint : endpoint.substring(0, queryStart);
+	}
+
+	public CustomResponse invoke(ApiUtil apiUtil) {
+		return invoke(apiUtil, endpoint);
+	}
+
+	// Invokes the same ApiUtil method with a different path or query; the
+	// response comes back as a detached copy when response.detach is enabled
+	public CustomResponse invoke(ApiUtil apiUtil, String endpoint) {
+		CustomResponse response = call.apply(apiUtil, endpoint);
+		return CustomResponse.isDetachEnabled() ? response.detach() : response;
+	}
+
+	public CompletableFuture<CustomResponse> invokeAsync(AsyncApiUtil asyncApiUtil) {
+		return invokeAsync(asyncApiUtil, endpoint);
+	}
+
+	// Non-blocking counterpart of invoke, through the AsyncApiUtil method of the
+	// same name
+	public CompletableFuture<CustomResponse> invokeAsync(AsyncApiUtil asyncApiUtil, String endpoint) {
+		CompletableFuture<CustomResponse> response = asyncCall.apply(asyncApiUtil, endpoint);
+		return CustomResponse.isDetachEnabled() ? response.thenApply(CustomResponse::detach) : response;
+	}
+
+	public static ApiEndpoint forMethodName(String methodName) {
+		for (ApiEndpoint apiEndpoint : values()) {
+			if (apiEndpoint.methodName.equals(methodName)) {
+				return apiEndpoint;
+			}
+		}
+		throw new IllegalArgumentException("No ApiUtil endpoint for method " + methodName);
+	}
+}
@@ -1,13 +1,29 @@
 package rest;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import io.restassured.RestAssured;
 import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
 
 public class ApiUtil {
 
-	private static final String BASE_URL = "https://healthapp.yaksha.com/api";
+	private static final RequestCoalescer COALESCER = RequestCoalescer.getInstance();
+
+	private static final JsonProjection STOCK_ITEM_FIELDS = JsonProjection.of("Status", "Results[*].ItemId",
+			"Results[*].ItemName", "Results[*].GenericName");
+	private static final JsonProjection MAIN_STORE_FIELDS = JsonProjection.of("Status", "Results.StoreId",
+			"Results.Category", "Results.IsActive");
+	private static final JsonProjection BILLING_SUMMARY_FIELDS = JsonProjection.of("Status", "Results.PatientId",
+			"Results.TotalDue");
+	private static final JsonProjection PATIENT_ID_AND_CODE_FIELDS = JsonProjection.of("Status",
+			"Results[*].PatientId", "Results[*].PatientCode");
 
 	/**
 	 * @Test1 This method retrieves and verifies the list of stocks
@@ -19,14 +35,9 @@ public class ApiUtil {
 	 *         message, and the list of stocks.
 	 */
 	public CustomResponse getAllStocks(String endpoint, Object body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		List<Map<String, Object>> results = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, results);
+		return fetch("getAllStocks", endpoint, body,
+				request -> request.given().when().get(endpoint).then().extract().response(),
+				response -> toListResponse(response, "Results"));
 	}
 
 	/**
@@ -41,14 +52,9 @@ public class ApiUtil {
 	 *         IsActive.
 	 */
 	public CustomResponse getMainStore(String endpoint, Object body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		Map<String, Object> results = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, results);
+		return fetch("getMainStore", endpoint, body,
+				request -> request.given().when().get(endpoint).then().extract().response(),
+				response -> toMapResponse(response, "Results"));
 	}
 
 	/**
@@ -63,14 +69,10 @@ public class ApiUtil {
 	 *         RequisitionStatus.
 	 */
 	public CustomResponse getRequisitionByDateRange(String endpoint, Object body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		List<Map<String, Object>> requisitionList = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, requisitionList);
+		return fetchRange(ApiEndpoint.GET_REQUISITION_BY_DATE_RANGE, endpoint,
+				window -> fetch("getRequisitionByDateRange", window, body,
+						request -> request.given().when().get(window).then().extract().response(),
+						response -> toListResponse(response, "Results")));
 	}
 
 	/**
@@ -84,14 +86,9 @@ public class ApiUtil {
 	 *         containing details such as PatientId, HospitalNo, and PatientVisitId.
 	 */
 	public CustomResponse getPatientConsumptions(String endpoint, Object body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		List<Map<String, Object>> patientConsumptions = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, patientConsumptions);
+		return fetch("getPatientConsumptions", endpoint, body,
+				request -> request.given().when().get(endpoint).then().extract().response(),
+				response -> toListResponse(response, "Results"));
 	}
 
 	/**
@@ -107,14 +104,9 @@ public class ApiUtil {
 	 *         StoreId.
 	 */
 	public CustomResponse getPatientConsumptionInfoByPatientIdAndVisitId(String endpoint, Object body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		Map<String, Object> patientConsumption = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, patientConsumption);
+		return fetch("getPatientConsumptionInfoByPatientIdAndVisitId", endpoint, body,
+				request -> request.given().when().get(endpoint).then().extract().response(),
+				response -> toMapResponse(response, "Results"));
 	}
 
 	/**
@@ -128,14 +120,9 @@ public class ApiUtil {
 	 *         containing details such as SchemeCode, SchemeName, and CommunityName.
 	 */
 	public CustomResponse getBillingSchemeBySchemeId(String endpoint, Object body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		Map<String, Object> billingScheme = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, billingScheme);
+		return fetch("getBillingSchemeBySchemeId", endpoint, body,
+				request -> request.given().when().get(endpoint).then().extract().response(),
+				response -> toMapResponse(response, "Results"));
 	}
 
 	/**
@@ -150,14 +137,9 @@ public class ApiUtil {
 	 *         TotalDue.
 	 */
 	public CustomResponse getBillingSummaryByPatientId(String endpoint, Object body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		Map<String, Object> billingSummary = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, billingSummary);
+		return fetch("getBillingSummaryByPatientId", endpoint, body,
+				request -> request.given().when().get(endpoint).then().extract().response(),
+				response -> toMapResponse(response, "Results"));
 	}
 
 	/**
@@ -173,14 +155,9 @@ public class ApiUtil {
 	 *         ConsumptionReceiptNo, and TotalAmount.
 	 */
 	public CustomResponse getConsumptionsListOfAPatientById(String endpoint, Object body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		List<Map<String, Object>> consumptionsList = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, consumptionsList);
+		return fetch("getConsumptionsListOfAPatientById", endpoint, body,
+				request -> request.given().when().get(endpoint).then().extract().response(),
+				response -> toListResponse(response, "Results"));
 	}
 
 	/**
@@ -195,14 +172,9 @@ public class ApiUtil {
 	 *         and PatientId.
 	 */
 	public CustomResponse getReturnConsumptionsList(String endpoint, Object body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		List<Map<String, Object>> returnConsumptions = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, returnConsumptions);
+		return fetch("getReturnConsumptionsList", endpoint, body,
+				request -> request.given().when().get(endpoint).then().extract().response(),
+				response -> toListResponse(response, "Results"));
 	}
 
 	/**
@@ -216,14 +188,10 @@ public class ApiUtil {
 	 *         containing details such as VisitCode, PatientVisitId, and PatientId.
 	 */
 	public CustomResponse getDischargedPatients(String endpoint, Object body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		List<Map<String, Object>> dischargedPatients = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, dischargedPatients);
+		return fetchRange(ApiEndpoint.GET_DISCHARGED_PATIENTS, endpoint,
+				window -> fetch("getDischargedPatients", window, body,
+						request -> request.given().when().get(window).then().extract().response(),
+						response -> toListResponse(response, "Results")));
 	}
 
 	/**
@@ -241,14 +209,9 @@ public class ApiUtil {
 	 *         the available radiology film types.
 	 */
 	public CustomResponse getFilmTypesInRadiology(String endpoint, Object body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		List<Map<String, Object>> results = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, results);
+		return fetch("getFilmTypesInRadiology", endpoint, body,
+				request -> request.given().when().get(endpoint).then().extract().response(),
+				response -> toListResponse(response, "Results"));
 	}
 
 	/**
@@ -267,14 +230,10 @@ public class ApiUtil {
 	 *         that match the specified criteria.
 	 */
 	public CustomResponse getRequisitionsByOrderStatusAndDateRange(String endpoint, Object body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		List<Map<String, Object>> results = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, results);
+		return fetchRange(ApiEndpoint.GET_REQUISITIONS_BY_ORDER_STATUS_AND_DATE_RANGE, endpoint,
+				window -> fetch("getRequisitionsByOrderStatusAndDateRange", window, body,
+						request -> request.given().when().get(window).then().extract().response(),
+						response -> toListResponse(response, "Results")));
 	}
 
 	/**
@@ -293,15 +252,10 @@ public class ApiUtil {
 	 *         based on the specified criteria.
 	 */
 	public CustomResponse getImagingReportsWithStatusAndDateRange(String endpoint, Object body) {
-		Response response = null;
-
-		// Extract required data from the response
-		int statusCode = 0;
-		String status = null;
-		List<Map<String, Object>> results = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, results);
+		return fetchRange(ApiEndpoint.GET_IMAGING_REPORTS_WITH_STATUS_AND_DATE_RANGE, endpoint,
+				window -> fetch("getImagingReportsWithStatusAndDateRange", window, body,
+						request -> request.given().when().get(window).then().extract().response(),
+						response -> toListResponse(response, "Results")));
 	}
 
 	/**
@@ -319,14 +273,9 @@ public class ApiUtil {
 	 *         patients.
 	 */
 	public CustomResponse getAdmittedPatientData(String endpoint, String body) {
-		Response response = null;
-
-		int statusCode = 0;
-		String status = null;
-		Map<String, Object> results = null;
-
-		// Return a CustomResponse object
-		return new CustomResponse(response, statusCode, status, results);
+		return fetch("getAdmittedPatientData", endpoint, body,
+				request -> request.given().when().get(endpoint).then().extract().response(),
+				response -> toMapResponse(response, "Results"));
 	}
 
 	/**
@@ -344,13 +293,187 @@ public class ApiUtil {
 	 *         items.
 	 */
 	public CustomResponse getInPatientProvItems(String endpoint, Map<String, String> body) {
-		Response response = null;
+		return fetch("getInPatientProvItems", endpoint, body,
+				request -> request.given().when().get(endpoint).then().extract().response(),
+				response -> toListResponse(response, "Results.BillItems"));
+	}
 
-		int statusCode = 0;
-		String status = null;
-		List<Map<String, Object>> results = null;
+	// Coalesces identical calls under the getter's name, adds the optional body
+	// to the shared spec, sends the request and decodes the response once
+	private static CustomResponse fetch(String name, String endpoint, Object body,
+			Function<RequestSpecification, Response> exchange, Function<Response, CustomResponse> decode) {
+		return COALESCER.execute(name, endpoint, body, () -> {
+			RequestSpecification request = RestAssured.given().spec(SpecUtil.getRequestSpec());
+			if (body != null) {
+				request.body(body);
+			}
+			return decode.apply(exchange.apply(request));
+		});
+	}
+
+	// Fetches a FromDate/ToDate range window by window when split.enabled is
+	// set; each window goes through fetch on its own
+	private static CustomResponse fetchRange(ApiEndpoint operation, String endpoint,
+			Function<String, CustomResponse> window) {
+		if (!DateRangeSplitter.isSplitEnabled()) {
+			return window.apply(endpoint);
+		}
+		return DateRangeSplitter.getInstance().fetch(operation, endpoint, window);
+	}
+
+	/**
+	 * This method streams the rows of a large results array instead of
+	 * materializing the whole list.
+	 * 
+	 * @param endpoint    - The API endpoint to which the GET request is sent.
+	 * @param arrayPath   - Dot separated path of the array to stream, for example
+	 *                    "Results" or "Results.BillItems".
+	 * @param rowConsumer - Receives each row as soon as it has been decoded.
+	 * @description The body is read token by token from the response stream, so
+	 *              only the current row is held in memory. The returned
+	 *              response's body has been consumed and can not be printed.
+	 * @return CustomResponse - The API response includes HTTP status code and
+	 *         status message; the rows are only handed to the consumer.
+	 */
+	public CustomResponse streamResults(String endpoint, String arrayPath, Consumer<Map<String, Object>> rowConsumer) {
+		Response response = RestAssured.given().spec(SpecUtil.getRequestSpec()).when().get(endpoint).then().extract()
+				.response();
+
+		int statusCode = response.getStatusCode();
+		String status;
+		try (JsonResultsReader reader = new JsonResultsReader(response.asInputStream(), arrayPath)) {
+			while (reader.hasNext()) {
+				rowConsumer.accept(reader.next());
+			}
+			status = reader.getStatus();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 
-		// Return a CustomResponse object
+		List<Map<String, Object>> results = null;
 		return new CustomResponse(response, statusCode, status, results);
 	}
+
+	/**
+	 * This method decodes only the JSON paths declared by a projection.
+	 * 
+	 * @param endpoint   - The API endpoint to which the GET request is sent.
+	 * @param projection - The paths to extract, for example "Status" and
+	 *                   "Results[*].ItemId".
+	 * @description Fields outside the projection are skipped while the body is
+	 *              streamed, so they are never turned into maps or Strings. The
+	 *              returned response's body has been consumed and can not be
+	 *              printed.
+	 * @return CustomResponse - The API response includes HTTP status code, status
+	 *         message and the projected values, read with getProjection().
+	 */
+	public CustomResponse getProjection(String endpoint, JsonProjection projection) {
+		Response response = RestAssured.given().spec(SpecUtil.getRequestSpec()).when().get(endpoint).then().extract()
+				.response();
+
+		int statusCode = response.getStatusCode();
+		ProjectionResult fields = projection.decode(response.asInputStream());
+		String status = projection.getPaths().contains("Status") ? fields.getString("Status") : null;
+
+		return new CustomResponse(response, statusCode, status, fields);
+	}
+
+	// Projects the ItemId, ItemName and GenericName of every stock item
+	public CustomResponse getStockItemFields(String endpoint) {
+		CustomResponse projected = getProjection(endpoint, STOCK_ITEM_FIELDS);
+		ProjectionResult fields = projected.getProjection();
+		return new CustomResponse(projected.getResponse(), projected.getStatusCode(), projected.getStatus(),
+				fields.getList("Results[*].ItemId"), fields.getList("Results[*].ItemName"),
+				fields.getList("Results[*].GenericName"));
+	}
+
+	// Projects the StoreId, Category and IsActive of the main store
+	public CustomResponse getMainStoreFields(String endpoint) {
+		CustomResponse projected = getProjection(endpoint, MAIN_STORE_FIELDS);
+		ProjectionResult fields = projected.getProjection();
+		return new CustomResponse(projected.getResponse(), projected.getStatusCode(), projected.getStatus(),
+				fields.get("Results.StoreId"), fields.get("Results.Category"), fields.get("Results.IsActive"));
+	}
+
+	// Projects the PatientId and TotalDue of a billing summary
+	public CustomResponse getBillingSummaryFields(String endpoint) {
+		CustomResponse projected = getProjection(endpoint, BILLING_SUMMARY_FIELDS);
+		ProjectionResult fields = projected.getProjection();
+		return new CustomResponse(projected.getResponse(), projected.getStatusCode(), projected.getStatus(),
+				fields.get("Results.PatientId"), fields.get("Results.TotalDue"));
+	}
+
+	// Projects the PatientId and PatientCode of every row in a patient list
+	public CustomResponse getPatientIdsAndCodes(String endpoint) {
+		CustomResponse projected = getProjection(endpoint, PATIENT_ID_AND_CODE_FIELDS);
+		ProjectionResult fields = projected.getProjection();
+		return new CustomResponse(projected.getResponse(), projected.getStatusCode(), projected.getStatus(),
+				fields.getList("Results[*].PatientId"), fields.getList("Results[*].PatientCode"));
+	}
+
+	/**
+	 * This method keeps the response body as raw bytes and indexes its
+	 * structure.
+	 * 
+	 * @param endpoint - The API endpoint to which the GET request is sent.
+	 * @description The body is read into a buffer, off the Java heap with
+	 *              json.tape.direct=true, and indexed in one pass as a JsonTape.
+	 *              Values are decoded only when a check reads them, so very
+	 *              large payloads can be validated without building maps. The
+	 *              returned response's body has been consumed and can not be
+	 *              printed.
+	 * @return CustomResponse - The API response includes HTTP status code, status
+	 *         message and the indexed body, read with getTape().
+	 */
+	public CustomResponse getIndexed(String endpoint) {
+		Response response = RestAssured.given().spec(SpecUtil.getRequestSpec()).when().get(endpoint).then().extract()
+				.response();
+
+		int statusCode = response.getStatusCode();
+		String contentLength = response.getHeader("Content-Length");
+		JsonTape tape = JsonTape.read(response.asInputStream(),
+				contentLength == null ? -1 : Long.parseLong(contentLength.trim()), JsonTape.isDirectEnabled());
+		String status = tape.stringValue(tape.node("Status"));
+
+		return new CustomResponse(response, statusCode, status, tape);
+	}
+
+	// Parses the body once, reads the Status and the rows at resultsPath from it
+	// and keeps the document for getDocument(), instead of a Groovy parse per
+	// jsonPath() lookup and another one for the document
+	static CustomResponse toListResponse(Response response, String resultsPath) {
+		if (ColumnarResults.isColumnarEnabled()) {
+			return toColumnarResponse(response, resultsPath);
+		}
+		JsonDocument document = JsonDocument.parse(response.asByteArray());
+		List<Map<String, Object>> results = document.get(resultsPath) == null ? null
+				: document.getList(resultsPath);
+		CustomResponse customResponse = new CustomResponse(response, response.getStatusCode(),
+				document.getString("Status"), results);
+		customResponse.setDocument(document);
+		return customResponse;
+	}
+
+	// With results.columnar=true the rows go from the body straight into
+	// columns, one at a time, without a map per row or a document
+	private static CustomResponse toColumnarResponse(Response response, String resultsPath) {
+		try (JsonResultsReader reader = new JsonResultsReader(new ByteArrayInputStream(response.asByteArray()),
+				resultsPath)) {
+			List<Map<String, Object>> results = ColumnarResults.from(reader);
+			return new CustomResponse(response, response.getStatusCode(), reader.getStatus(), results);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Same as toListResponse for the getters whose results are a single object
+	@SuppressWarnings("unchecked")
+	static CustomResponse toMapResponse(Response response, String resultsPath) {
+		JsonDocument document = JsonDocument.parse(response.asByteArray());
+		Map<String, Object> results = (Map<String, Object>) document.get(resultsPath);
+		CustomResponse customResponse = new CustomResponse(response, response.getStatusCode(),
+				document.getString("Status"), results);
+		customResponse.setDocument(document);
+		return customResponse;
+	}
 }
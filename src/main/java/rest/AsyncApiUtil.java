@@ -0,0 +1,351 @@
+package rest;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import restConfig.ConfigManager;
+
+/**
+ * Non-blocking twin of {@link ApiUtil}. Every operation is submitted to a
+ * bounded executor and returns immediately with a
+ * {@link CompletableFuture}, so independent calls overlap and the total wall
+ * time approaches that of the slowest call.
+ *
+ * Futures complete exceptionally with a {@link TimeoutException} once the
+ * configured timeout elapses. Cancelling a future, or timing it out, interrupts
+ * the worker thread running the request.
+ *
+ * With a custom http.transport and async.direct=true, the named operations skip
+ * RestAssured: the GET goes straight to the {@link Transport} and the
+ * CustomResponse is built on the executor once the response has arrived, so no
+ * thread waits on the network. When the executor's queue is full, the response
+ * is built on the transport's own thread instead of being rejected. The base
+ * URI and headers come from {@link SpecUtil#getRequestSpec()}, and the call
+ * still passes the {@link RequestLimiter} and the {@link CircuitBreaker} of its
+ * path. The limiter's wait takes an executor thread, so with the limiter on a
+ * burst beyond the queue is rejected as on the blocking path. Cancelling or timing out the future
+ * aborts the exchange on the transport. Calls with a body, instances built on
+ * a subclass of ApiUtil, and runs with fixtures, the response cache or
+ * coalescing enabled keep using the blocking path, which applies them.
+ */
+public class AsyncApiUtil {
+
+	private static final int THREADS = ConfigManager.getIntProperty("async.threads", 8);
+	private static final int QUEUE_CAPACITY = ConfigManager.getIntProperty("async.queueCapacity", 100);
+	private static final long TIMEOUT_MS = ConfigManager.getLongProperty("async.timeoutMs", 30000);
+	private static final boolean DIRECT_ENABLED = ConfigManager.getBooleanProperty("async.direct", true);
+
+	private static final Function<Response, CustomResponse> LIST_RESULTS = response -> ApiUtil
+			.toListResponse(response, "Results");
+	private static final Function<Response, CustomResponse> MAP_RESULTS = response -> ApiUtil.toMapResponse(response,
+			"Results");
+
+	private static final Runnable NOTHING_TO_RELEASE = () -> {
+	};
+
+	private static final ScheduledExecutorService TIMER = Executors
+			.newSingleThreadScheduledExecutor(daemonThreadFactory("async-api-timeout"));
+
+	// Shared by every instance created with the default constructor
+	private static class DefaultExecutor {
+		private static final ExecutorService INSTANCE = newBoundedExecutor(THREADS, QUEUE_CAPACITY);
+	}
+
+	// The base URI and headers of the shared RestAssured specification, for the
+	// direct path
+	private static class DirectRequest {
+		private static final FilterableRequestSpecification SPEC = (FilterableRequestSpecification) SpecUtil
+				.getRequestSpec();
+		private static final String BASE_URI = SPEC.getBaseUri() + SPEC.getBasePath();
+		private static final Headers HEADERS = TransportFilter.headersOf(SPEC);
+	}
+
+	private final ApiUtil apiUtil;
+	private final ExecutorService executor;
+	private final long timeoutMillis;
+
+	public AsyncApiUtil() {
+		this(new ApiUtil(), DefaultExecutor.INSTANCE, TIMEOUT_MS);
+	}
+
+	/**
+	 * @param apiUtil       - The blocking client that performs each request.
+	 * @param executor      - Executor the requests run on. The caller owns it and
+	 *                      is responsible for shutting it down.
+	 * @param timeoutMillis - Time after which a pending future fails with a
+	 *                      TimeoutException; 0 or less disables the timeout.
+	 */
+	public AsyncApiUtil(ApiUtil apiUtil, ExecutorService executor, long timeoutMillis) {
+		this.apiUtil = apiUtil;
+		this.executor = executor;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Creates an executor with a fixed number of daemon worker threads and a
+	 * bounded queue. Submissions beyond the queue capacity are rejected and the
+	 * returned future fails with a {@link RejectedExecutionException}.
+	 *
+	 * @param threads       - Number of worker threads.
+	 * @param queueCapacity - Maximum number of requests waiting for a thread.
+	 * @return ExecutorService - The bounded executor.
+	 */
+	public static ExecutorService newBoundedExecutor(int threads, int queueCapacity) {
+		return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), daemonThreadFactory("async-api"),
+				new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	// Returns a view sharing this executor but with a different timeout
+	public AsyncApiUtil withTimeout(long timeout, TimeUnit unit) {
+		return new AsyncApiUtil(apiUtil, executor, unit.toMillis(timeout));
+	}
+
+	public CompletableFuture<CustomResponse> getAllStocks(String endpoint, Object body) {
+		return send(endpoint, body, LIST_RESULTS, () -> apiUtil.getAllStocks(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getMainStore(String endpoint, Object body) {
+		return send(endpoint, body, MAP_RESULTS, () -> apiUtil.getMainStore(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getRequisitionByDateRange(String endpoint, Object body) {
+		return sendRange(endpoint, body, () -> apiUtil.getRequisitionByDateRange(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getPatientConsumptions(String endpoint, Object body) {
+		return send(endpoint, body, LIST_RESULTS, () -> apiUtil.getPatientConsumptions(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getPatientConsumptionInfoByPatientIdAndVisitId(String endpoint,
+			Object body) {
+		return send(endpoint, body, MAP_RESULTS,
+				() -> apiUtil.getPatientConsumptionInfoByPatientIdAndVisitId(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getBillingSchemeBySchemeId(String endpoint, Object body) {
+		return send(endpoint, body, MAP_RESULTS, () -> apiUtil.getBillingSchemeBySchemeId(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getBillingSummaryByPatientId(String endpoint, Object body) {
+		return send(endpoint, body, MAP_RESULTS, () -> apiUtil.getBillingSummaryByPatientId(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getConsumptionsListOfAPatientById(String endpoint, Object body) {
+		return send(endpoint, body, LIST_RESULTS, () -> apiUtil.getConsumptionsListOfAPatientById(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getReturnConsumptionsList(String endpoint, Object body) {
+		return send(endpoint, body, LIST_RESULTS, () -> apiUtil.getReturnConsumptionsList(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getDischargedPatients(String endpoint, Object body) {
+		return sendRange(endpoint, body, () -> apiUtil.getDischargedPatients(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getFilmTypesInRadiology(String endpoint, Object body) {
+		return send(endpoint, body, LIST_RESULTS, () -> apiUtil.getFilmTypesInRadiology(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getRequisitionsByOrderStatusAndDateRange(String endpoint,
+			Object body) {
+		return sendRange(endpoint, body, () -> apiUtil.getRequisitionsByOrderStatusAndDateRange(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getImagingReportsWithStatusAndDateRange(String endpoint,
+			Object body) {
+		return sendRange(endpoint, body, () -> apiUtil.getImagingReportsWithStatusAndDateRange(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getAdmittedPatientData(String endpoint, String body) {
+		return send(endpoint, body, MAP_RESULTS, () -> apiUtil.getAdmittedPatientData(endpoint, body));
+	}
+
+	public CompletableFuture<CustomResponse> getInPatientProvItems(String endpoint, Map<String, String> body) {
+		return send(endpoint, body, response -> ApiUtil.toListResponse(response, "Results.BillItems"),
+				() -> apiUtil.getInPatientProvItems(endpoint, body));
+	}
+
+	/**
+	 * Whether the named operations send straight to the transport: async.direct
+	 * is set, http.transport is not RestAssured, and fixtures, the response
+	 * cache and coalescing are off.
+	 *
+	 * @return boolean - True when the direct path is used.
+	 */
+	public static boolean isDirectEnabled() {
+		return DIRECT_ENABLED && TransportFilter.isCustomTransport() && !FixtureFilter.isFixturesEnabled()
+				&& !ResponseCache.isCacheEnabled() && !RequestCoalescer.isCoalescingEnabled();
+	}
+
+	/**
+	 * Runs any blocking call on this instance's executor with the same timeout
+	 * and cancellation handling as the named operations.
+	 *
+	 * @param call - The blocking call to run.
+	 * @return CompletableFuture - Completes with the call's result or failure.
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> call) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		Future<?> task;
+		try {
+			task = executor.submit(() -> {
+				try {
+					future.complete(call.get());
+				} catch (Throwable t) {
+					future.completeExceptionally(t);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+			return future;
+		}
+
+		if (timeoutMillis > 0) {
+			ScheduledFuture<?> timeout = TIMER.schedule(() -> future.completeExceptionally(
+					new TimeoutException("Request did not complete within " + timeoutMillis + " ms")),
+					timeoutMillis, TimeUnit.MILLISECONDS);
+			future.whenComplete((result, error) -> timeout.cancel(false));
+		}
+
+		// Stop the worker when the caller gives up on the result
+		future.whenComplete((result, error) -> {
+			if (future.isCancelled() || error instanceof TimeoutException) {
+				task.cancel(true);
+			}
+		});
+		return future;
+	}
+
+	// A split date range runs as one blocking task, since the direct path would
+	// send the whole range as a single request
+	private CompletableFuture<CustomResponse> sendRange(String endpoint, Object body, Supplier<CustomResponse> call) {
+		return DateRangeSplitter.isSplitEnabled() ? submit(call) : send(endpoint, body, LIST_RESULTS, call);
+	}
+
+	// Takes the direct path when it is enabled, there is no body to serialize
+	// and this instance runs the stock ApiUtil, otherwise runs the blocking call
+	private CompletableFuture<CustomResponse> send(String endpoint, Object body,
+			Function<Response, CustomResponse> toCustomResponse, Supplier<CustomResponse> call) {
+		if (body != null || !isDirectEnabled() || apiUtil.getClass() != ApiUtil.class) {
+			return submit(call);
+		}
+		String uri = DirectRequest.BASE_URI + endpoint;
+		String path = TransferMetrics.routeTemplate(uri);
+		CompletableFuture<CustomResponse> future = new CompletableFuture<>();
+		if (RequestLimiter.isLimiterEnabled()) {
+			// The limiter may make the call wait, which must not happen on the
+			// caller's thread
+			Future<?> admission;
+			try {
+				admission = executor.submit(() -> {
+					Runnable release;
+					try {
+						release = RequestLimiter.getInstance().admit(path);
+					} catch (RuntimeException e) {
+						future.completeExceptionally(e);
+						return;
+					}
+					sendDirect(uri, path, release, toCustomResponse, future);
+				});
+			} catch (RejectedExecutionException e) {
+				future.completeExceptionally(e);
+				return future;
+			}
+			future.whenComplete((result, error) -> admission.cancel(true));
+		} else {
+			sendDirect(uri, path, NOTHING_TO_RELEASE, toCustomResponse, future);
+		}
+		if (timeoutMillis > 0) {
+			ScheduledFuture<?> timeout = TIMER.schedule(() -> future.completeExceptionally(
+					new TimeoutException("Request did not complete within " + timeoutMillis + " ms")),
+					timeoutMillis, TimeUnit.MILLISECONDS);
+			future.whenComplete((result, error) -> timeout.cancel(false));
+		}
+		return future;
+	}
+
+	// Sends the GET through the circuit breaker of its path and completes
+	// future with the parsed response. Cancelling future, or its timeout,
+	// cancels the transport's future, which aborts the exchange.
+	private void sendDirect(String uri, String path, Runnable release,
+			Function<Response, CustomResponse> toCustomResponse, CompletableFuture<CustomResponse> future) {
+		if (future.isDone()) {
+			// Timed out or cancelled while waiting for the limiter
+			release.run();
+			return;
+		}
+		CompletableFuture<Response> exchange = breakerSend(uri, path);
+		exchange.whenComplete((response, error) -> release.run());
+		exchange.thenApplyAsync(toCustomResponse, this::parseOn).whenComplete((response, error) -> {
+			if (error == null) {
+				future.complete(response);
+			} else {
+				future.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+			}
+		});
+		future.whenComplete((result, error) -> {
+			if (future.isCancelled() || error instanceof TimeoutException) {
+				exchange.cancel(true);
+			}
+		});
+	}
+
+	// The request has already been served, so when the queue is full the
+	// response is parsed on the transport's thread rather than dropped
+	private void parseOn(Runnable parse) {
+		try {
+			executor.execute(parse);
+		} catch (RejectedExecutionException e) {
+			parse.run();
+		}
+	}
+
+	private static CompletableFuture<Response> breakerSend(String uri, String path) {
+		Transport transport = TransportFilter.getInstance().getTransport();
+		if (!CircuitBreakerFilter.isBreakerEnabled()) {
+			return transport.send("GET", uri, DirectRequest.HEADERS, null);
+		}
+		CircuitBreaker breaker = CircuitBreakerFilter.getInstance().getBreaker(path);
+		long permit;
+		try {
+			permit = breaker.acquirePermission();
+		} catch (CircuitOpenException e) {
+			CompletableFuture<Response> rejected = new CompletableFuture<>();
+			rejected.completeExceptionally(e);
+			return rejected;
+		}
+		long start = System.nanoTime();
+		CompletableFuture<Response> exchange = transport.send("GET", uri, DirectRequest.HEADERS, null);
+		exchange.whenComplete((response, error) -> breaker.onResult(permit,
+				error != null || response.getStatusCode() >= 500, (System.nanoTime() - start) / 1_000_000));
+		return exchange;
+	}
+
+	static ThreadFactory daemonThreadFactory(String prefix) {
+		AtomicInteger counter = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,57 @@
+package rest;
+
+public class CacheStatistics {
+	private final long hits;
+	private final long misses;
+	private final long revalidations;
+	private final long evictions;
+	private final int size;
+	private final int maxEntries;
+
+	public CacheStatistics(long hits, long misses, long revalidations, long evictions, int size, int maxEntries) {
+		this.hits = hits;
+		this.misses = misses;
+		this.revalidations = revalidations;
+		this.evictions = evictions;
+		this.size = size;
+		this.maxEntries = maxEntries;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	// Expired entries confirmed by a 304, which saved the body transfer
+	public long getRevalidations() {
+		return revalidations;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	// Share of cacheable calls answered without a full round trip
+	public double getHitRatio() {
+		long total = hits + misses + revalidations;
+		return total == 0 ? 0 : (double) (hits + revalidations) / total;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"Response cache: hits=%d, misses=%d, revalidations=%d, evictions=%d, size=%d/%d, hitRatio=%.1f%%",
+				hits, misses, revalidations, evictions, size, maxEntries, getHitRatio() * 100);
+	}
+}
@@ -0,0 +1,192 @@
+package rest;
+
+import coreUtilities.utils.Log;
+
+/**
+ * Circuit breaker for one endpoint. While CLOSED, the outcome of the last
+ * windowSize calls is kept; once at least minimumCalls have been seen and the
+ * share of failed or slow calls reaches its threshold, the circuit OPENs and
+ * calls fail fast with {@link CircuitOpenException}. After openMillis it turns
+ * HALF_OPEN and lets halfOpenCalls trial calls through: if they stay under the
+ * thresholds the circuit closes again, otherwise it reopens.
+ *
+ * A failure is an exception or a 5xx status; a slow call is one taking at least
+ * slowCallMillis, whatever its outcome. Each permission carries the generation
+ * of the state it was granted in, so the outcome of a call that finishes after
+ * the circuit changed state, such as a CLOSED call ending while trials run, is
+ * ignored instead of deciding the new state.
+ */
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final String path;
+	private final int windowSize;
+	private final int minimumCalls;
+	private final int failureRateThreshold;
+	private final int slowCallRateThreshold;
+	private final long slowCallMillis;
+	private final long openMillis;
+	private final int halfOpenCalls;
+
+	// Ring buffer of recent outcomes, guarded by this
+	private final boolean[] failed;
+	private final boolean[] slow;
+	private int next;
+	private int recorded;
+	private int failures;
+	private int slowCalls;
+
+	private State state = State.CLOSED;
+	// Incremented on every state change
+	private long generation;
+	private long openedAt;
+	private int trialsStarted;
+	private long rejected;
+
+	/**
+	 * @param path                  - The endpoint path, used in log messages.
+	 * @param windowSize            - Number of recent calls evaluated.
+	 * @param minimumCalls          - Calls needed before the circuit may open.
+	 * @param failureRateThreshold  - Failure percentage that opens the circuit.
+	 * @param slowCallRateThreshold - Slow call percentage that opens the circuit.
+	 * @param slowCallMillis        - Duration from which a call counts as slow.
+	 * @param openMillis            - Time spent failing fast before trial calls.
+	 * @param halfOpenCalls         - Trial calls that decide whether to close.
+	 */
+	public CircuitBreaker(String path, int windowSize, int minimumCalls, int failureRateThreshold,
+			int slowCallRateThreshold, long slowCallMillis, long openMillis, int halfOpenCalls) {
+		this.path = path;
+		this.windowSize = windowSize;
+		this.minimumCalls = Math.min(minimumCalls, windowSize);
+		this.failureRateThreshold = failureRateThreshold;
+		this.slowCallRateThreshold = slowCallRateThreshold;
+		this.slowCallMillis = slowCallMillis;
+		this.openMillis = openMillis;
+		this.halfOpenCalls = halfOpenCalls;
+		this.failed = new boolean[windowSize];
+		this.slow = new boolean[windowSize];
+	}
+
+	/**
+	 * Asks for permission to make a call.
+	 *
+	 * @return long - The permit, to be handed back to
+	 *         {@link #onResult(long, boolean, long)} with the outcome.
+	 * @throws CircuitOpenException when the circuit is open, or half open with
+	 *                              all trial calls already in flight.
+	 */
+	public synchronized long acquirePermission() {
+		long now = System.currentTimeMillis();
+		if (state == State.OPEN) {
+			long remaining = openedAt + openMillis - now;
+			if (remaining > 0) {
+				rejected++;
+				throw new CircuitOpenException(path, remaining);
+			}
+			transitionTo(State.HALF_OPEN, "open for " + openMillis + " ms");
+		}
+		if (state == State.HALF_OPEN) {
+			if (trialsStarted >= halfOpenCalls) {
+				rejected++;
+				throw CircuitOpenException.halfOpen(path, halfOpenCalls);
+			}
+			trialsStarted++;
+		}
+		return generation;
+	}
+
+	/**
+	 * Records the outcome of a call.
+	 *
+	 * @param permit         - The value {@link #acquirePermission()} returned.
+	 * @param failure        - Whether the call threw or answered with a 5xx.
+	 * @param durationMillis - Duration of the call.
+	 */
+	public synchronized void onResult(long permit, boolean failure, long durationMillis) {
+		if (permit != generation) {
+			// Admitted in an earlier state; its outcome says nothing about this one
+			return;
+		}
+		record(failure, durationMillis >= slowCallMillis);
+		if (state == State.HALF_OPEN) {
+			if (recorded >= halfOpenCalls) {
+				if (exceedsThresholds()) {
+					open();
+				} else {
+					transitionTo(State.CLOSED, describeWindow());
+					reset();
+				}
+			}
+		} else if (recorded >= minimumCalls && exceedsThresholds()) {
+			open();
+		}
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	// Calls failed fast without reaching the server
+	public synchronized long getRejected() {
+		return rejected;
+	}
+
+	private void record(boolean failure, boolean slowCall) {
+		if (recorded == windowSize) {
+			failures -= failed[next] ? 1 : 0;
+			slowCalls -= slow[next] ? 1 : 0;
+		} else {
+			recorded++;
+		}
+		failed[next] = failure;
+		slow[next] = slowCall;
+		failures += failure ? 1 : 0;
+		slowCalls += slowCall ? 1 : 0;
+		next = (next + 1) % windowSize;
+	}
+
+	private boolean exceedsThresholds() {
+		return failures * 100 >= failureRateThreshold * recorded || slowCalls * 100 >= slowCallRateThreshold * recorded;
+	}
+
+	private void open() {
+		transitionTo(State.OPEN, describeWindow());
+		openedAt = System.currentTimeMillis();
+		reset();
+	}
+
+	private void reset() {
+		next = 0;
+		recorded = 0;
+		failures = 0;
+		slowCalls = 0;
+		trialsStarted = 0;
+	}
+
+	private String describeWindow() {
+		return failures + "/" + recorded + " failed, " + slowCalls + "/" + recorded + " slow";
+	}
+
+	private void transitionTo(State newState, String reason) {
+		String message = "Circuit for " + path + " " + state + " -> " + newState + " (" + reason + ")";
+		if (newState == State.OPEN) {
+			Log.warn(message);
+		} else {
+			Log.info(message);
+		}
+		state = newState;
+		generation++;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%-48s state=%s rejected=%d", path, state, rejected);
+	}
+}
@@ -0,0 +1,82 @@
+package rest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import restConfig.ConfigManager;
+
+/**
+ * Puts a {@link CircuitBreaker} in front of every route, the endpoint path with
+ * ids replaced by {id}, so that a sick backend area fails fast instead of tying
+ * up worker threads until its timeout. The breaker sees the outcome of the
+ * whole call including any retries, and sits inside {@link ResponseCache} so
+ * cached answers keep being served while a circuit is open. It also sits
+ * inside {@link RequestLimiter}, so its clock starts only once the limiter has
+ * admitted the call and client-side queueing never counts as a slow call.
+ */
+public class CircuitBreakerFilter implements OrderedFilter {
+
+	public static final int ORDER = 200;
+
+	private static final boolean BREAKER_ENABLED = ConfigManager.getBooleanProperty("breaker.enabled", false);
+	private static final int WINDOW_SIZE = ConfigManager.getIntProperty("breaker.windowSize", 20);
+	private static final int MINIMUM_CALLS = ConfigManager.getIntProperty("breaker.minimumCalls", 10);
+	private static final int FAILURE_RATE_THRESHOLD = ConfigManager.getIntProperty("breaker.failureRateThreshold",
+			50);
+	private static final int SLOW_CALL_RATE_THRESHOLD = ConfigManager.getIntProperty("breaker.slowCallRateThreshold",
+			80);
+	private static final long SLOW_CALL_MS = ConfigManager.getLongProperty("breaker.slowCallMs", 10000);
+	private static final long OPEN_MS = ConfigManager.getLongProperty("breaker.openMs", 30000);
+	private static final int HALF_OPEN_CALLS = ConfigManager.getIntProperty("breaker.halfOpenCalls", 3);
+
+	private static final CircuitBreakerFilter INSTANCE = new CircuitBreakerFilter();
+
+	private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+	// The filter configured in config.properties
+	public static CircuitBreakerFilter getInstance() {
+		return INSTANCE;
+	}
+
+	public static boolean isBreakerEnabled() {
+		return BREAKER_ENABLED;
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+			FilterContext ctx) {
+		CircuitBreaker breaker = getBreaker(TransferMetrics.routeTemplate(requestSpec.getURI()));
+		long permit = breaker.acquirePermission();
+		long start = System.nanoTime();
+		try {
+			Response response = ctx.next(requestSpec, responseSpec);
+			breaker.onResult(permit, response.getStatusCode() >= 500, (System.nanoTime() - start) / 1_000_000);
+			return response;
+		} catch (Throwable e) {
+			breaker.onResult(permit, true, (System.nanoTime() - start) / 1_000_000);
+			throw e;
+		}
+	}
+
+	public CircuitBreaker getBreaker(String path) {
+		return breakers.computeIfAbsent(path, key -> new CircuitBreaker(key, WINDOW_SIZE, MINIMUM_CALLS,
+				FAILURE_RATE_THRESHOLD, SLOW_CALL_RATE_THRESHOLD, SLOW_CALL_MS, OPEN_MS, HALF_OPEN_CALLS));
+	}
+
+	// Every breaker created so far, keyed by route template
+	public Map<String, CircuitBreaker> getBreakers() {
+		return new TreeMap<>(breakers);
+	}
+}
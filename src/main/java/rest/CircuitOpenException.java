@@ -0,0 +1,33 @@
+package rest;
+
+@SuppressWarnings("serial")
+public class CircuitOpenException extends RuntimeException {
+	private final String path;
+	private final long retryAfterMillis;
+
+	public CircuitOpenException(String path, long retryAfterMillis) {
+		this(path, retryAfterMillis,
+				"Circuit for " + path + " is open, failing fast for another " + retryAfterMillis + " ms");
+	}
+
+	private CircuitOpenException(String path, long retryAfterMillis, String message) {
+		super(message);
+		this.path = path;
+		this.retryAfterMillis = retryAfterMillis;
+	}
+
+	// Rejection while the circuit is half open and every trial call is in flight
+	public static CircuitOpenException halfOpen(String path, int trialCalls) {
+		return new CircuitOpenException(path, 0, "Circuit for " + path + " is half open with all " + trialCalls
+				+ " trial calls in flight, failing fast until they finish");
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	// Time until the circuit lets a trial call through
+	public long getRetryAfterMillis() {
+		return retryAfterMillis;
+	}
+}
@@ -0,0 +1,470 @@
+package rest;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import restConfig.ConfigManager;
+
+/**
+ * Read-only, column-oriented copy of a "Results" list. Each field is stored
+ * once for all rows: whole numbers in an int[] or long[], decimals in a
+ * double[], booleans and nulls in bitmaps, and strings dictionary-encoded so
+ * that a value such as a status or category repeated on every row is kept
+ * once. Fields whose values mix types, and nested objects or arrays, are kept
+ * as they are.
+ *
+ * The list elements are lightweight row views implementing
+ * {@code Map<String, Object>}, so code written against
+ * {@link CustomResponse#getListResults()} keeps working: get, containsKey,
+ * iteration and equals behave as on the original maps, and values come back
+ * with the same boxed types JsonPath produced. The views cannot be modified.
+ * With results.columnar=true every list handed to CustomResponse is converted,
+ * and the ApiUtil list getters fill the columns straight from the body through
+ * a {@link JsonResultsReader}, so the boxed row maps are never all built.
+ */
+public class ColumnarResults extends AbstractList<Map<String, Object>> implements RandomAccess {
+
+	private static final boolean COLUMNAR_ENABLED = ConfigManager.getBooleanProperty("results.columnar", false);
+
+	private final Map<String, Integer> columnIndex;
+	private final List<String> keys;
+	private final Column[] columns;
+	private final int size;
+	private final boolean complete;
+
+	private ColumnarResults(LinkedHashMap<String, Column> columns, int size) {
+		this.columnIndex = new HashMap<>();
+		this.keys = Collections.unmodifiableList(new ArrayList<>(columns.keySet()));
+		this.columns = columns.values().toArray(new Column[0]);
+		this.size = size;
+		boolean complete = true;
+		for (int i = 0; i < this.columns.length; i++) {
+			columnIndex.put(keys.get(i), i);
+			this.columns[i].trim(size);
+			complete &= this.columns[i].absent == null;
+		}
+		this.complete = complete;
+	}
+
+	public static boolean isColumnarEnabled() {
+		return COLUMNAR_ENABLED;
+	}
+
+	/**
+	 * Copies a list of rows into columns.
+	 *
+	 * @param rows - The rows, for example jsonPath().getList("Results").
+	 * @return ColumnarResults - The columnar copy, or rows itself when it already
+	 *         is one.
+	 */
+	public static ColumnarResults of(List<? extends Map<String, Object>> rows) {
+		if (rows instanceof ColumnarResults) {
+			return (ColumnarResults) rows;
+		}
+		return from(rows.iterator());
+	}
+
+	/**
+	 * Builds the columns from rows as they are produced, for example by a
+	 * {@link JsonResultsReader}, without holding all row maps at once.
+	 *
+	 * @param rows - Iterator over the rows; consumed completely.
+	 * @return ColumnarResults - The columnar copy.
+	 */
+	public static ColumnarResults from(Iterator<? extends Map<String, Object>> rows) {
+		LinkedHashMap<String, Column> columns = new LinkedHashMap<>();
+		int size = 0;
+		while (rows.hasNext()) {
+			int row = size;
+			for (Map.Entry<String, Object> field : rows.next().entrySet()) {
+				columns.computeIfAbsent(field.getKey(), key -> new Column(row)).set(row, field.getValue());
+			}
+			size++;
+			for (Column column : columns.values()) {
+				if (column.rows < size) {
+					column.markAbsent(row);
+				}
+			}
+		}
+		return new ColumnarResults(columns, size);
+	}
+
+	@Override
+	public Map<String, Object> get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return new Row(index);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	// Field names in the order they first appeared
+	public List<String> getKeys() {
+		return keys;
+	}
+
+	// Position of a field for the get(row, column) accessors, or -1
+	public int columnIndex(String key) {
+		Integer column = columnIndex.get(key);
+		return column == null ? -1 : column;
+	}
+
+	/**
+	 * Reads one value without creating a row view.
+	 *
+	 * @param row    - Row index.
+	 * @param column - Column index from {@link #columnIndex(String)}.
+	 * @return Object - The value as JsonPath returned it, or null when the field
+	 *         is null or missing in that row.
+	 */
+	public Object get(int row, int column) {
+		return columns[column].get(checkRow(row));
+	}
+
+	public boolean isNull(int row, int column) {
+		return columns[column].isNull(checkRow(row));
+	}
+
+	// Whole-number value; throws NullPointerException when the value is null
+	public int getInt(int row, int column) {
+		Column values = columns[column];
+		return values.kind == Kind.INT && !values.isNull(checkRow(row)) ? values.ints[row]
+				: ((Number) get(row, column)).intValue();
+	}
+
+	public long getLong(int row, int column) {
+		Column values = columns[column];
+		if (!values.isNull(checkRow(row))) {
+			if (values.kind == Kind.INT) {
+				return values.ints[row];
+			}
+			if (values.kind == Kind.LONG) {
+				return values.longs[row];
+			}
+		}
+		return ((Number) get(row, column)).longValue();
+	}
+
+	// Whether every non-null value of the column can be read with getLong
+	public boolean isWholeNumber(int column) {
+		Kind kind = columns[column].kind;
+		return kind == Kind.INT || kind == Kind.LONG || kind == Kind.NONE;
+	}
+
+	public String getString(int row, int column) {
+		Object value = get(row, column);
+		return value == null ? null : value.toString();
+	}
+
+	private int checkRow(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+		}
+		return row;
+	}
+
+	private enum Kind {
+		NONE, INT, LONG, FLOAT, DOUBLE, BOOLEAN, STRING, OBJECT
+	}
+
+	// The values of one field for all rows. The storage is chosen from the first
+	// non-null value and falls back to Object[] when a later value has another
+	// type.
+	private static final class Column {
+		private Kind kind = Kind.NONE;
+		private int rows;
+		private int capacity;
+		private final BitSet nulls = new BitSet();
+		private BitSet absent;
+
+		private int[] ints;
+		private long[] longs;
+		private double[] doubles;
+		private BitSet booleans;
+		private String[] dictionary;
+		private Map<String, Integer> dictionaryIndex;
+		private int dictionarySize;
+		private Object[] objects;
+
+		// Rows before the first one holding this field do not have it
+		Column(int missingRows) {
+			if (missingRows > 0) {
+				absent = new BitSet();
+				absent.set(0, missingRows);
+			}
+			rows = missingRows;
+		}
+
+		Object get(int row) {
+			if (isNull(row)) {
+				return null;
+			}
+			switch (kind) {
+			case INT:
+				return ints[row];
+			case LONG:
+				return longs[row];
+			case FLOAT:
+				return (float) doubles[row];
+			case DOUBLE:
+				return doubles[row];
+			case BOOLEAN:
+				return booleans.get(row);
+			case STRING:
+				return dictionary[ints[row]];
+			case OBJECT:
+				return objects[row];
+			default:
+				return null;
+			}
+		}
+
+		boolean isNull(int row) {
+			return kind == Kind.NONE || nulls.get(row) || isAbsent(row);
+		}
+
+		boolean isAbsent(int row) {
+			return absent != null && absent.get(row);
+		}
+
+		void markAbsent(int row) {
+			if (absent == null) {
+				absent = new BitSet();
+			}
+			absent.set(row);
+			rows = row + 1;
+		}
+
+		void set(int row, Object value) {
+			rows = row + 1;
+			if (value == null) {
+				nulls.set(row);
+				return;
+			}
+			if (kind == Kind.NONE) {
+				allocate(kindOf(value));
+			} else if (kind != Kind.OBJECT && kind != kindOf(value)) {
+				toObjects(row);
+			}
+			ensureCapacity(row + 1);
+			switch (kind) {
+			case INT:
+				ints[row] = (Integer) value;
+				break;
+			case LONG:
+				longs[row] = (Long) value;
+				break;
+			case FLOAT:
+			case DOUBLE:
+				doubles[row] = ((Number) value).doubleValue();
+				break;
+			case BOOLEAN:
+				booleans.set(row, (Boolean) value);
+				break;
+			case STRING:
+				ints[row] = encode((String) value);
+				break;
+			default:
+				objects[row] = value;
+			}
+		}
+
+		private static Kind kindOf(Object value) {
+			if (value instanceof Integer) {
+				return Kind.INT;
+			}
+			if (value instanceof Long) {
+				return Kind.LONG;
+			}
+			if (value instanceof Float) {
+				return Kind.FLOAT;
+			}
+			if (value instanceof Double) {
+				return Kind.DOUBLE;
+			}
+			if (value instanceof Boolean) {
+				return Kind.BOOLEAN;
+			}
+			if (value instanceof String) {
+				return Kind.STRING;
+			}
+			return Kind.OBJECT;
+		}
+
+		private void allocate(Kind kind) {
+			this.kind = kind;
+			capacity = 0;
+			if (kind == Kind.BOOLEAN) {
+				booleans = new BitSet();
+			} else if (kind == Kind.STRING) {
+				dictionary = new String[16];
+				dictionaryIndex = new HashMap<>();
+			}
+			ensureCapacity(Math.max(16, rows));
+		}
+
+		// Copies the values so far into an Object[] column
+		private void toObjects(int upToRow) {
+			Object[] values = new Object[Math.max(16, capacity)];
+			for (int row = 0; row < upToRow; row++) {
+				values[row] = get(row);
+			}
+			ints = null;
+			longs = null;
+			doubles = null;
+			booleans = null;
+			dictionary = null;
+			dictionaryIndex = null;
+			kind = Kind.OBJECT;
+			objects = values;
+			capacity = values.length;
+		}
+
+		private int encode(String value) {
+			Integer code = dictionaryIndex.get(value);
+			if (code == null) {
+				if (dictionarySize == dictionary.length) {
+					dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+				}
+				code = dictionarySize;
+				dictionary[dictionarySize++] = value;
+				dictionaryIndex.put(value, code);
+			}
+			return code;
+		}
+
+		private void ensureCapacity(int required) {
+			if (required <= capacity) {
+				return;
+			}
+			resize(Math.max(required, capacity * 2));
+		}
+
+		private void resize(int length) {
+			switch (kind) {
+			case INT:
+			case STRING:
+				ints = ints == null ? new int[length] : Arrays.copyOf(ints, length);
+				break;
+			case LONG:
+				longs = longs == null ? new long[length] : Arrays.copyOf(longs, length);
+				break;
+			case FLOAT:
+			case DOUBLE:
+				doubles = doubles == null ? new double[length] : Arrays.copyOf(doubles, length);
+				break;
+			case OBJECT:
+				objects = objects == null ? new Object[length] : Arrays.copyOf(objects, length);
+				break;
+			default:
+				break;
+			}
+			capacity = length;
+		}
+
+		// Drops the spare capacity and the build-time dictionary index
+		void trim(int size) {
+			if (kind != Kind.NONE && kind != Kind.BOOLEAN) {
+				resize(size);
+			}
+			if (dictionary != null) {
+				dictionary = Arrays.copyOf(dictionary, dictionarySize);
+				dictionaryIndex = null;
+			}
+		}
+	}
+
+	// One row as a read-only Map over the columns
+	private final class Row extends AbstractMap<String, Object> {
+		private final int row;
+
+		Row(int row) {
+			this.row = row;
+		}
+
+		@Override
+		public Object get(Object key) {
+			Integer column = columnIndex.get(key);
+			return column == null ? null : columns[column].get(row);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			Integer column = columnIndex.get(key);
+			return column != null && !columns[column].isAbsent(row);
+		}
+
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			return new AbstractSet<Map.Entry<String, Object>>() {
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					return new EntryIterator(row);
+				}
+
+				@Override
+				public int size() {
+					if (complete) {
+						return columns.length;
+					}
+					int present = 0;
+					for (Column column : columns) {
+						if (!column.isAbsent(row)) {
+							present++;
+						}
+					}
+					return present;
+				}
+			};
+		}
+	}
+
+	private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+		private final int row;
+		private int next;
+
+		EntryIterator(int row) {
+			this.row = row;
+			this.next = skipAbsent(0);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < columns.length;
+		}
+
+		@Override
+		public Map.Entry<String, Object> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			int column = next;
+			next = skipAbsent(column + 1);
+			return new AbstractMap.SimpleImmutableEntry<>(keys.get(column), columns[column].get(row));
+		}
+
+		private int skipAbsent(int column) {
+			while (column < columns.length && columns[column].isAbsent(row)) {
+				column++;
+			}
+			return column;
+		}
+	}
+}
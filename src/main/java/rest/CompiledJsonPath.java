@@ -0,0 +1,229 @@
+package rest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A JSON path such as "Status", "Results.StoreId" or "Results[0].ItemName",
+ * split once into its segments and evaluated against a parsed
+ * {@link JsonDocument} by walking maps and lists, without Groovy.
+ *
+ * Evaluation follows the GPath rules JsonPath applies to these simple paths:
+ * a field name applied to a list is applied to each non-null element and the
+ * results are collected in a list, so nested lists stay nested;
+ * "[n]" picks an element, counting from the end when negative; "[*]" leaves a
+ * list as it is. A path that runs into a missing field, a scalar or an index
+ * out of range yields null where JsonPath would throw. Filters, closures and
+ * other GPath expressions are not supported. The same rules apply when a path
+ * is evaluated over a {@link JsonTape}. Instances are immutable and cached by
+ * {@link #compile(String)}.
+ */
+public final class CompiledJsonPath {
+
+	private static final Map<String, CompiledJsonPath> CACHE = new ConcurrentHashMap<>();
+	private static final int ALL = Integer.MIN_VALUE;
+
+	private final String path;
+	// Field name per segment, or null for a subscript
+	private final String[] names;
+	private final int[] indexes;
+	// Field names as UTF-8, for comparing against the raw keys of a JsonTape
+	private final byte[][] utf8Names;
+
+	private CompiledJsonPath(String path) {
+		this.path = path;
+		List<String> names = new ArrayList<>();
+		List<Integer> indexes = new ArrayList<>();
+		String expression = path.startsWith("$") ? path.substring(1) : path;
+		for (String segment : expression.split("\\.")) {
+			int bracket = segment.indexOf('[');
+			String name = bracket < 0 ? segment : segment.substring(0, bracket);
+			if (!name.isEmpty()) {
+				names.add(name);
+				indexes.add(0);
+			}
+			while (bracket >= 0) {
+				int close = segment.indexOf(']', bracket);
+				if (close < 0) {
+					throw new IllegalArgumentException("Unclosed subscript in path " + path);
+				}
+				String subscript = segment.substring(bracket + 1, close).trim();
+				names.add(null);
+				indexes.add(subscript.equals("*") ? ALL : parseIndex(subscript));
+				bracket = segment.indexOf('[', close);
+			}
+		}
+		this.names = names.toArray(new String[0]);
+		this.indexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+		this.utf8Names = new byte[this.names.length][];
+		for (int i = 0; i < this.names.length; i++) {
+			utf8Names[i] = this.names[i] == null ? null : this.names[i].getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * @param path - Dot separated field names with optional [n] or [*]
+	 *             subscripts; "" or "$" is the whole document.
+	 * @return CompiledJsonPath - The compiled path, shared between callers.
+	 */
+	public static CompiledJsonPath compile(String path) {
+		return CACHE.computeIfAbsent(path, CompiledJsonPath::new);
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Evaluates the path.
+	 *
+	 * @param root - The parsed document: maps, lists and scalars.
+	 * @return Object - The selected value, a list of values when a segment was
+	 *         applied to a list, or null.
+	 */
+	public Object evaluate(Object root) {
+		Object current = root;
+		for (int i = 0; i < names.length && current != null; i++) {
+			current = names[i] != null ? field(current, names[i]) : element(current, indexes[i]);
+		}
+		return current;
+	}
+
+	/**
+	 * Evaluates the path over a tape, building only the selected values.
+	 *
+	 * @param tape - The indexed document.
+	 * @return Object - The same value {@link #evaluate(Object)} returns for the
+	 *         parsed document.
+	 */
+	Object evaluate(JsonTape tape) {
+		Object current = tape.isNull(tape.root()) ? null : new TapeNode(tape.root());
+		for (int i = 0; i < names.length && current != null; i++) {
+			current = names[i] != null ? field(tape, current, utf8Names[i]) : element(tape, current, indexes[i]);
+		}
+		return materialize(tape, current);
+	}
+
+	// Follows names and subscripts to one node without spreading over arrays
+	int locate(JsonTape tape) {
+		int node = tape.root();
+		for (int i = 0; i < names.length && node >= 0; i++) {
+			if (names[i] != null) {
+				node = tape.field(node, utf8Names[i]);
+			} else if (indexes[i] != ALL) {
+				node = tape.element(node, indexes[i]);
+			}
+		}
+		return node;
+	}
+
+	private static Object field(JsonTape tape, Object current, byte[] name) {
+		if (current instanceof TapeNode) {
+			int node = ((TapeNode) current).node;
+			if (tape.isArray(node)) {
+				List<Object> values = new ArrayList<>(tape.length(node));
+				for (int element = tape.firstElement(node); element >= 0; element = tape.nextElement(node, element)) {
+					if (!tape.isNull(element)) {
+						values.add(field(tape, new TapeNode(element), name));
+					}
+				}
+				return values;
+			}
+			int value = tape.field(node, name);
+			return tape.isNull(value) ? null : new TapeNode(value);
+		}
+		if (current instanceof List) {
+			List<?> elements = (List<?>) current;
+			List<Object> values = new ArrayList<>(elements.size());
+			for (Object element : elements) {
+				if (element != null) {
+					values.add(field(tape, element, name));
+				}
+			}
+			return values;
+		}
+		return null;
+	}
+
+	private static Object element(JsonTape tape, Object current, int index) {
+		if (current instanceof TapeNode) {
+			int node = ((TapeNode) current).node;
+			if (index == ALL) {
+				return current;
+			}
+			int element = tape.element(node, index);
+			return tape.isNull(element) ? null : new TapeNode(element);
+		}
+		return element(current, index);
+	}
+
+	private static Object materialize(JsonTape tape, Object current) {
+		if (current instanceof TapeNode) {
+			return tape.value(((TapeNode) current).node);
+		}
+		if (current instanceof List) {
+			List<?> elements = (List<?>) current;
+			List<Object> values = new ArrayList<>(elements.size());
+			for (Object element : elements) {
+				values.add(materialize(tape, element));
+			}
+			return values;
+		}
+		return current;
+	}
+
+	private static Object field(Object node, String name) {
+		if (node instanceof Map) {
+			return ((Map<?, ?>) node).get(name);
+		}
+		if (node instanceof List) {
+			List<?> elements = (List<?>) node;
+			List<Object> values = new ArrayList<>(elements.size());
+			for (Object element : elements) {
+				if (element != null) {
+					values.add(field(element, name));
+				}
+			}
+			return values;
+		}
+		return null;
+	}
+
+	private static Object element(Object node, int index) {
+		if (!(node instanceof List)) {
+			return index == ALL ? node : null;
+		}
+		List<?> list = (List<?>) node;
+		if (index == ALL) {
+			return list;
+		}
+		int position = index < 0 ? list.size() + index : index;
+		return position >= 0 && position < list.size() ? list.get(position) : null;
+	}
+
+	private int parseIndex(String subscript) {
+		try {
+			return Integer.parseInt(subscript);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Unsupported subscript [" + subscript + "] in path " + path, e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return path;
+	}
+
+	// A position on a tape while a path is evaluated, told apart from lists of
+	// intermediate results
+	private static final class TapeNode {
+		private final int node;
+
+		TapeNode(int node) {
+			this.node = node;
+		}
+	}
+}
@@ -1,11 +1,23 @@
 package rest;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.restassured.response.Response;
+import restConfig.ConfigManager;
 
 public class CustomResponse {
+	private static final boolean DETACH_ENABLED = ConfigManager.getBooleanProperty("response.detach", false);
+	private static final List<String> DETACHED_HEADERS = Arrays.asList(ConfigManager
+			.getProperty("response.detach.headers", "Content-Type,Content-Length,Date").split("\\s*,\\s*"));
+	private static final double FULL_BODY_SAMPLE_RATE = ConfigManager.getDoubleProperty("response.detach.sampleRate",
+			0);
+	private static final AtomicLong DETACH_COUNT = new AtomicLong();
+
 	private Response response;
 	private int statusCode;
 	private String status;
@@ -23,6 +35,45 @@ public class CustomResponse {
 	private Object totalDue;
 	private List<Object> patientIds;
 	private List<Object> patientCodes;
+	private ProjectionResult projection;
+	private volatile JsonDocument document;
+	private volatile JsonTape tape;
+	// Set when the tape is the result itself (ApiUtil.getIndexed), not an index
+	// built on demand
+	private boolean tapeIsResult;
+	private boolean detached;
+	private Map<String, String> headers;
+	private long timeMillis = -1;
+	private long bodyLength = -1;
+
+	// Field by field copy, for detach() and copy()
+	private CustomResponse(CustomResponse source) {
+		this.response = source.response;
+		this.statusCode = source.statusCode;
+		this.status = source.status;
+		this.appointmentId = source.appointmentId;
+		this.listResults = source.listResults;
+		this.resultMessage = source.resultMessage;
+		this.mapResults = source.mapResults;
+		this.itemIds = source.itemIds;
+		this.itemNames = source.itemNames;
+		this.genericNames = source.genericNames;
+		this.storeId = source.storeId;
+		this.category = source.category;
+		this.isActive = source.isActive;
+		this.patientId = source.patientId;
+		this.totalDue = source.totalDue;
+		this.patientIds = source.patientIds;
+		this.patientCodes = source.patientCodes;
+		this.projection = source.projection;
+		this.document = source.document;
+		this.tape = source.tape;
+		this.tapeIsResult = source.tapeIsResult;
+		this.detached = source.detached;
+		this.headers = source.headers;
+		this.timeMillis = source.timeMillis;
+		this.bodyLength = source.bodyLength;
+	}
 
 	public CustomResponse(Response response, int statusCode, String status, Integer appointmentId) {
 		this.response = response;
@@ -49,7 +100,7 @@ public class CustomResponse {
 		this.response = response;
 		this.statusCode = statusCode;
 		this.status = status;
-		this.listResults = listResults;
+		this.listResults = columnar(listResults);
 	}
 
 	public CustomResponse(Response response, int statusCode, String status, List<Object> patientIds,
@@ -57,7 +108,7 @@ public class CustomResponse {
 		this.response = response;
 		this.statusCode = statusCode;
 		this.status = status;
-		this.patientIds = patientIds;
+		this.patientIds = ids(patientIds);
 		this.patientCodes = patientCodes;
 	}
 
@@ -66,7 +117,7 @@ public class CustomResponse {
 		this.response = response;
 		this.statusCode = statusCode;
 		this.status = status;
-		this.itemIds = itemIds;
+		this.itemIds = ids(itemIds);
 		this.itemNames = itemNames;
 		this.genericNames = genericNames;
 	}
@@ -89,10 +140,133 @@ public class CustomResponse {
 		this.totalDue = totalDue;
 	}
 
+	public CustomResponse(Response response, int statusCode, String status, ProjectionResult projection) {
+		this.response = response;
+		this.statusCode = statusCode;
+		this.status = status;
+		this.projection = projection;
+	}
+
+	public CustomResponse(Response response, int statusCode, String status, JsonTape tape) {
+		this.response = response;
+		this.statusCode = statusCode;
+		this.status = status;
+		this.tape = tape;
+		this.tapeIsResult = tape != null;
+	}
+
+	public static boolean isDetachEnabled() {
+		return DETACH_ENABLED;
+	}
+
+	// null once the response has been detached, unless it was sampled to keep it
 	public Response getResponse() {
 		return response;
 	}
 
+	// Shallow copy for a coalesced caller: setters and the lazily built document
+	// and tape are its own, while the results lists and maps are shared
+	CustomResponse copy() {
+		return new CustomResponse(this);
+	}
+
+	/**
+	 * Returns a copy without the RestAssured Response, with its body, headers
+	 * and parse state, for callers that keep many responses or run in long
+	 * loops. What was extracted stays: status code, status, list and map
+	 * results, id lists, projections and the tape of
+	 * {@link ApiUtil#getIndexed(String)}, together with the response time, the
+	 * body length and the headers named in response.detach.headers. The share
+	 * of responses given by response.detach.sampleRate keep everything, for
+	 * debugging. ApiEndpoint detaches every response it returns when
+	 * response.detach=true. This response is left as it is, so one shared by
+	 * coalesced callers stays whole for the others.
+	 *
+	 * @return CustomResponse - The detached copy, or this response when it
+	 *         already is detached.
+	 */
+	public CustomResponse detach() {
+		if (detached) {
+			return this;
+		}
+		CustomResponse copy = new CustomResponse(this);
+		copy.detached = true;
+		if (response == null) {
+			return copy;
+		}
+		copy.timeMillis = response.getTime();
+		copy.bodyLength = tapeIsResult ? tape.getBuffer().remaining() : bodyLength(response);
+		copy.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (String name : DETACHED_HEADERS) {
+			String value = response.getHeader(name);
+			if (value != null) {
+				copy.headers.put(name, value);
+			}
+		}
+		if (keepsFullBody()) {
+			return copy;
+		}
+		copy.response = null;
+		copy.document = null;
+		if (!tapeIsResult) {
+			copy.tape = null;
+		}
+		return copy;
+	}
+
+	public boolean isDetached() {
+		return detached;
+	}
+
+	// A header of the response; once detached, only those in response.detach.headers
+	public String getHeader(String name) {
+		if (response != null) {
+			return response.getHeader(name);
+		}
+		return headers == null ? null : headers.get(name);
+	}
+
+	// Response time in milliseconds as RestAssured measured it, or -1
+	public long getTimeMillis() {
+		return response != null ? response.getTime() : timeMillis;
+	}
+
+	// Length of the decoded body in bytes, or -1 when it was streamed and is not known
+	public long getBodyLength() {
+		if (detached) {
+			return bodyLength;
+		}
+		if (tapeIsResult) {
+			return tape.getBuffer().remaining();
+		}
+		return response == null ? 0 : bodyLength(response);
+	}
+
+	/**
+	 * The response body parsed for path lookups, for example
+	 * getDocument().getString("Status"). The ApiUtil getters hand over the
+	 * document they read their results from; otherwise the body is parsed on
+	 * the first call only. Later lookups on this response reuse the same
+	 * document instead of parsing again as getResponse().jsonPath() does.
+	 *
+	 * @return JsonDocument - The parsed body; every path is null when there is
+	 *         no response.
+	 */
+	public JsonDocument getDocument() {
+		JsonDocument parsed = document;
+		if (parsed == null) {
+			checkBodyAvailable();
+			parsed = JsonDocument.parse(response == null ? null : response.asByteArray());
+			document = parsed;
+		}
+		return parsed;
+	}
+
+	// Seeds the document with the one the results were read from
+	void setDocument(JsonDocument document) {
+		this.document = document;
+	}
+
 	public int getStatusCode() {
 		return statusCode;
 	}
@@ -118,7 +292,7 @@ public class CustomResponse {
 	}
 
 	public void setListResults(List<Map<String, Object>> listResults) {
-		this.listResults = listResults;
+		this.listResults = columnar(listResults);
 	}
 
 	public Map<String, Object> getMapResults() {
@@ -134,7 +308,7 @@ public class CustomResponse {
 	}
 
 	public void setItemIds(List<Object> itemIds) {
-		this.itemIds = itemIds;
+		this.itemIds = ids(itemIds);
 	}
 
 	public List<Object> getItemNames() {
@@ -198,7 +372,7 @@ public class CustomResponse {
 	}
 
 	public void setPatientIds(List<Object> patientIds) {
-		this.patientIds = patientIds;
+		this.patientIds = ids(patientIds);
 	}
 
 	public List<Object> getPatientCodes() {
@@ -208,4 +382,127 @@ public class CustomResponse {
 	public void setPatientCodes(List<Object> patientCodes) {
 		this.patientCodes = patientCodes;
 	}
+
+	/**
+	 * Structural index over the raw body, for reading single values of very
+	 * large responses without building maps. Responses from
+	 * {@link ApiUtil#getIndexed(String)} come with one; otherwise the body bytes
+	 * are indexed in place on the first call.
+	 *
+	 * @return JsonTape - The index; empty when there is no response.
+	 */
+	public JsonTape getTape() {
+		JsonTape indexed = tape;
+		if (indexed == null) {
+			checkBodyAvailable();
+			byte[] body = response == null ? new byte[0] : response.asByteArray();
+			indexed = body.length == 0 ? JsonTape.empty() : JsonTape.index(ByteBuffer.wrap(body));
+			tape = indexed;
+		}
+		return indexed;
+	}
+
+	public ProjectionResult getProjection() {
+		return projection;
+	}
+
+	public void setProjection(ProjectionResult projection) {
+		this.projection = projection;
+	}
+
+	/**
+	 * Asserts that no two rows of the list results share a value in a column,
+	 * without boxing whole-number ids. Rows without the field count as null, so
+	 * a second missing value is a duplicate as well.
+	 *
+	 * @param column - Field name, for example "RequisitionId".
+	 * @throws AssertionError - When there are no list results, or when a value
+	 *                        repeats; the message names the first duplicate.
+	 */
+	public void assertUnique(String column) {
+		if (listResults == null) {
+			throw new AssertionError(column + " should be unique, but the response has no list results.");
+		}
+		int row = indexOfDuplicate(column);
+		if (row >= 0) {
+			throw new AssertionError(
+					column + " should be unique. Duplicate found: " + listResults.get(row).get(column));
+		}
+	}
+
+	/**
+	 * Looks for a repeated value in one column of the list results.
+	 *
+	 * @param column - Field name.
+	 * @return int - Index of the first row whose value appeared in an earlier row,
+	 *         or -1 when the values are unique or there are no list results.
+	 */
+	public int indexOfDuplicate(String column) {
+		if (listResults == null) {
+			return -1;
+		}
+		IdSet seen = new IdSet();
+		if (listResults instanceof ColumnarResults) {
+			ColumnarResults columns = (ColumnarResults) listResults;
+			int index = columns.columnIndex(column);
+			if (index >= 0 && columns.isWholeNumber(index)) {
+				for (int row = 0; row < columns.size(); row++) {
+					boolean added = columns.isNull(row, index) ? seen.add((Object) null)
+							: seen.add(columns.getLong(row, index));
+					if (!added) {
+						return row;
+					}
+				}
+				return -1;
+			}
+		}
+		int row = 0;
+		for (Map<String, Object> result : listResults) {
+			if (!seen.add(result.get(column))) {
+				return row;
+			}
+			row++;
+		}
+		return -1;
+	}
+
+	private void checkBodyAvailable() {
+		if (detached && response == null) {
+			throw new IllegalStateException("The response was detached; its body is no longer available");
+		}
+	}
+
+	private static long bodyLength(Response response) {
+		try {
+			return response.asByteArray().length;
+		} catch (Exception e) {
+			// RestAssured rethrows the IOException of an already streamed body unchecked
+			return -1;
+		}
+	}
+
+	// Keeps every 1/rate-th detached response whole, so the share is exact over a run
+	private static boolean keepsFullBody() {
+		if (FULL_BODY_SAMPLE_RATE <= 0) {
+			return false;
+		}
+		long count = DETACH_COUNT.getAndIncrement();
+		return (long) ((count + 1) * FULL_BODY_SAMPLE_RATE) > (long) (count * FULL_BODY_SAMPLE_RATE);
+	}
+
+	// Keeps list results as ColumnarResults when results.columnar is enabled
+	private static List<Map<String, Object>> columnar(List<Map<String, Object>> listResults) {
+		if (listResults == null || !ColumnarResults.isColumnarEnabled()) {
+			return listResults;
+		}
+		return ColumnarResults.of(listResults);
+	}
+
+	// Keeps id lists as int[] when results.columnar is enabled
+	private static List<Object> ids(List<Object> ids) {
+		if (ids == null || !ColumnarResults.isColumnarEnabled()) {
+			return ids;
+		}
+		return IdList.of(ids);
+	}
 }
@@ -0,0 +1,264 @@
+package rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import restConfig.ConfigManager;
+
+/**
+ * Fetches a long FromDate/ToDate range as several shorter windows in parallel
+ * and merges their Results into one {@link CustomResponse}. Adjacent windows
+ * share their boundary day, so no row is lost whether the server treats ToDate
+ * as inclusive or exclusive; the duplicates this produces are dropped on the
+ * endpoint's natural key, keeping the first occurrence.
+ *
+ * Rows are returned in window order, earliest window first, and within a
+ * window in the order the server sent them. That matches an unsplit call only
+ * when the server sorts by date ascending; the rows are not sorted again, so
+ * checks on a split response must not depend on row order.
+ *
+ * Windows run on an executor of their own, so a split started from an
+ * {@link AsyncApiUtil} task can not starve itself of threads. With
+ * split.enabled=true, the four date-range getters of {@link ApiUtil} fetch
+ * through {@link #getInstance()}.
+ */
+public class DateRangeSplitter {
+
+	private static final boolean SPLIT_ENABLED = ConfigManager.getBooleanProperty("split.enabled", false);
+	private static final int WINDOWS = ConfigManager.getIntProperty("split.windows", 4);
+	private static final int MIN_WINDOW_DAYS = ConfigManager.getIntProperty("split.minWindowDays", 30);
+	private static final int PARALLELISM = ConfigManager.getIntProperty("split.parallelism", 4);
+	private static final long TIMEOUT_MS = ConfigManager.getLongProperty("async.timeoutMs", 30000);
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private static final Pattern FROM_DATE = Pattern.compile("([?&](?i:fromDate)=)([^&]*)");
+	private static final Pattern TO_DATE = Pattern.compile("([?&](?i:toDate)=)([^&]*)");
+
+	private static final Map<ApiEndpoint, String> NATURAL_KEYS = new EnumMap<>(ApiEndpoint.class);
+
+	static {
+		NATURAL_KEYS.put(ApiEndpoint.GET_REQUISITION_BY_DATE_RANGE, "RequisitionId");
+		NATURAL_KEYS.put(ApiEndpoint.GET_DISCHARGED_PATIENTS, "PatientVisitId");
+		NATURAL_KEYS.put(ApiEndpoint.GET_REQUISITIONS_BY_ORDER_STATUS_AND_DATE_RANGE, "ImagingRequisitionId");
+		NATURAL_KEYS.put(ApiEndpoint.GET_IMAGING_REPORTS_WITH_STATUS_AND_DATE_RANGE, "ImagingRequisitionId");
+	}
+
+	private static class DefaultExecutor {
+		private static final ExecutorService INSTANCE = AsyncApiUtil.newBoundedExecutor(PARALLELISM, 100);
+	}
+
+	private static class DefaultInstance {
+		private static final DateRangeSplitter INSTANCE = new DateRangeSplitter();
+	}
+
+	private final AsyncApiUtil asyncApiUtil;
+	private final int windows;
+	private final int minWindowDays;
+
+	public DateRangeSplitter() {
+		this(new AsyncApiUtil(new ApiUtil(), DefaultExecutor.INSTANCE, TIMEOUT_MS), WINDOWS, MIN_WINDOW_DAYS);
+	}
+
+	/**
+	 * @param asyncApiUtil  - Runs the windows concurrently.
+	 * @param windows       - Maximum number of windows to split a range into.
+	 * @param minWindowDays - Windows are never made shorter than this.
+	 */
+	public DateRangeSplitter(AsyncApiUtil asyncApiUtil, int windows, int minWindowDays) {
+		this.asyncApiUtil = asyncApiUtil;
+		this.windows = Math.max(1, windows);
+		this.minWindowDays = Math.max(1, minWindowDays);
+	}
+
+	// The splitter configured in config.properties
+	public static DateRangeSplitter getInstance() {
+		return DefaultInstance.INSTANCE;
+	}
+
+	public static boolean isSplitEnabled() {
+		return SPLIT_ENABLED;
+	}
+
+	public static boolean isSplittable(ApiEndpoint endpoint) {
+		return NATURAL_KEYS.containsKey(endpoint);
+	}
+
+	/**
+	 * Calls a date-range endpoint window by window and merges the results.
+	 *
+	 * @param endpoint    - One of the four date-range operations.
+	 * @param endpointUrl - Its endpoint with FromDate and ToDate query
+	 *                    parameters, in yyyy-MM-dd format.
+	 * @param window      - Fetches one window's endpoint URL without splitting
+	 *                    it again.
+	 * @return CustomResponse - Merged Results. The status code and Status are
+	 *         200 and "OK" when every window succeeded, otherwise those of the
+	 *         first window that did not. getResponse() and getDocument() hold
+	 *         a body built from the merged rows with just Status and Results,
+	 *         not any one window's body.
+	 */
+	public CustomResponse fetch(ApiEndpoint endpoint, String endpointUrl, Function<String, CustomResponse> window) {
+		String naturalKey = NATURAL_KEYS.get(endpoint);
+		if (naturalKey == null) {
+			throw new IllegalArgumentException(endpoint.getMethodName() + " does not take a date range");
+		}
+		List<String> windowUrls = splitEndpoint(endpointUrl);
+		if (windowUrls.size() == 1) {
+			return window.apply(endpointUrl);
+		}
+
+		List<CompletableFuture<CustomResponse>> pending = new ArrayList<>();
+		for (String windowUrl : windowUrls) {
+			pending.add(asyncApiUtil.submit(() -> window.apply(windowUrl)));
+		}
+		List<CustomResponse> responses = new ArrayList<>();
+		for (CompletableFuture<CustomResponse> future : pending) {
+			responses.add(join(future));
+		}
+		return merge(responses, naturalKey);
+	}
+
+	// The endpoint URL of each window, or the URL itself when it is not split
+	List<String> splitEndpoint(String endpointUrl) {
+		Matcher from = FROM_DATE.matcher(endpointUrl);
+		Matcher to = TO_DATE.matcher(endpointUrl);
+		List<String> urls = new ArrayList<>();
+		if (!from.find() || !to.find()) {
+			urls.add(endpointUrl);
+			return urls;
+		}
+		LocalDate fromDate;
+		LocalDate toDate;
+		try {
+			fromDate = LocalDate.parse(from.group(2));
+			toDate = LocalDate.parse(to.group(2));
+		} catch (DateTimeParseException e) {
+			urls.add(endpointUrl);
+			return urls;
+		}
+		for (LocalDate[] window : split(fromDate, toDate, windows, minWindowDays)) {
+			String url = FROM_DATE.matcher(endpointUrl).replaceFirst("$1" + window[0]);
+			urls.add(TO_DATE.matcher(url).replaceFirst("$1" + window[1]));
+		}
+		return urls;
+	}
+
+	/**
+	 * Splits [from, to] into at most the given number of windows of at least
+	 * minWindowDays days. Each window starts on the day the previous one ends.
+	 */
+	static List<LocalDate[]> split(LocalDate from, LocalDate to, int windows, int minWindowDays) {
+		List<LocalDate[]> result = new ArrayList<>();
+		long days = ChronoUnit.DAYS.between(from, to);
+		int count = (int) Math.max(1, Math.min(windows, days / minWindowDays));
+		LocalDate start = from;
+		for (int i = 1; i <= count; i++) {
+			LocalDate end = i == count ? to : from.plusDays(days * i / count);
+			result.add(new LocalDate[] { start, end });
+			start = end;
+		}
+		return result;
+	}
+
+	static CustomResponse merge(List<CustomResponse> responses, String naturalKey) {
+		int statusCode = 200;
+		String status = "OK";
+		List<Map<String, Object>> results = new ArrayList<>();
+		IdSet seenKeys = new IdSet();
+		for (CustomResponse response : responses) {
+			boolean ok = response.getStatusCode() == 200 && "OK".equals(response.getStatus());
+			if (!ok && statusCode == 200 && "OK".equals(status)) {
+				statusCode = response.getStatusCode();
+				status = response.getStatus();
+			}
+			if (response.getListResults() == null) {
+				continue;
+			}
+			for (Map<String, Object> row : response.getListResults()) {
+				Object key = row.get(naturalKey);
+				if (key == null || seenKeys.add(key)) {
+					results.add(row);
+				}
+			}
+		}
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("Status", status);
+		body.put("Results", results);
+		Response response = new ResponseBuilder().setStatusCode(statusCode).setStatusLine("HTTP/1.1 " + statusCode)
+				.setContentType(ContentType.JSON).setBody(toJson(body)).build();
+		return new CustomResponse(response, statusCode, status, results);
+	}
+
+	// Serializes the maps, lists and scalars the results are decoded into
+	private static byte[] toJson(Object value) {
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		try (JsonGenerator generator = JSON_FACTORY.createGenerator(json)) {
+			write(generator, value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return json.toByteArray();
+	}
+
+	private static void write(JsonGenerator generator, Object value) throws IOException {
+		if (value instanceof Map) {
+			generator.writeStartObject();
+			for (Map.Entry<?, ?> field : ((Map<?, ?>) value).entrySet()) {
+				generator.writeFieldName(String.valueOf(field.getKey()));
+				write(generator, field.getValue());
+			}
+			generator.writeEndObject();
+		} else if (value instanceof List) {
+			generator.writeStartArray();
+			for (Object element : (List<?>) value) {
+				write(generator, element);
+			}
+			generator.writeEndArray();
+		} else if (value instanceof Number) {
+			generator.writeNumber(value.toString());
+		} else if (value instanceof Boolean) {
+			generator.writeBoolean((Boolean) value);
+		} else if (value == null) {
+			generator.writeNull();
+		} else {
+			generator.writeString(value.toString());
+		}
+	}
+
+	private static CustomResponse join(CompletableFuture<CustomResponse> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+}
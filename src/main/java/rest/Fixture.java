@@ -0,0 +1,102 @@
+package rest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+/**
+ * One recorded request/response pair as kept in a {@link FixtureStore}. The
+ * body is stored decoded, so Content-Encoding and Transfer-Encoding are not
+ * recorded.
+ */
+public class Fixture {
+
+	private final String key;
+	private final String method;
+	private final String endpoint;
+	private final String query;
+	private final int statusCode;
+	private final String statusLine;
+	private final List<Header> headers;
+	private final byte[] body;
+
+	public Fixture(String key, String method, String endpoint, String query, int statusCode, String statusLine,
+			List<Header> headers, byte[] body) {
+		this.key = key;
+		this.method = method;
+		this.endpoint = endpoint;
+		this.query = query;
+		this.statusCode = statusCode;
+		this.statusLine = statusLine;
+		this.headers = Collections.unmodifiableList(new ArrayList<>(headers));
+		this.body = body;
+	}
+
+	/**
+	 * Captures a live response; this reads and keeps the whole body.
+	 *
+	 * @param key      - The store key, see {@link FixtureStore#key}.
+	 * @param method   - The HTTP method.
+	 * @param endpoint - The endpoint path relative to base.url.
+	 * @param query    - The query string without "?", empty when there is none.
+	 */
+	public static Fixture of(String key, String method, String endpoint, String query, Response response) {
+		List<Header> headers = new ArrayList<>();
+		for (Header header : response.getHeaders()) {
+			if (!"Content-Encoding".equalsIgnoreCase(header.getName())
+					&& !"Transfer-Encoding".equalsIgnoreCase(header.getName())) {
+				headers.add(header);
+			}
+		}
+		return new Fixture(key, method, endpoint, query, response.getStatusCode(), response.getStatusLine(), headers,
+				response.asByteArray());
+	}
+
+	// A new Response instance on every call
+	public Response toResponse() {
+		Headers responseHeaders = new Headers(headers);
+		ResponseBuilder builder = new ResponseBuilder().setStatusCode(statusCode).setStatusLine(statusLine)
+				.setHeaders(responseHeaders).setBody(body);
+		if (responseHeaders.hasHeaderWithName("Content-Type")) {
+			builder.setContentType(responseHeaders.getValue("Content-Type"));
+		}
+		return builder.build();
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public String getStatusLine() {
+		return statusLine;
+	}
+
+	public List<Header> getHeaders() {
+		return headers;
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+}
@@ -0,0 +1,137 @@
+package rest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import restConfig.ConfigManager;
+
+/**
+ * Records ApiUtil traffic into a {@link FixtureStore} or answers from one.
+ *
+ * With fixtures.mode=record every call goes to the server as usual and its
+ * response is stored; the store is emptied when recording starts, so it
+ * matches the latest run. With fixtures.mode=replay no request leaves the
+ * process: each call is answered from the store, and a call that was never
+ * recorded fails with an IllegalStateException naming its key. Fixtures are
+ * keyed by method, endpoint path relative to base.url, query and a hash of the
+ * request body. A store that can not be opened, such as a replay without a
+ * recording, fails every call with the same IllegalStateException until it is
+ * fixed.
+ */
+public class FixtureFilter implements OrderedFilter {
+
+	public enum Mode {
+		OFF, RECORD, REPLAY
+	}
+
+	// Outside the cache, so replay never touches it and recording stores what
+	// ApiUtil sees
+	public static final int ORDER = 50;
+
+	private static final Mode MODE = Mode.valueOf(ConfigManager.getProperty("fixtures.mode", "off").toUpperCase());
+	private static final String FILE = ConfigManager.getProperty("fixtures.file", "target/fixtures/api-fixtures.dat");
+
+	// Opened outside a static initializer, so a failure is reported as itself on
+	// every call rather than as NoClassDefFoundError after the first
+	private static volatile FixtureFilter instance;
+
+	private final Mode mode;
+	private final FixtureStore store;
+	private final AtomicLong recorded = new AtomicLong();
+	private final AtomicLong replayed = new AtomicLong();
+	private final AtomicLong missing = new AtomicLong();
+
+	public FixtureFilter(Mode mode, FixtureStore store) {
+		this.mode = mode;
+		this.store = store;
+	}
+
+	// The filter configured in config.properties; opens its store on first use
+	public static FixtureFilter getInstance() {
+		FixtureFilter filter = instance;
+		if (filter == null) {
+			synchronized (FixtureFilter.class) {
+				if (instance == null) {
+					instance = new FixtureFilter(MODE, open(MODE, new File(FILE)));
+				}
+				filter = instance;
+			}
+		}
+		return filter;
+	}
+
+	public static boolean isFixturesEnabled() {
+		return MODE != Mode.OFF;
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+			FilterContext ctx) {
+		String uri = requestSpec.getURI();
+		int queryStart = uri.indexOf('?');
+		String query = queryStart < 0 ? "" : uri.substring(queryStart + 1);
+		String endpoint = TransferMetrics.endpointPath(uri);
+		Object body = requestSpec.getBody();
+		String key = FixtureStore.key(requestSpec.getMethod(), endpoint, query,
+				body == null ? null : String.valueOf(body));
+
+		if (mode == Mode.REPLAY) {
+			Fixture fixture = store.get(key);
+			if (fixture == null) {
+				missing.incrementAndGet();
+				throw new IllegalStateException("No recorded fixture for " + key + " in " + store.getDataFile());
+			}
+			replayed.incrementAndGet();
+			return fixture.toResponse();
+		}
+
+		Response response = ctx.next(requestSpec, responseSpec);
+		if (mode == Mode.RECORD
+				&& store.put(Fixture.of(key, requestSpec.getMethod(), endpoint, query, response))) {
+			recorded.incrementAndGet();
+		}
+		return response;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public FixtureStore getStore() {
+		return store;
+	}
+
+	private static FixtureStore open(Mode mode, File file) {
+		if (mode == Mode.OFF) {
+			return null;
+		}
+		if (mode == Mode.REPLAY && !file.isFile()) {
+			throw new IllegalStateException("fixtures.mode=replay but there is no fixture store at "
+					+ file.getAbsolutePath() + "; record one with fixtures.mode=record or point fixtures.file at it");
+		}
+		try {
+			return new FixtureStore(file, mode == Mode.RECORD, mode == Mode.RECORD);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not open the fixture store " + file.getAbsolutePath() + " for "
+					+ mode.name().toLowerCase(), e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Fixtures: mode=" + mode + ", file=" + (store == null ? "-" : store.getDataFile()) + ", entries="
+				+ (store == null ? 0 : store.size()) + ", recorded=" + recorded + ", replayed=" + replayed
+				+ ", missing=" + missing;
+	}
+}
@@ -0,0 +1,305 @@
+package rest;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.restassured.http.Header;
+
+/**
+ * Append-only file of recorded {@link Fixture}s with an offset index beside
+ * it. Each record is a magic number, its length and the encoded fixture; the
+ * index file (the data file name plus ".idx") holds one "offset length key"
+ * line per record. Opening a store only reads the index, and a lookup reads
+ * the one record it needs with a positional read, so replaying a large
+ * recording neither loads every body into the heap nor waits for a full scan.
+ *
+ * Records appended after the last index line, for example when a recording
+ * was killed between the two writes, are recovered by scanning the data file
+ * from there; a torn last record is cut off. A key already in the store is not
+ * written again, so the first recording of a repeated call wins.
+ */
+public class FixtureStore implements Closeable {
+
+	private static final int MAGIC = 0x46495831;
+	private static final int RECORD_HEADER = 8;
+
+	private final File dataFile;
+	private final File indexFile;
+	private final boolean writable;
+	private final FileChannel data;
+	private final FileChannel index;
+	private final Map<String, long[]> offsets = new ConcurrentHashMap<>();
+
+	/**
+	 * @param dataFile - The data file; the index is kept next to it.
+	 * @param writable - Whether fixtures may be added; a read-only store must
+	 *                 already exist.
+	 * @param truncate - Whether to start from an empty store.
+	 */
+	public FixtureStore(File dataFile, boolean writable, boolean truncate) throws IOException {
+		this.dataFile = dataFile;
+		this.indexFile = new File(dataFile.getPath() + ".idx");
+		this.writable = writable;
+		if (writable) {
+			File parent = dataFile.getAbsoluteFile().getParentFile();
+			if (parent != null && !parent.exists() && !parent.mkdirs()) {
+				throw new IOException("Could not create " + parent);
+			}
+			this.data = FileChannel.open(dataFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			this.index = FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			if (truncate) {
+				data.truncate(0);
+				index.truncate(0);
+			}
+		} else {
+			if (!dataFile.isFile()) {
+				throw new FileNotFoundException("No fixture store at " + dataFile.getAbsolutePath());
+			}
+			this.data = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ);
+			this.index = indexFile.isFile() ? FileChannel.open(indexFile.toPath(), StandardOpenOption.READ) : null;
+		}
+		recoverTail(loadIndex());
+	}
+
+	/**
+	 * Builds the key a request is stored under. The endpoint is relative to
+	 * base.url, so a recording can be replayed against any host.
+	 *
+	 * @param body - The serialized request body, or null.
+	 */
+	public static String key(String method, String endpoint, String query, String body) {
+		StringBuilder key = new StringBuilder(method).append(' ').append(endpoint);
+		if (!query.isEmpty()) {
+			key.append('?').append(query);
+		}
+		if (body != null) {
+			key.append(" body=").append(sha256(body));
+		}
+		return key.toString();
+	}
+
+	public boolean contains(String key) {
+		return offsets.containsKey(key);
+	}
+
+	public int size() {
+		return offsets.size();
+	}
+
+	public File getDataFile() {
+		return dataFile;
+	}
+
+	/**
+	 * Reads one fixture from disk.
+	 *
+	 * @return Fixture - The recorded fixture, or null when the key is unknown.
+	 */
+	public Fixture get(String key) {
+		long[] location = offsets.get(key);
+		if (location == null) {
+			return null;
+		}
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate((int) location[1]);
+			while (buffer.hasRemaining()) {
+				if (data.read(buffer, location[0] + buffer.position()) < 0) {
+					throw new EOFException("Fixture store " + dataFile + " ends inside the record for " + key);
+				}
+			}
+			return decode(buffer.array());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Appends a fixture unless its key is already stored.
+	 *
+	 * @return boolean - Whether the fixture was written.
+	 */
+	public synchronized boolean put(Fixture fixture) {
+		if (!writable) {
+			throw new IllegalStateException("Fixture store " + dataFile + " was opened read-only");
+		}
+		if (offsets.containsKey(fixture.getKey())) {
+			return false;
+		}
+		try {
+			byte[] payload = encode(fixture);
+			long offset = data.size();
+			ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload.length);
+			record.putInt(MAGIC).putInt(payload.length).put(payload).flip();
+			writeFully(data, record, offset);
+			appendIndex(offset + RECORD_HEADER, payload.length, fixture.getKey());
+			offsets.put(fixture.getKey(), new long[] { offset + RECORD_HEADER, payload.length });
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			data.close();
+		} finally {
+			if (index != null) {
+				index.close();
+			}
+		}
+	}
+
+	// Returns the end of the last indexed record
+	private long loadIndex() throws IOException {
+		if (index == null || index.size() == 0) {
+			return 0;
+		}
+		ByteBuffer content = ByteBuffer.allocate((int) index.size());
+		while (content.hasRemaining()) {
+			if (index.read(content, content.position()) < 0) {
+				break;
+			}
+		}
+		// A line without its newline was torn by a crash and is ignored
+		int complete = content.position();
+		while (complete > 0 && content.get(complete - 1) != '\n') {
+			complete--;
+		}
+		if (complete < index.size() && writable) {
+			index.truncate(complete);
+		}
+
+		long end = 0;
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new ByteArrayInputStream(content.array(), 0, complete), StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			String[] fields = line.split(" ", 3);
+			if (fields.length < 3) {
+				break;
+			}
+			long offset = Long.parseLong(fields[0]);
+			long length = Long.parseLong(fields[1]);
+			if (offset + length > data.size()) {
+				break;
+			}
+			offsets.putIfAbsent(fields[2], new long[] { offset, length });
+			end = Math.max(end, offset + length);
+		}
+		return end;
+	}
+
+	private void recoverTail(long position) throws IOException {
+		long size = data.size();
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+		while (position + RECORD_HEADER <= size) {
+			header.clear();
+			data.read(header, position);
+			header.flip();
+			int length = header.getInt(4);
+			if (header.getInt(0) != MAGIC || length < 0 || position + RECORD_HEADER + length > size) {
+				break;
+			}
+			ByteBuffer payload = ByteBuffer.allocate(length);
+			data.read(payload, position + RECORD_HEADER);
+			String key = decodeKey(payload.array());
+			if (offsets.putIfAbsent(key, new long[] { position + RECORD_HEADER, length }) == null && writable) {
+				appendIndex(position + RECORD_HEADER, length, key);
+			}
+			position += RECORD_HEADER + length;
+		}
+		if (position < size && writable) {
+			data.truncate(position);
+		}
+	}
+
+	private void appendIndex(long offset, long length, String key) throws IOException {
+		ByteBuffer line = ByteBuffer
+				.wrap((offset + " " + length + " " + key + "\n").getBytes(StandardCharsets.UTF_8));
+		writeFully(index, line, index.size());
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	private static byte[] encode(Fixture fixture) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(fixture.getBody().length + 512);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeUTF(fixture.getKey());
+		out.writeUTF(fixture.getMethod());
+		out.writeUTF(fixture.getEndpoint());
+		out.writeUTF(fixture.getQuery());
+		out.writeInt(fixture.getStatusCode());
+		out.writeUTF(fixture.getStatusLine() == null ? "" : fixture.getStatusLine());
+		out.writeInt(fixture.getHeaders().size());
+		for (Header header : fixture.getHeaders()) {
+			out.writeUTF(header.getName());
+			out.writeUTF(header.getValue());
+		}
+		out.writeInt(fixture.getBody().length);
+		out.write(fixture.getBody());
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static Fixture decode(byte[] payload) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		String key = in.readUTF();
+		String method = in.readUTF();
+		String endpoint = in.readUTF();
+		String query = in.readUTF();
+		int statusCode = in.readInt();
+		String statusLine = in.readUTF();
+		int headerCount = in.readInt();
+		List<Header> headers = new ArrayList<>(headerCount);
+		for (int i = 0; i < headerCount; i++) {
+			headers.add(new Header(in.readUTF(), in.readUTF()));
+		}
+		byte[] body = new byte[in.readInt()];
+		in.readFully(body);
+		return new Fixture(key, method, endpoint, query, statusCode, statusLine, headers, body);
+	}
+
+	private static String decodeKey(byte[] payload) throws IOException {
+		return new DataInputStream(new ByteArrayInputStream(payload)).readUTF();
+	}
+
+	private static String sha256(String value) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder();
+			for (int i = 0; i < 8; i++) {
+				hex.append(String.format("%02x", digest[i]));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
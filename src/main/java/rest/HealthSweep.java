@@ -0,0 +1,103 @@
+package rest;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+import coreUtilities.utils.Log;
+import restConfig.ConfigManager;
+
+/**
+ * Pre-deployment health gate. Fires every {@link ApiEndpoint} concurrently, at
+ * most sweep.parallelism at a time, and collects one {@link SweepResult} per
+ * ApiUtil method. With enough parallelism the sweep finishes in roughly the
+ * time of the slowest endpoint.
+ */
+public class HealthSweep {
+
+	private static final int PARALLELISM = ConfigManager.getIntProperty("sweep.parallelism",
+			ApiEndpoint.values().length);
+	private static final long TIMEOUT_MS = ConfigManager.getLongProperty("sweep.timeoutMs", 60000);
+
+	private final ApiUtil apiUtil;
+	private final int parallelism;
+	private final long timeoutMillis;
+
+	public HealthSweep() {
+		this(new ApiUtil(), PARALLELISM, TIMEOUT_MS);
+	}
+
+	public HealthSweep(ApiUtil apiUtil, int parallelism, long timeoutMillis) {
+		this.apiUtil = apiUtil;
+		this.parallelism = parallelism;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public Map<String, SweepResult> run() {
+		return run(Arrays.asList(ApiEndpoint.values()));
+	}
+
+	/**
+	 * Calls the given endpoints concurrently and waits for all of them.
+	 *
+	 * @param endpoints - The endpoints to sweep.
+	 * @return Map - Results keyed by ApiUtil method name, in the order given.
+	 */
+	public Map<String, SweepResult> run(Collection<ApiEndpoint> endpoints) {
+		ExecutorService executor = AsyncApiUtil.newBoundedExecutor(parallelism, Math.max(1, endpoints.size()));
+		AsyncApiUtil asyncApiUtil = new AsyncApiUtil(apiUtil, executor, timeoutMillis);
+		long sweepStart = System.nanoTime();
+		try {
+			Map<String, CompletableFuture<SweepResult>> pending = new LinkedHashMap<>();
+			for (ApiEndpoint endpoint : endpoints) {
+				CompletableFuture<SweepResult> result = asyncApiUtil.submit(() -> call(endpoint))
+						.exceptionally(error -> failed(endpoint, sweepStart, error));
+				pending.put(endpoint.getMethodName(), result);
+			}
+
+			Map<String, SweepResult> results = new LinkedHashMap<>();
+			for (Map.Entry<String, CompletableFuture<SweepResult>> entry : pending.entrySet()) {
+				results.put(entry.getKey(), entry.getValue().join());
+			}
+			Log.info("Health sweep of " + results.size() + " endpoints finished in "
+					+ (System.nanoTime() - sweepStart) / 1_000_000 + " ms");
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// Runs on a worker thread so the latency excludes time spent queued
+	private SweepResult call(ApiEndpoint endpoint) {
+		long start = System.nanoTime();
+		CustomResponse customResponse = endpoint.invoke(apiUtil);
+		long latencyMillis = (System.nanoTime() - start) / 1_000_000;
+
+		long payloadBytes = Math.max(0, customResponse.getBodyLength());
+		return new SweepResult(endpoint.getMethodName(), endpoint.getEndpoint(), customResponse.getStatusCode(),
+				customResponse.getStatus(), latencyMillis, payloadBytes, null);
+	}
+
+	private SweepResult failed(ApiEndpoint endpoint, long sweepStart, Throwable error) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause()
+				: error;
+		return new SweepResult(endpoint.getMethodName(), endpoint.getEndpoint(), 0, null,
+				(System.nanoTime() - sweepStart) / 1_000_000, 0, cause.toString());
+	}
+
+	// Exits with status 1 when any endpoint is unhealthy, for use as a deployment
+	// gate
+	public static void main(String[] args) {
+		Map<String, SweepResult> results = new HealthSweep().run();
+		boolean healthy = true;
+		for (SweepResult result : results.values()) {
+			System.out.println(result);
+			healthy &= result.isHealthy();
+		}
+		System.exit(healthy ? 0 : 1);
+	}
+}
@@ -0,0 +1,346 @@
+package rest;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.reactor.IOSessionListener;
+import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
+import org.apache.hc.core5.util.Timeout;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import restConfig.ConfigManager;
+
+/**
+ * HTTP/2 {@link Transport} on the Apache HttpClient 5 async client. Each host
+ * gets a single connection and concurrent requests are multiplexed over it as
+ * streams: TLS with ALPN for https, and h2c with prior knowledge for http, as
+ * served by {@link StubServer} on stub.h2c.port.
+ *
+ * At most http.h2.maxConcurrentStreams requests are in flight; the rest wait in
+ * a queue without holding a thread. {@link #getStatistics()} reports the same
+ * counters as {@link HttpClientPool#getStatistics()}, so a run with
+ * http.transport=http2 can be compared with the HTTP/1.1 pool on connections
+ * opened and handshake time, and on tail latency through {@link LatencyMetrics}.
+ * Response bodies are not compressed on this transport. Cancelling the returned
+ * future resets the request's stream, or drops it from the queue.
+ */
+public class Http2Transport implements Transport {
+
+	private static final int MAX_CONCURRENT_STREAMS = ConfigManager.getIntProperty("http.h2.maxConcurrentStreams",
+			100);
+	private static final int IO_THREADS = ConfigManager.getIntProperty("http.h2.ioThreads", 0);
+	private static final int CONNECT_TIMEOUT_MS = ConfigManager.getIntProperty("http.connectTimeoutMs", 10000);
+	private static final int SOCKET_TIMEOUT_MS = ConfigManager.getIntProperty("http.socketTimeoutMs", 60000);
+
+	// Connection-specific headers are not allowed in HTTP/2; the client sets the
+	// others itself
+	private static final List<String> SKIPPED_HEADERS = Arrays.asList("host", "connection", "keep-alive",
+			"transfer-encoding", "upgrade", "content-length", "accept-encoding");
+
+	private final int maxConcurrentStreams;
+	private final CloseableHttpAsyncClient client;
+	private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final ConcurrentMap<String, Long> connectStarts = new ConcurrentHashMap<>();
+	private final AtomicLong connectionsOpened = new AtomicLong();
+	private final AtomicLong tlsHandshakes = new AtomicLong();
+	private final AtomicLong connectNanos = new AtomicLong();
+
+	public Http2Transport() {
+		this(MAX_CONCURRENT_STREAMS, IO_THREADS);
+	}
+
+	/**
+	 * @param maxConcurrentStreams - Requests in flight at once, across all hosts.
+	 * @param ioThreads            - I/O reactor threads, 0 for one per core.
+	 */
+	public Http2Transport(int maxConcurrentStreams, int ioThreads) {
+		this.maxConcurrentStreams = maxConcurrentStreams;
+		IOReactorConfig.Builder reactor = IOReactorConfig.custom().setTcpNoDelay(true).setSoKeepAlive(true);
+		if (ioThreads > 0) {
+			reactor.setIoThreadCount(ioThreads);
+		}
+		this.client = HttpAsyncClients.customHttp2().setIOReactorConfig(reactor.build())
+				.setH2Config(H2Config.custom().setPushEnabled(false).setMaxConcurrentStreams(maxConcurrentStreams)
+						.build())
+				.setDefaultConnectionConfig(ConnectionConfig.custom()
+						.setConnectTimeout(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS).build())
+				.setDefaultRequestConfig(
+						RequestConfig.custom().setResponseTimeout(SOCKET_TIMEOUT_MS, TimeUnit.MILLISECONDS).build())
+				.setDnsResolver(new TimedDnsResolver()).setIOSessionListener(new CountingSessionListener())
+				.setTlsStrategy(new TimedTlsStrategy(ClientTlsStrategyBuilder.create().useSystemProperties().build()))
+				.setThreadFactory(AsyncApiUtil.daemonThreadFactory("h2-transport")).disableAutomaticRetries()
+				.disableCookieManagement().build();
+		this.client.start();
+	}
+
+	@Override
+	public CompletableFuture<Response> send(String method, String uri, Headers headers, byte[] body) {
+		CompletableFuture<Response> result = new CompletableFuture<>();
+		TargetUri target;
+		try {
+			target = TargetUri.parse(uri);
+		} catch (IllegalArgumentException e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+
+		SimpleHttpRequest request = new SimpleHttpRequest(method,
+				new HttpHost(target.secure ? "https" : "http", target.host, target.port), target.pathAndQuery);
+		String contentType = null;
+		for (Header header : headers) {
+			String name = header.getName().toLowerCase(Locale.ROOT);
+			if (name.equals("content-type")) {
+				contentType = header.getValue();
+			} else if (!SKIPPED_HEADERS.contains(name)) {
+				request.addHeader(header.getName(), header.getValue());
+			}
+		}
+		if (body != null && body.length > 0) {
+			request.setBody(body, contentType == null ? ContentType.DEFAULT_BINARY : ContentType.parse(contentType));
+		}
+
+		String path = TransferMetrics.routeTemplate(uri);
+		pending.add(() -> execute(request, path, result));
+		drain();
+		return result;
+	}
+
+	/**
+	 * Takes a snapshot of the stream and connection counters.
+	 *
+	 * @return PoolStatistics - streams in flight and queued, the stream limit,
+	 *         plus the number of connections opened, TLS handshakes performed
+	 *         and the average time to open a connection so far.
+	 */
+	public PoolStatistics getStatistics() {
+		int active = inFlight.get();
+		return new PoolStatistics("HTTP/2 streams", active, Math.max(0, maxConcurrentStreams - active),
+				pending.size(), maxConcurrentStreams, connectionsOpened.get(), tlsHandshakes.get(),
+				connectNanos.get());
+	}
+
+	@Override
+	public void close() {
+		client.close(CloseMode.GRACEFUL);
+	}
+
+	// Starts queued requests while fewer than maxConcurrentStreams are in flight
+	private void drain() {
+		while (!pending.isEmpty()) {
+			int active = inFlight.get();
+			if (active >= maxConcurrentStreams) {
+				return;
+			}
+			if (!inFlight.compareAndSet(active, active + 1)) {
+				continue;
+			}
+			Runnable next = pending.poll();
+			if (next == null) {
+				inFlight.decrementAndGet();
+			} else {
+				next.run();
+			}
+		}
+	}
+
+	private void execute(SimpleHttpRequest request, String path, CompletableFuture<Response> result) {
+		if (result.isDone()) {
+			// Cancelled while queued
+			finish();
+			return;
+		}
+		long startNanos = System.nanoTime();
+		Future<SimpleHttpResponse> exchange = client.execute(request, new FutureCallback<SimpleHttpResponse>() {
+			@Override
+			public void completed(SimpleHttpResponse response) {
+				LatencyMetrics.record(path, startNanos, System.nanoTime());
+				finish();
+				result.complete(toResponse(response));
+			}
+
+			@Override
+			public void failed(Exception e) {
+				finish();
+				result.completeExceptionally(e);
+			}
+
+			@Override
+			public void cancelled() {
+				finish();
+				result.cancel(false);
+			}
+		});
+		// A caller that cancels the result resets the stream
+		result.whenComplete((response, error) -> {
+			if (result.isCancelled()) {
+				exchange.cancel(true);
+			}
+		});
+	}
+
+	private void finish() {
+		inFlight.decrementAndGet();
+		drain();
+	}
+
+	private static Response toResponse(SimpleHttpResponse message) {
+		List<Header> headers = new ArrayList<>();
+		for (org.apache.hc.core5.http.Header header : message.getHeaders()) {
+			headers.add(new Header(header.getName(), header.getValue()));
+		}
+		String reason = message.getReasonPhrase() != null ? message.getReasonPhrase()
+				: EnglishReasonPhraseCatalog.INSTANCE.getReason(message.getCode(), Locale.ENGLISH);
+		byte[] body = message.getBodyBytes();
+		ResponseBuilder builder = new ResponseBuilder().setStatusCode(message.getCode())
+				.setStatusLine(message.getVersion() + " " + message.getCode() + (reason == null ? "" : " " + reason))
+				.setHeaders(new Headers(headers)).setBody(body == null ? new byte[0] : body);
+		ContentType contentType = message.getContentType();
+		if (contentType != null) {
+			builder.setContentType(contentType.toString());
+		}
+		return builder.build();
+	}
+
+	// Remembers when a connection attempt started; the resolver is called right
+	// before the socket is opened
+	private class TimedDnsResolver implements DnsResolver {
+		private final DnsResolver delegate = SystemDefaultDnsResolver.INSTANCE;
+
+		@Override
+		public InetAddress[] resolve(String host) throws UnknownHostException {
+			connectStarts.put(host, System.nanoTime());
+			return delegate.resolve(host);
+		}
+
+		@Override
+		public String resolveCanonicalHostname(String host) throws UnknownHostException {
+			return delegate.resolveCanonicalHostname(host);
+		}
+	}
+
+	// Counts each connection and the time from resolving the host to the TCP
+	// connect
+	private class CountingSessionListener implements IOSessionListener {
+		@Override
+		public void connected(IOSession session) {
+			connectionsOpened.incrementAndGet();
+			SocketAddress remote = session.getRemoteAddress();
+			Long start = remote instanceof InetSocketAddress
+					? connectStarts.remove(((InetSocketAddress) remote).getHostString())
+					: null;
+			if (start != null) {
+				connectNanos.addAndGet(System.nanoTime() - start);
+			}
+		}
+
+		@Override
+		public void startTls(IOSession session) {
+		}
+
+		@Override
+		public void inputReady(IOSession session) {
+		}
+
+		@Override
+		public void outputReady(IOSession session) {
+		}
+
+		@Override
+		public void timeout(IOSession session) {
+		}
+
+		@Override
+		public void exception(IOSession session, Exception ex) {
+		}
+
+		@Override
+		public void disconnected(IOSession session) {
+		}
+	}
+
+	// Adds the TLS handshake, ALPN included, to the connect time
+	private class TimedTlsStrategy implements TlsStrategy {
+		private final TlsStrategy delegate;
+
+		TimedTlsStrategy(TlsStrategy delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		@Deprecated
+		public boolean upgrade(TransportSecurityLayer sessionLayer, HttpHost host, SocketAddress localAddress,
+				SocketAddress remoteAddress, Object attachment, Timeout handshakeTimeout) {
+			return delegate.upgrade(sessionLayer, host, localAddress, remoteAddress, attachment, handshakeTimeout);
+		}
+
+		@Override
+		public void upgrade(TransportSecurityLayer sessionLayer, NamedEndpoint endpoint, Object attachment,
+				Timeout handshakeTimeout, FutureCallback<TransportSecurityLayer> callback) {
+			long start = System.nanoTime();
+			delegate.upgrade(sessionLayer, endpoint, attachment, handshakeTimeout,
+					new FutureCallback<TransportSecurityLayer>() {
+						@Override
+						public void completed(TransportSecurityLayer result) {
+							tlsHandshakes.incrementAndGet();
+							connectNanos.addAndGet(System.nanoTime() - start);
+							if (callback != null) {
+								callback.completed(result);
+							}
+						}
+
+						@Override
+						public void failed(Exception e) {
+							if (callback != null) {
+								callback.failed(e);
+							}
+						}
+
+						@Override
+						public void cancelled() {
+							if (callback != null) {
+								callback.cancelled();
+							}
+						}
+					});
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package rest;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLSocket;
+
+import org.apache.http.ConnectionReuseStrategy;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.AuthenticationStrategy;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.HttpRequestRetryHandler;
+import org.apache.http.client.RedirectStrategy;
+import org.apache.http.client.UserTokenHandler;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoutePlanner;
+import org.apache.http.impl.NoConnectionReuseStrategy;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import io.restassured.config.HttpClientConfig;
+import restConfig.ConfigManager;
+
+/**
+ * Owns the Apache HttpClient that RestAssured sends every {@link ApiUtil} call
+ * through. One client and one connection manager are shared by all threads.
+ * With http.pool.enabled=true connections are kept alive, so parallel TestNG
+ * classes reuse open connections instead of paying a TCP connect and TLS
+ * handshake per request; with false every connection is closed once its
+ * response has been read.
+ * <p>
+ * RestAssured 5 only accepts an AbstractHttpClient from its
+ * {@link HttpClientConfig#httpClientFactory}, so the client is built on the
+ * HttpClient 4.2 connection API rather than HttpClientBuilder. The deprecated
+ * types are referenced by their qualified names so that the suppression below
+ * covers every use of them.
+ */
+@SuppressWarnings("deprecation")
+public class HttpClientPool {
+
+	private static final boolean POOL_ENABLED = ConfigManager.getBooleanProperty("http.pool.enabled", true);
+	private static final int MAX_TOTAL = ConfigManager.getIntProperty("http.pool.maxTotal", 20);
+	private static final int MAX_PER_ROUTE = ConfigManager.getIntProperty("http.pool.maxPerRoute", 10);
+	private static final long KEEP_ALIVE_MS = ConfigManager.getLongProperty("http.pool.keepAliveMs", 30000);
+	private static final long IDLE_TIMEOUT_MS = ConfigManager.getLongProperty("http.pool.idleTimeoutMs", 30000);
+	private static final long EVICTION_INTERVAL_MS = ConfigManager.getLongProperty("http.pool.evictionIntervalMs",
+			5000);
+	private static final int CONNECT_TIMEOUT_MS = ConfigManager.getIntProperty("http.connectTimeoutMs", 10000);
+	private static final int SOCKET_TIMEOUT_MS = ConfigManager.getIntProperty("http.socketTimeoutMs", 60000);
+
+	private static final AtomicLong CONNECTIONS_OPENED = new AtomicLong();
+	private static final AtomicLong TLS_HANDSHAKES = new AtomicLong();
+	private static final AtomicLong CONNECT_NANOS = new AtomicLong();
+
+	private HttpClientPool() {
+	}
+
+	// Created on first use; the eviction thread only runs when connections are
+	// kept alive
+	private static class Pool {
+		private static final org.apache.http.impl.conn.PoolingClientConnectionManager CONNECTION_MANAGER =
+				createConnectionManager();
+		private static final org.apache.http.impl.client.DefaultHttpClient HTTP_CLIENT = createHttpClient(
+				CONNECTION_MANAGER);
+
+		static {
+			if (POOL_ENABLED) {
+				ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+					Thread thread = new Thread(runnable, "http-pool-evictor");
+					thread.setDaemon(true);
+					return thread;
+				});
+				evictor.scheduleWithFixedDelay(() -> {
+					CONNECTION_MANAGER.closeExpiredConnections();
+					CONNECTION_MANAGER.closeIdleConnections(IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+				}, EVICTION_INTERVAL_MS, EVICTION_INTERVAL_MS, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Returns the RestAssured client configuration used by
+	 * {@link SpecUtil#getRequestSpec()}.
+	 *
+	 * @return HttpClientConfig - Reuses the one shared client for every request.
+	 */
+	public static HttpClientConfig httpClientConfig() {
+		return HttpClientConfig.httpClientConfig().httpClientFactory(HttpClientPool::getHttpClient)
+				.reuseHttpClientInstance();
+	}
+
+	public static HttpClient getHttpClient() {
+		return Pool.HTTP_CLIENT;
+	}
+
+	public static boolean isPoolEnabled() {
+		return POOL_ENABLED;
+	}
+
+	/**
+	 * Takes a snapshot of the pool and connection counters.
+	 *
+	 * @return PoolStatistics - leased, available and pending connections plus the
+	 *         number of connections opened and TLS handshakes completed so far.
+	 */
+	public static PoolStatistics getStatistics() {
+		PoolStats stats = Pool.CONNECTION_MANAGER.getTotalStats();
+		return new PoolStatistics(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax(),
+				CONNECTIONS_OPENED.get(), TLS_HANDSHAKES.get(), CONNECT_NANOS.get());
+	}
+
+	private static org.apache.http.impl.conn.PoolingClientConnectionManager createConnectionManager() {
+		org.apache.http.impl.conn.PoolingClientConnectionManager connectionManager =
+				new org.apache.http.impl.conn.PoolingClientConnectionManager(
+						org.apache.http.impl.conn.SchemeRegistryFactory.createDefault()) {
+			@Override
+			protected org.apache.http.conn.ClientConnectionOperator createConnectionOperator(
+					org.apache.http.conn.scheme.SchemeRegistry schemeRegistry) {
+				return new CountingConnectionOperator(schemeRegistry);
+			}
+		};
+		connectionManager.setMaxTotal(MAX_TOTAL);
+		connectionManager.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+		return connectionManager;
+	}
+
+	private static org.apache.http.impl.client.DefaultHttpClient createHttpClient(
+			org.apache.http.conn.ClientConnectionManager connectionManager) {
+		org.apache.http.impl.client.DefaultHttpClient httpClient = RetryPolicy.isRetryEnabled()
+				? new RetryingHttpClient(connectionManager)
+				: new org.apache.http.impl.client.DefaultHttpClient(connectionManager);
+		org.apache.http.params.HttpConnectionParams.setConnectionTimeout(httpClient.getParams(), CONNECT_TIMEOUT_MS);
+		org.apache.http.params.HttpConnectionParams.setSoTimeout(httpClient.getParams(), SOCKET_TIMEOUT_MS);
+		if (POOL_ENABLED) {
+			httpClient.setKeepAliveStrategy(new ConfiguredKeepAliveStrategy());
+		} else {
+			httpClient.setReuseStrategy(NoConnectionReuseStrategy.INSTANCE);
+		}
+		httpClient.addRequestInterceptor(LatencyMetrics.requestInterceptor());
+		httpClient.addResponseInterceptor(TransferMetrics.responseInterceptor());
+		return httpClient;
+	}
+
+	// Runs every request through RetryPolicy. HttpClient's own retry handler is
+	// switched off so that each retry is classified, counted and budgeted once.
+	private static class RetryingHttpClient extends org.apache.http.impl.client.DefaultHttpClient {
+		RetryingHttpClient(org.apache.http.conn.ClientConnectionManager connectionManager) {
+			super(connectionManager);
+			setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
+		}
+
+		@Override
+		protected org.apache.http.client.RequestDirector createClientRequestDirector(HttpRequestExecutor requestExec,
+				org.apache.http.conn.ClientConnectionManager conman, ConnectionReuseStrategy reustrat,
+				ConnectionKeepAliveStrategy kastrat, HttpRoutePlanner rouplan, HttpProcessor httpProcessor,
+				HttpRequestRetryHandler retryHandler, RedirectStrategy redirectStrategy,
+				AuthenticationStrategy targetAuthStrategy, AuthenticationStrategy proxyAuthStrategy,
+				UserTokenHandler userTokenHandler, org.apache.http.params.HttpParams params) {
+			return RetryPolicy.getInstance()
+					.wrap(() -> super.createClientRequestDirector(requestExec, conman, reustrat, kastrat, rouplan,
+							httpProcessor, retryHandler, redirectStrategy, targetAuthStrategy, proxyAuthStrategy,
+							userTokenHandler, params));
+		}
+	}
+
+	// Honours the server's Keep-Alive timeout and falls back to http.pool.keepAliveMs
+	private static class ConfiguredKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+		@Override
+		public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+			BasicHeaderElementIterator iterator = new BasicHeaderElementIterator(
+					response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+			while (iterator.hasNext()) {
+				HeaderElement element = iterator.nextElement();
+				if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+					try {
+						return Long.parseLong(element.getValue()) * 1000;
+					} catch (NumberFormatException ignored) {
+						// fall through to the configured default
+					}
+				}
+			}
+			return KEEP_ALIVE_MS;
+		}
+	}
+
+	// Counts every physical connection. The https socket factory completes the
+	// handshake while the connection opens, so a TLS socket with a valid session
+	// counts as one handshake and its cost is part of the connect time.
+	private static class CountingConnectionOperator extends org.apache.http.impl.conn.DefaultClientConnectionOperator {
+		CountingConnectionOperator(org.apache.http.conn.scheme.SchemeRegistry schemeRegistry) {
+			super(schemeRegistry);
+		}
+
+		@Override
+		public void openConnection(org.apache.http.conn.OperatedClientConnection conn, HttpHost target,
+				InetAddress local, HttpContext context, org.apache.http.params.HttpParams params) throws IOException {
+			long start = System.nanoTime();
+			super.openConnection(conn, target, local, context, params);
+			CONNECT_NANOS.addAndGet(System.nanoTime() - start);
+			CONNECTIONS_OPENED.incrementAndGet();
+			Socket socket = conn.getSocket();
+			if (socket instanceof SSLSocket && ((SSLSocket) socket).getSession().isValid()) {
+				TLS_HANDSHAKES.incrementAndGet();
+			}
+		}
+	}
+}
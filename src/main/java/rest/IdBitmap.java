@@ -0,0 +1,147 @@
+package rest;
+
+import java.util.Arrays;
+
+/**
+ * Compressed bitmap of unsigned 32-bit ids. The ids are split into chunks of
+ * 65536 by their high 16 bits; a chunk holding few ids keeps them as a sorted
+ * char[] and switches to a plain 8 KB bitmap once it holds more than 4096, the
+ * point where the bitmap becomes the smaller of the two. A dense range of
+ * database ids therefore costs about one bit per id, and scattered ids two
+ * bytes each.
+ */
+public class IdBitmap {
+
+	private static final int ARRAY_LIMIT = 4096;
+	private static final int BITMAP_WORDS = 1 << 16 >>> 6;
+
+	private char[] keys = new char[4];
+	private Chunk[] chunks = new Chunk[4];
+	private int chunkCount;
+	private int size;
+
+	// Index of the chunk used last; ids usually arrive in ascending runs
+	private int lastChunk = -1;
+
+	/**
+	 * Adds an id.
+	 *
+	 * @param id - The id, read as unsigned.
+	 * @return boolean - true when the id was not in the bitmap yet.
+	 */
+	public boolean add(int id) {
+		Chunk chunk = chunkFor((char) (id >>> 16), true);
+		if (!chunk.add((char) id)) {
+			return false;
+		}
+		size++;
+		return true;
+	}
+
+	public boolean contains(int id) {
+		Chunk chunk = chunkFor((char) (id >>> 16), false);
+		return chunk != null && chunk.contains((char) id);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// Approximate heap held by the chunks, for comparing against boxed sets
+	public long getSizeInBytes() {
+		long bytes = keys.length * 2L + chunks.length * 4L;
+		for (int i = 0; i < chunkCount; i++) {
+			bytes += chunks[i].sizeInBytes();
+		}
+		return bytes;
+	}
+
+	private Chunk chunkFor(char key, boolean create) {
+		if (lastChunk >= 0 && keys[lastChunk] == key) {
+			return chunks[lastChunk];
+		}
+		int index = Arrays.binarySearch(keys, 0, chunkCount, key);
+		if (index < 0) {
+			if (!create) {
+				return null;
+			}
+			index = -index - 1;
+			insertChunk(index, key);
+		}
+		lastChunk = index;
+		return chunks[index];
+	}
+
+	private void insertChunk(int index, char key) {
+		if (chunkCount == keys.length) {
+			keys = Arrays.copyOf(keys, chunkCount * 2);
+			chunks = Arrays.copyOf(chunks, chunkCount * 2);
+		}
+		System.arraycopy(keys, index, keys, index + 1, chunkCount - index);
+		System.arraycopy(chunks, index, chunks, index + 1, chunkCount - index);
+		keys[index] = key;
+		chunks[index] = new Chunk();
+		chunkCount++;
+	}
+
+	// The low 16 bits of the ids sharing one high half
+	private static final class Chunk {
+		private char[] values = new char[8];
+		private long[] words;
+		private int cardinality;
+
+		boolean add(char value) {
+			if (words != null) {
+				long bit = 1L << value;
+				int word = value >>> 6;
+				if ((words[word] & bit) != 0) {
+					return false;
+				}
+				words[word] |= bit;
+				cardinality++;
+				return true;
+			}
+			// Ascending ids append without searching
+			int index = cardinality > 0 && values[cardinality - 1] < value ? -cardinality - 1
+					: Arrays.binarySearch(values, 0, cardinality, value);
+			if (index >= 0) {
+				return false;
+			}
+			if (cardinality == ARRAY_LIMIT) {
+				toBitmap();
+				return add(value);
+			}
+			index = -index - 1;
+			if (cardinality == values.length) {
+				values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+			}
+			System.arraycopy(values, index, values, index + 1, cardinality - index);
+			values[index] = value;
+			cardinality++;
+			return true;
+		}
+
+		boolean contains(char value) {
+			if (words != null) {
+				return (words[value >>> 6] & (1L << value)) != 0;
+			}
+			return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+		}
+
+		long sizeInBytes() {
+			return words != null ? words.length * 8L : values.length * 2L;
+		}
+
+		private void toBitmap() {
+			words = new long[BITMAP_WORDS];
+			for (int i = 0; i < cardinality; i++) {
+				words[values[i] >>> 6] |= 1L << values[i];
+			}
+			values = null;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package rest;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list of int ids backed by an int[], for the id lists a
+ * CustomResponse carries (getPatientIds, getItemIds). It stands in for the
+ * {@code List<Object>} JsonPath returns: get hands back the same Integer
+ * values and equals and hashCode match the original list, while the ids take
+ * four bytes each and can be read with {@link #getInt(int)} without boxing.
+ */
+public class IdList extends AbstractList<Object> implements RandomAccess {
+
+	private final int[] ids;
+
+	private IdList(int[] ids) {
+		this.ids = ids;
+	}
+
+	/**
+	 * Copies a list of ids into an int[].
+	 *
+	 * @param values - The values, for example jsonPath().getList("Results.PatientId").
+	 * @return List - An IdList, or values itself when it already is one or holds
+	 *         anything other than Integer values (nulls, strings, longs).
+	 */
+	public static List<Object> of(List<Object> values) {
+		if (values instanceof IdList) {
+			return values;
+		}
+		int[] ids = new int[values.size()];
+		int index = 0;
+		for (Object value : values) {
+			if (!(value instanceof Integer)) {
+				return values;
+			}
+			ids[index++] = (Integer) value;
+		}
+		return new IdList(ids);
+	}
+
+	@Override
+	public Object get(int index) {
+		return getInt(index);
+	}
+
+	public int getInt(int index) {
+		if (index < 0 || index >= ids.length) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + ids.length);
+		}
+		return ids[index];
+	}
+
+	@Override
+	public int size() {
+		return ids.length;
+	}
+
+	public int[] toIntArray() {
+		return ids.clone();
+	}
+
+	/**
+	 * Looks for a repeated id.
+	 *
+	 * @return int - Index of the first id that already appeared earlier in the
+	 *         list, or -1 when all ids are unique.
+	 */
+	public int indexOfDuplicate() {
+		IdSet seen = new IdSet();
+		for (int i = 0; i < ids.length; i++) {
+			if (!seen.add(ids[i] & 0xFFFFFFFFL)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int hashCode() {
+		// Same as List.hashCode over the Integer values
+		int hash = 1;
+		for (int id : ids) {
+			hash = 31 * hash + id;
+		}
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (other instanceof IdList) {
+			return Arrays.equals(ids, ((IdList) other).ids);
+		}
+		return super.equals(other);
+	}
+}
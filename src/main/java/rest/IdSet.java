@@ -0,0 +1,79 @@
+package rest;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Set of ids for uniqueness checks over large result lists. Whole numbers
+ * between 0 and 2^32 - 1, which covers the database ids of this API, go into
+ * an {@link IdBitmap}; other whole numbers into a {@link LongHashSet}. Neither
+ * boxes, so checking half a million ids takes a few milliseconds and well
+ * under a megabyte. Values that are not whole numbers, such as string keys,
+ * fall back to a HashSet, and null counts as one more value, so
+ * {@link #add(Object)} answers as {@code Set<Object>.add} would for a column
+ * of ids. Unlike a HashSet, an Integer and a Long with the same value are the
+ * same id.
+ */
+public class IdSet {
+
+	private final IdBitmap bitmap = new IdBitmap();
+	private LongHashSet wide;
+	private Set<Object> others;
+	private boolean containsNull;
+
+	/**
+	 * Adds an id.
+	 *
+	 * @param id - The id.
+	 * @return boolean - true when the id was not in the set yet.
+	 */
+	public boolean add(long id) {
+		if (id >>> 32 == 0) {
+			return bitmap.add((int) id);
+		}
+		if (wide == null) {
+			wide = new LongHashSet();
+		}
+		return wide.add(id);
+	}
+
+	/**
+	 * Adds a value as it appears in a row map.
+	 *
+	 * @param value - Integer or Long ids are added without boxing; any other value
+	 *              is compared by equals.
+	 * @return boolean - true when the value was not in the set yet.
+	 */
+	public boolean add(Object value) {
+		if (value instanceof Integer || value instanceof Long) {
+			return add(((Number) value).longValue());
+		}
+		if (value == null) {
+			if (containsNull) {
+				return false;
+			}
+			containsNull = true;
+			return true;
+		}
+		if (others == null) {
+			others = new HashSet<>();
+		}
+		return others.add(value);
+	}
+
+	public boolean contains(long id) {
+		if (id >>> 32 == 0) {
+			return bitmap.contains((int) id);
+		}
+		return wide != null && wide.contains(id);
+	}
+
+	public int size() {
+		return bitmap.size() + (wide == null ? 0 : wide.size()) + (others == null ? 0 : others.size())
+				+ (containsNull ? 1 : 0);
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+}
@@ -0,0 +1,135 @@
+package rest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * A response body parsed once into maps, lists and scalars, for repeated path
+ * lookups. response.jsonPath() parses the whole body again through Groovy for
+ * every get, so checking "Status", "Results" and "Results.StoreId" on one
+ * response used to cost three full parses; a JsonDocument parses with Jackson
+ * and answers each lookup by walking the tree with a {@link CompiledJsonPath}.
+ * Values have the types JsonPath returns, so results compare equal to
+ * jsonPath().get for the paths CompiledJsonPath supports.
+ */
+public class JsonDocument {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	private static final JsonDocument EMPTY = new JsonDocument(null);
+
+	private final Object root;
+
+	private JsonDocument(Object root) {
+		this.root = root;
+	}
+
+	/**
+	 * Parses a body.
+	 *
+	 * @param body - The JSON document; null or empty gives a document in which
+	 *             every path is null.
+	 * @return JsonDocument - The parsed document.
+	 */
+	public static JsonDocument parse(byte[] body) {
+		if (body == null || body.length == 0) {
+			return EMPTY;
+		}
+		try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+			JsonToken token = parser.nextToken();
+			return token == null ? EMPTY : new JsonDocument(readValue(parser, token));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public Object getRoot() {
+		return root;
+	}
+
+	public Object get(CompiledJsonPath path) {
+		return path.evaluate(root);
+	}
+
+	// Same as get(CompiledJsonPath.compile(path))
+	public Object get(String path) {
+		return get(CompiledJsonPath.compile(path));
+	}
+
+	// Renders maps and lists as Groovy does, like jsonPath().getString
+	public String getString(String path) {
+		Object value = get(path);
+		return value == null ? null : render(value);
+	}
+
+	// The value as a list: empty when absent, a single value wrapped
+	@SuppressWarnings("unchecked")
+	public <T> List<T> getList(String path) {
+		Object value = get(path);
+		if (value == null) {
+			return Collections.emptyList();
+		}
+		return value instanceof List ? (List<T>) value : Collections.singletonList((T) value);
+	}
+
+	static String render(Object value) {
+		return appendString(new StringBuilder(), value).toString();
+	}
+
+	private static StringBuilder appendString(StringBuilder text, Object value) {
+		if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			if (map.isEmpty()) {
+				return text.append("[:]");
+			}
+			text.append('[');
+			String separator = "";
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				text.append(separator).append(entry.getKey()).append(':');
+				appendString(text, entry.getValue());
+				separator = ", ";
+			}
+			return text.append(']');
+		}
+		if (value instanceof List) {
+			text.append('[');
+			String separator = "";
+			for (Object element : (List<?>) value) {
+				text.append(separator);
+				appendString(text, element);
+				separator = ", ";
+			}
+			return text.append(']');
+		}
+		return text.append(value);
+	}
+
+	private static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+		switch (token) {
+		case START_OBJECT:
+			Map<String, Object> object = new LinkedHashMap<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				object.put(name, readValue(parser, parser.nextToken()));
+			}
+			return object;
+		case START_ARRAY:
+			List<Object> array = new ArrayList<>();
+			JsonToken element;
+			while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+				array.add(readValue(parser, element));
+			}
+			return array;
+		default:
+			return JsonResultsReader.readScalar(parser, token);
+		}
+	}
+}
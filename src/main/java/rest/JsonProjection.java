@@ -0,0 +1,153 @@
+package rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Decodes only the JSON paths a check needs, for example "Status" and
+ * "Results[*].ItemId". The declared paths are compiled into a tree of field
+ * names; while the body is streamed, any field outside that tree is skipped by
+ * the tokenizer without being decoded into Strings, numbers or maps.
+ *
+ * A "[*]" suffix selects every element of an array. As with JsonPath, a plain
+ * segment that meets an array is applied to each element, so "Results.ItemId"
+ * and "Results[*].ItemId" are equivalent. A final segment without "[*]" that
+ * selects an array yields the array itself. One declared path may not be the
+ * prefix of another. Instances are immutable and can be shared between
+ * threads.
+ */
+public class JsonProjection {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private final List<String> paths;
+	private final Node root = new Node();
+
+	private JsonProjection(List<String> paths) {
+		this.paths = Collections.unmodifiableList(new ArrayList<>(paths));
+		for (int i = 0; i < paths.size(); i++) {
+			Node node = root;
+			String[] segments = paths.get(i).split("\\.");
+			for (String segment : segments) {
+				if (node.outputIndex >= 0) {
+					throw new IllegalArgumentException("Path " + paths.get(i) + " extends another declared path");
+				}
+				String name = segment.endsWith("[*]") ? segment.substring(0, segment.length() - 3) : segment;
+				node = node.children.computeIfAbsent(name, key -> new Node());
+			}
+			if (node.outputIndex >= 0 || !node.children.isEmpty()) {
+				throw new IllegalArgumentException("Path " + paths.get(i) + " overlaps another declared path");
+			}
+			node.outputIndex = i;
+			node.spread = segments[segments.length - 1].endsWith("[*]");
+		}
+	}
+
+	public static JsonProjection of(String... paths) {
+		return new JsonProjection(Arrays.asList(paths));
+	}
+
+	public List<String> getPaths() {
+		return paths;
+	}
+
+	/**
+	 * Streams the document and collects the values of every declared path.
+	 *
+	 * @param body - The JSON document; it is read to the end but not closed.
+	 * @return ProjectionResult - The values of each path in document order.
+	 */
+	public ProjectionResult decode(InputStream body) {
+		try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+			return decode(parser);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public ProjectionResult decode(byte[] body) {
+		try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+			return decode(parser);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private ProjectionResult decode(JsonParser parser) throws IOException {
+		List<List<Object>> values = new ArrayList<>(paths.size());
+		for (int i = 0; i < paths.size(); i++) {
+			values.add(new ArrayList<>());
+		}
+		JsonToken token = parser.nextToken();
+		if (token != null) {
+			visit(parser, token, root, values);
+		}
+		return new ProjectionResult(paths, values);
+	}
+
+	private void visit(JsonParser parser, JsonToken token, Node node, List<List<Object>> values) throws IOException {
+		if (token == JsonToken.START_ARRAY && (node.outputIndex < 0 || node.spread)) {
+			JsonToken element;
+			while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+				visit(parser, element, node, values);
+			}
+			return;
+		}
+		if (node.outputIndex >= 0) {
+			values.get(node.outputIndex).add(readValue(parser, token));
+			return;
+		}
+		if (token != JsonToken.START_OBJECT) {
+			return;
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			Node child = node.children.get(parser.getCurrentName());
+			JsonToken value = parser.nextToken();
+			if (child == null) {
+				parser.skipChildren();
+			} else {
+				visit(parser, value, child, values);
+			}
+		}
+	}
+
+	// Only reached for selected values, so nested structures are materialized
+	private Object readValue(JsonParser parser, JsonToken token) throws IOException {
+		switch (token) {
+		case START_OBJECT:
+			Map<String, Object> object = new LinkedHashMap<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				object.put(name, readValue(parser, parser.nextToken()));
+			}
+			return object;
+		case START_ARRAY:
+			List<Object> array = new ArrayList<>();
+			JsonToken element;
+			while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+				array.add(readValue(parser, element));
+			}
+			return array;
+		default:
+			return JsonResultsReader.readScalar(parser, token);
+		}
+	}
+
+	private static class Node {
+		private final Map<String, Node> children = new HashMap<>();
+		private int outputIndex = -1;
+		private boolean spread;
+	}
+}
@@ -0,0 +1,219 @@
+package rest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Walks a response body token by token and hands out the rows of one array,
+ * such as "Results" or "Results.BillItems", one at a time. Only the current
+ * row is held in memory, so peak heap stays flat however many rows the array
+ * holds.
+ *
+ * Top-level scalar fields such as "Status" are captured wherever they appear
+ * in the document, including after the array; they are complete once
+ * {@link #hasNext()} has returned false. Numbers are decoded to the same types
+ * JsonPath returns: Integer or Long for whole numbers, Float or Double for
+ * decimals.
+ */
+public class JsonResultsReader implements Iterator<Map<String, Object>>, Closeable {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private final JsonParser parser;
+	private final String[] arrayPath;
+	private final Map<String, Object> topLevelFields = new LinkedHashMap<>();
+	private boolean positioned;
+	private boolean rowPending;
+	private boolean exhausted;
+	private long rowCount;
+
+	public JsonResultsReader(InputStream body) {
+		this(body, "Results");
+	}
+
+	/**
+	 * @param body      - The JSON document; closed together with this reader.
+	 * @param arrayPath - Dot separated field names leading to the array to
+	 *                  stream, for example "Results.BillItems".
+	 */
+	public JsonResultsReader(InputStream body, String arrayPath) {
+		try {
+			this.parser = JSON_FACTORY.createParser(body);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.arrayPath = arrayPath.split("\\.");
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (rowPending) {
+			return true;
+		}
+		if (exhausted) {
+			return false;
+		}
+		try {
+			if (!positioned) {
+				positioned = true;
+				if (parser.nextToken() != JsonToken.START_OBJECT || !seekArray(0)) {
+					finish();
+					return false;
+				}
+			}
+			JsonToken token = parser.nextToken();
+			if (token == JsonToken.START_OBJECT) {
+				rowPending = true;
+				return true;
+			}
+			if (token != JsonToken.END_ARRAY) {
+				throw new IllegalStateException("Expected an object in " + String.join(".", arrayPath) + " but found "
+						+ token + " at " + parser.getCurrentLocation());
+			}
+			finish();
+			return false;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public Map<String, Object> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		try {
+			rowPending = false;
+			rowCount++;
+			return readObject();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Top-level scalar fields seen so far, e.g. Status and ErrorMessage
+	public Map<String, Object> getTopLevelFields() {
+		return Collections.unmodifiableMap(topLevelFields);
+	}
+
+	public String getStatus() {
+		Object status = topLevelFields.get("Status");
+		return status == null ? null : status.toString();
+	}
+
+	// Number of rows handed out so far
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		parser.close();
+	}
+
+	// Scans the current object for arrayPath[depth], skipping everything else
+	private boolean seekArray(int depth) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			if (name.equals(arrayPath[depth])) {
+				if (depth == arrayPath.length - 1 && value == JsonToken.START_ARRAY) {
+					return true;
+				}
+				if (depth < arrayPath.length - 1 && value == JsonToken.START_OBJECT) {
+					return seekArray(depth + 1);
+				}
+			}
+			if (depth == 0 && value.isScalarValue()) {
+				topLevelFields.put(name, readScalar(value));
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return false;
+	}
+
+	// Consumes the rest of the document so trailing top-level fields are captured
+	private void finish() throws IOException {
+		exhausted = true;
+		JsonToken token;
+		while ((token = parser.nextToken()) != null) {
+			if (token == JsonToken.FIELD_NAME && parser.getParsingContext().getParent().inRoot()) {
+				String name = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				if (value.isScalarValue()) {
+					topLevelFields.put(name, readScalar(value));
+				} else {
+					parser.skipChildren();
+				}
+			} else if (token.isStructStart()) {
+				parser.skipChildren();
+			}
+		}
+	}
+
+	private Map<String, Object> readObject() throws IOException {
+		Map<String, Object> object = new LinkedHashMap<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			object.put(name, readValue(parser.nextToken()));
+		}
+		return object;
+	}
+
+	private List<Object> readArray() throws IOException {
+		List<Object> array = new ArrayList<>();
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+			array.add(readValue(token));
+		}
+		return array;
+	}
+
+	private Object readValue(JsonToken token) throws IOException {
+		switch (token) {
+		case START_OBJECT:
+			return readObject();
+		case START_ARRAY:
+			return readArray();
+		default:
+			return readScalar(token);
+		}
+	}
+
+	private Object readScalar(JsonToken token) throws IOException {
+		return readScalar(parser, token);
+	}
+
+	// Decodes a scalar token to the type JsonPath would return for it
+	static Object readScalar(JsonParser parser, JsonToken token) throws IOException {
+		switch (token) {
+		case VALUE_STRING:
+			return parser.getText();
+		case VALUE_NUMBER_INT:
+			return parser.getNumberValue();
+		case VALUE_NUMBER_FLOAT:
+			double value = parser.getDoubleValue();
+			return Math.abs(value) <= Float.MAX_VALUE ? (Object) Float.valueOf((float) value) : (Object) value;
+		case VALUE_TRUE:
+			return Boolean.TRUE;
+		case VALUE_FALSE:
+			return Boolean.FALSE;
+		default:
+			return null;
+		}
+	}
+}
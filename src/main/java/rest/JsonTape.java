@@ -0,0 +1,764 @@
+package rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import restConfig.ConfigManager;
+
+/**
+ * Structural index over the raw bytes of a JSON body, in the style of the
+ * simdjson tape. One pass over the buffer records every token as one long:
+ * its type, and either the byte offset of a scalar or, for an object or array,
+ * the number of fields or elements and the tape position just past its last
+ * descendant. Nothing is decoded while indexing; a String, number or map is
+ * only built when a check reads that value.
+ *
+ * Tokens are addressed by their tape position ("node"), with -1 for a missing
+ * value. {@link #field(int, String)} compares field names against the raw
+ * bytes, {@link #element(int, int)} jumps over whole rows using the recorded
+ * ends, and the typed accessors parse numbers and compare text in place, so
+ * checking the rows of a 100 MB body allocates next to nothing beyond the tape
+ * itself (eight bytes per token). The buffer can be direct, keeping the body
+ * off the Java heap; with json.tape.direct=true
+ * {@link ApiUtil#getIndexed(String)} reads responses into one.
+ *
+ * The indexer checks the grammar as it goes: brackets, field names, colons and
+ * commas, the syntax of numbers and literals, and that there is exactly one
+ * top-level value. It does not check string escapes or UTF-8. Instances are
+ * safe to share between threads once built, as long as nothing writes to the
+ * buffer.
+ */
+public final class JsonTape {
+
+	private static final boolean DIRECT_ENABLED = ConfigManager.getBooleanProperty("json.tape.direct", false);
+
+	private static final int OBJECT = 1;
+	private static final int ARRAY = 2;
+	private static final int STRING = 3;
+	private static final int NUMBER = 4;
+	private static final int TRUE = 5;
+	private static final int FALSE = 6;
+	private static final int NULL = 7;
+
+	private static final int TYPE_SHIFT = 60;
+	private static final long OFFSET_MASK = (1L << TYPE_SHIFT) - 1;
+	private static final int MAX_COUNT = (1 << 28) - 1;
+	private static final int MAX_BUFFER = Integer.MAX_VALUE - 8;
+
+	private final ByteBuffer buffer;
+	private final long[] tape;
+	// Element positions of arrays read by index, built on first use
+	private final Map<Integer, int[]> elementIndex = new HashMap<>();
+
+	private JsonTape(ByteBuffer buffer, long[] tape) {
+		this.buffer = buffer;
+		this.tape = tape;
+	}
+
+	// A tape without tokens, for a response that has no body
+	static JsonTape empty() {
+		return new JsonTape(ByteBuffer.allocate(0), new long[0]);
+	}
+
+	public static boolean isDirectEnabled() {
+		return DIRECT_ENABLED;
+	}
+
+	/**
+	 * Indexes a body without copying it.
+	 *
+	 * @param body - The bytes between position and limit; the buffer's position
+	 *             is not changed and its content must not change afterwards.
+	 * @return JsonTape - The index over those bytes.
+	 * @throws IllegalArgumentException - When the bytes are not one well-formed
+	 *                                  JSON value, or hold only whitespace.
+	 */
+	public static JsonTape index(ByteBuffer body) {
+		ByteBuffer buffer = body.slice();
+		return new JsonTape(buffer, new Indexer(buffer).run());
+	}
+
+	/**
+	 * Reads a body into a buffer and indexes it.
+	 *
+	 * @param body           - The JSON document; read to the end and closed.
+	 * @param expectedLength - Content length if known, or -1; sizes the buffer so
+	 *                       that it does not have to grow.
+	 * @param direct         - Whether to read into a direct (off-heap) buffer.
+	 * @return JsonTape - The index over the bytes read, without tokens when the
+	 *         body was empty.
+	 */
+	public static JsonTape read(InputStream body, long expectedLength, boolean direct) {
+		int capacity = expectedLength >= 0 ? (int) Math.min(expectedLength + 1, MAX_BUFFER) : 64 * 1024;
+		ByteBuffer buffer = allocate(capacity, direct);
+		try (ReadableByteChannel channel = Channels.newChannel(body)) {
+			while (true) {
+				if (!buffer.hasRemaining()) {
+					buffer = grow(buffer, direct);
+				}
+				if (channel.read(buffer) < 0) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		buffer.flip();
+		return buffer.hasRemaining() ? index(buffer) : empty();
+	}
+
+	private static ByteBuffer allocate(int capacity, boolean direct) {
+		return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+	}
+
+	private static ByteBuffer grow(ByteBuffer buffer, boolean direct) {
+		if (buffer.capacity() >= MAX_BUFFER) {
+			throw new IllegalStateException("JSON body larger than " + MAX_BUFFER + " bytes");
+		}
+		ByteBuffer larger = allocate((int) Math.min((long) buffer.capacity() * 2, MAX_BUFFER), direct);
+		buffer.flip();
+		return larger.put(buffer);
+	}
+
+	// Read-only view of the indexed bytes
+	public ByteBuffer getBuffer() {
+		return buffer.asReadOnlyBuffer();
+	}
+
+	public int getTokenCount() {
+		return tape.length;
+	}
+
+	// The top-level value, or -1 for a response without a body
+	public int root() {
+		return tape.length == 0 ? -1 : 0;
+	}
+
+	public boolean isObject(int node) {
+		return type(node) == OBJECT;
+	}
+
+	public boolean isArray(int node) {
+		return type(node) == ARRAY;
+	}
+
+	// True for a JSON null and for a missing value (-1)
+	public boolean isNull(int node) {
+		return node < 0 || type(node) == NULL;
+	}
+
+	// Number of elements of an array or fields of an object, 0 for anything else
+	public int length(int node) {
+		int type = type(node);
+		return type == OBJECT || type == ARRAY ? (int) (tape[node] >>> 32) & MAX_COUNT : 0;
+	}
+
+	/**
+	 * Looks up a field of an object by comparing the raw key bytes. When a key
+	 * repeats, the last occurrence wins, as in {@link JsonDocument} and
+	 * JsonPath.
+	 *
+	 * @param object - An object node.
+	 * @param name   - Field name.
+	 * @return int - The value node, or -1 when object is not an object or has no
+	 *         such field.
+	 */
+	public int field(int object, String name) {
+		return field(object, name.getBytes(StandardCharsets.UTF_8));
+	}
+
+	int field(int object, byte[] name) {
+		if (type(object) != OBJECT) {
+			return -1;
+		}
+		int end = end(object);
+		int value = -1;
+		for (int key = object + 1; key < end; key = next(key + 1)) {
+			if (keyEquals(key, name)) {
+				value = key + 1;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Picks an element of an array. The first indexed read of an array records
+	 * where each of its elements starts, so reading rows by index stays cheap.
+	 *
+	 * @param array - An array node.
+	 * @param index - Position, counted from the end when negative.
+	 * @return int - The element node, or -1 when out of range or not an array.
+	 */
+	public int element(int array, int index) {
+		int length = length(array);
+		int position = index < 0 ? length + index : index;
+		if (type(array) != ARRAY || position < 0 || position >= length) {
+			return -1;
+		}
+		if (position == 0) {
+			return array + 1;
+		}
+		return elements(array)[position];
+	}
+
+	// First element of an array, or -1; continue with nextElement
+	public int firstElement(int array) {
+		return length(array) > 0 && type(array) == ARRAY ? array + 1 : -1;
+	}
+
+	// The element after the given one, or -1 after the last
+	public int nextElement(int array, int element) {
+		int next = next(element);
+		return next < end(array) ? next : -1;
+	}
+
+	/**
+	 * Follows a path of field names and [n] subscripts to a single node, for
+	 * example "Results[3].ItemId". Unlike {@link #get(String)}, a field name is
+	 * not applied to each element of an array.
+	 *
+	 * @param path - Path in the syntax of {@link CompiledJsonPath}.
+	 * @return int - The node, or -1 when the path does not lead to one.
+	 */
+	public int node(String path) {
+		return CompiledJsonPath.compile(path).locate(this);
+	}
+
+	/**
+	 * Evaluates a path with the rules of {@link JsonDocument#get(String)},
+	 * building only the values it selects.
+	 *
+	 * @param path - Path in the syntax of {@link CompiledJsonPath}.
+	 * @return Object - The selected value or values, or null.
+	 */
+	public Object get(String path) {
+		return CompiledJsonPath.compile(path).evaluate(this);
+	}
+
+	public String getString(String path) {
+		Object value = get(path);
+		return value == null ? null : JsonDocument.render(value);
+	}
+
+	/**
+	 * Builds the value of a node with the types JsonPath returns.
+	 *
+	 * @param node - Any node.
+	 * @return Object - String, Integer, Long, BigInteger, Float, Double, Boolean,
+	 *         a map or list for objects and arrays, or null.
+	 */
+	public Object value(int node) {
+		switch (type(node)) {
+		case OBJECT:
+			Map<String, Object> object = new LinkedHashMap<>();
+			for (int key = node + 1; key < end(node); key = next(key + 1)) {
+				object.put(stringValue(key), value(key + 1));
+			}
+			return object;
+		case ARRAY:
+			List<Object> array = new ArrayList<>(length(node));
+			for (int element = firstElement(node); element >= 0; element = nextElement(node, element)) {
+				array.add(value(element));
+			}
+			return array;
+		case STRING:
+			return decodeString(offset(node));
+		case NUMBER:
+			return numberValue(node);
+		case TRUE:
+			return Boolean.TRUE;
+		case FALSE:
+			return Boolean.FALSE;
+		default:
+			return null;
+		}
+	}
+
+	// Text of a string node; other values as getString renders them
+	public String stringValue(int node) {
+		if (type(node) == STRING) {
+			return decodeString(offset(node));
+		}
+		Object value = value(node);
+		return value == null ? null : JsonDocument.render(value);
+	}
+
+	/**
+	 * Compares a string node with a text without decoding it.
+	 *
+	 * @param node - Any node.
+	 * @param text - The expected text.
+	 * @return boolean - true when node is a string equal to text.
+	 */
+	public boolean textEquals(int node, String text) {
+		return type(node) == STRING && keyEquals(node, text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public boolean booleanValue(int node) {
+		int type = type(node);
+		if (type != TRUE && type != FALSE) {
+			throw new IllegalArgumentException("Token " + node + " is not a boolean");
+		}
+		return type == TRUE;
+	}
+
+	public int intValue(int node) {
+		long value = longValue(node);
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw new ArithmeticException("Token " + node + " does not fit in an int: " + value);
+		}
+		return (int) value;
+	}
+
+	// Parses a whole number in place; decimals are truncated
+	public long longValue(int node) {
+		int start = numberStart(node);
+		int position = start;
+		boolean negative = buffer.get(position) == '-';
+		if (negative) {
+			position++;
+		}
+		long value = 0;
+		int limit = buffer.limit();
+		for (; position < limit; position++) {
+			byte b = buffer.get(position);
+			if (b < '0' || b > '9') {
+				break;
+			}
+			if (position - start >= 18) {
+				return ((Number) numberValue(node)).longValue();
+			}
+			value = value * 10 + (b - '0');
+		}
+		if (position < limit && !isDelimiter(buffer.get(position))) {
+			return (long) doubleValue(node);
+		}
+		return negative ? -value : value;
+	}
+
+	public double doubleValue(int node) {
+		return Double.parseDouble(numberText(numberStart(node)));
+	}
+
+	private int numberStart(int node) {
+		if (type(node) != NUMBER) {
+			throw new IllegalArgumentException("Token " + node + " is not a number");
+		}
+		return offset(node);
+	}
+
+	// Same types as JsonResultsReader.readScalar
+	private Object numberValue(int node) {
+		String text = numberText(offset(node));
+		if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+			double value = Double.parseDouble(text);
+			return Math.abs(value) <= Float.MAX_VALUE ? (Object) Float.valueOf((float) value) : (Object) value;
+		}
+		BigInteger value = new BigInteger(text);
+		if (value.bitLength() < 32) {
+			return value.intValue();
+		}
+		return value.bitLength() < 64 ? (Object) value.longValue() : (Object) value;
+	}
+
+	private String numberText(int start) {
+		int end = start;
+		while (end < buffer.limit() && !isDelimiter(buffer.get(end))) {
+			end++;
+		}
+		StringBuilder text = new StringBuilder(end - start);
+		for (int position = start; position < end; position++) {
+			text.append((char) buffer.get(position));
+		}
+		return text.toString();
+	}
+
+	// Compares the string starting at a quote with UTF-8 bytes
+	private boolean keyEquals(int node, byte[] name) {
+		int start = offset(node) + 1;
+		if (start + name.length >= buffer.limit()) {
+			return false;
+		}
+		for (int i = 0; i < name.length; i++) {
+			byte b = buffer.get(start + i);
+			if (b == '\\') {
+				return decodeString(start - 1).equals(new String(name, StandardCharsets.UTF_8));
+			}
+			if (b != name[i]) {
+				return false;
+			}
+		}
+		return buffer.get(start + name.length) == '"';
+	}
+
+	private String decodeString(int quote) {
+		int start = quote + 1;
+		int end = start;
+		boolean escaped = false;
+		byte b;
+		while ((b = buffer.get(end)) != '"') {
+			if (b == '\\') {
+				escaped = true;
+				end++;
+			}
+			end++;
+		}
+		if (!escaped) {
+			return utf8(start, end);
+		}
+		StringBuilder text = new StringBuilder(end - start);
+		int run = start;
+		for (int position = start; position < end; position++) {
+			if (buffer.get(position) != '\\') {
+				continue;
+			}
+			text.append(utf8(run, position));
+			char escape = (char) buffer.get(++position);
+			switch (escape) {
+			case 'b':
+				text.append('\b');
+				break;
+			case 'f':
+				text.append('\f');
+				break;
+			case 'n':
+				text.append('\n');
+				break;
+			case 'r':
+				text.append('\r');
+				break;
+			case 't':
+				text.append('\t');
+				break;
+			case 'u':
+				text.append((char) Integer.parseInt(utf8(position + 1, position + 5), 16));
+				position += 4;
+				break;
+			default:
+				text.append(escape);
+			}
+			run = position + 1;
+		}
+		return text.append(utf8(run, end)).toString();
+	}
+
+	private String utf8(int start, int end) {
+		if (buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+		}
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = buffer.get(start + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private int[] elements(int array) {
+		synchronized (elementIndex) {
+			int[] positions = elementIndex.get(array);
+			if (positions == null) {
+				positions = new int[length(array)];
+				int index = 0;
+				for (int element = firstElement(array); element >= 0; element = nextElement(array, element)) {
+					positions[index++] = element;
+				}
+				elementIndex.put(array, positions);
+			}
+			return positions;
+		}
+	}
+
+	private int type(int node) {
+		return node < 0 || node >= tape.length ? 0 : (int) (tape[node] >>> TYPE_SHIFT);
+	}
+
+	private int offset(int node) {
+		return (int) (tape[node] & OFFSET_MASK);
+	}
+
+	// Tape position just past the last descendant of a container
+	private int end(int node) {
+		return (int) tape[node];
+	}
+
+	// The node after this one and all its descendants
+	private int next(int node) {
+		int type = type(node);
+		return type == OBJECT || type == ARRAY ? end(node) : node + 1;
+	}
+
+	private static boolean isDelimiter(byte b) {
+		return b == ',' || b == '}' || b == ']' || b == ':' || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+	}
+
+	// Single pass over the bytes that writes the tape and checks the grammar
+	private static final class Indexer {
+		// What the next token may be
+		private static final int VALUE = 0;
+		private static final int FIRST_KEY = 1;
+		private static final int KEY = 2;
+		private static final int COLON = 3;
+		private static final int FIRST_ELEMENT = 4;
+		private static final int SEPARATOR = 5;
+
+		private final ByteBuffer buffer;
+		private final int limit;
+		private long[] tape;
+		private int size;
+		private int[] open = new int[32];
+		private int[] counts = new int[32];
+		private int depth;
+		private int expect = VALUE;
+
+		Indexer(ByteBuffer buffer) {
+			this.buffer = buffer;
+			this.limit = buffer.limit();
+			this.tape = new long[Math.max(16, limit / 16)];
+		}
+
+		long[] run() {
+			int position = 0;
+			while (position < limit) {
+				byte b = buffer.get(position);
+				switch (b) {
+				case ' ':
+				case '\t':
+				case '\n':
+				case '\r':
+					position++;
+					break;
+				case ':':
+					if (expect != COLON) {
+						throw malformed("unexpected ':'", position);
+					}
+					expect = VALUE;
+					position++;
+					break;
+				case ',':
+					if (expect != SEPARATOR || depth == 0) {
+						throw malformed("unexpected ','", position);
+					}
+					expect = containerType() == OBJECT ? KEY : VALUE;
+					position++;
+					break;
+				case '{':
+				case '[':
+					startValue(position);
+					push(b == '{' ? OBJECT : ARRAY);
+					position++;
+					break;
+				case '}':
+				case ']':
+					pop(b == '}' ? OBJECT : ARRAY, position);
+					position++;
+					break;
+				case '"':
+					if (expect == FIRST_KEY || expect == KEY) {
+						count(position);
+						expect = COLON;
+					} else {
+						startValue(position);
+					}
+					append(word(STRING, position));
+					position = skipString(position);
+					break;
+				default:
+					startValue(position);
+					int type = literalType(b, position);
+					append(word(type, position));
+					position = type == NUMBER ? skipNumber(position) : skipLiteral(position);
+				}
+			}
+			if (depth > 0) {
+				throw malformed("unclosed " + (containerType() == OBJECT ? "object" : "array"), limit);
+			}
+			if (size == 0) {
+				throw malformed("no value", limit);
+			}
+			return Arrays.copyOf(tape, size);
+		}
+
+		private void startValue(int position) {
+			if (expect != VALUE && expect != FIRST_ELEMENT) {
+				throw malformed(depth == 0 ? "more than one top-level value" : expectation(), position);
+			}
+			if (depth > 0 && containerType() == ARRAY) {
+				count(position);
+			}
+			expect = SEPARATOR;
+		}
+
+		// Counts a field or element of the innermost container
+		private void count(int position) {
+			if (++counts[depth - 1] > MAX_COUNT) {
+				throw malformed("too many " + (containerType() == OBJECT ? "fields" : "elements"), position);
+			}
+		}
+
+		private String expectation() {
+			switch (expect) {
+			case COLON:
+				return "expected ':'";
+			case SEPARATOR:
+				return "expected ',' or '" + (containerType() == OBJECT ? '}' : ']') + "'";
+			default:
+				return "expected a field name";
+			}
+		}
+
+		private void push(int type) {
+			if (depth == open.length) {
+				open = Arrays.copyOf(open, depth * 2);
+				counts = Arrays.copyOf(counts, depth * 2);
+			}
+			open[depth] = size;
+			counts[depth] = 0;
+			depth++;
+			append(word(type, 0));
+			expect = type == OBJECT ? FIRST_KEY : FIRST_ELEMENT;
+		}
+
+		private void pop(int type, int position) {
+			if (depth == 0 || containerType() != type) {
+				throw malformed("unbalanced '" + (char) buffer.get(position) + "'", position);
+			}
+			if (expect == COLON) {
+				throw malformed("expected ':'", position);
+			}
+			if (expect == VALUE && type == OBJECT) {
+				throw malformed("missing value", position);
+			}
+			if (expect == KEY || expect == VALUE) {
+				throw malformed("trailing ','", position);
+			}
+			depth--;
+			tape[open[depth]] = (long) type << TYPE_SHIFT | (long) counts[depth] << 32 | size;
+			expect = SEPARATOR;
+		}
+
+		private int containerType() {
+			return (int) (tape[open[depth - 1]] >>> TYPE_SHIFT);
+		}
+
+		private void append(long word) {
+			if (size == tape.length) {
+				tape = Arrays.copyOf(tape, size + (size >> 1));
+			}
+			tape[size++] = word;
+		}
+
+		private int skipString(int quote) {
+			int position = quote + 1;
+			while (position < limit) {
+				byte b = buffer.get(position);
+				if (b == '"') {
+					return position + 1;
+				}
+				position += b == '\\' ? 2 : 1;
+			}
+			throw malformed("unterminated string", quote);
+		}
+
+		// -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?
+		private int skipNumber(int start) {
+			int position = start;
+			if (byteAt(position) == '-') {
+				position++;
+			}
+			if (byteAt(position) == '0') {
+				position++;
+			} else {
+				position = skipDigits(position, start);
+			}
+			if (byteAt(position) == '.') {
+				position = skipDigits(position + 1, start);
+			}
+			if (byteAt(position) == 'e' || byteAt(position) == 'E') {
+				position++;
+				if (byteAt(position) == '+' || byteAt(position) == '-') {
+					position++;
+				}
+				position = skipDigits(position, start);
+			}
+			if (position < limit && !isDelimiter(buffer.get(position))) {
+				throw malformed("invalid number", start);
+			}
+			return position;
+		}
+
+		// At least one digit
+		private int skipDigits(int position, int numberStart) {
+			if (!isDigit(byteAt(position))) {
+				throw malformed("invalid number", numberStart);
+			}
+			while (isDigit(byteAt(position))) {
+				position++;
+			}
+			return position;
+		}
+
+		private int byteAt(int position) {
+			return position < limit ? buffer.get(position) : -1;
+		}
+
+		private static boolean isDigit(int b) {
+			return b >= '0' && b <= '9';
+		}
+
+		private int skipLiteral(int start) {
+			int position = start;
+			while (position < limit && !isDelimiter(buffer.get(position))) {
+				position++;
+			}
+			return position;
+		}
+
+		private int literalType(byte first, int position) {
+			if (first == '-' || (first >= '0' && first <= '9')) {
+				return NUMBER;
+			}
+			if (matches(position, "true")) {
+				return TRUE;
+			}
+			if (matches(position, "false")) {
+				return FALSE;
+			}
+			if (matches(position, "null")) {
+				return NULL;
+			}
+			throw malformed("unexpected character '" + (char) first + "'", position);
+		}
+
+		private boolean matches(int position, String literal) {
+			if (position + literal.length() > limit) {
+				return false;
+			}
+			for (int i = 0; i < literal.length(); i++) {
+				if (buffer.get(position + i) != literal.charAt(i)) {
+					return false;
+				}
+			}
+			return position + literal.length() == limit || isDelimiter(buffer.get(position + literal.length()));
+		}
+
+		private static long word(int type, int offset) {
+			return (long) type << TYPE_SHIFT | offset;
+		}
+
+		private static IllegalArgumentException malformed(String problem, int position) {
+			return new IllegalArgumentException("Malformed JSON at byte " + position + ": " + problem);
+		}
+	}
+}
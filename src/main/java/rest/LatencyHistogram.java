@@ -0,0 +1,106 @@
+package rest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free latency histogram in the style of HdrHistogram.
+ * Values are recorded in microseconds into log-linear buckets: exact below
+ * 128 µs, then 64 buckets per power of two, which keeps every reported value
+ * within 1.6% of the true one. Values from 0 up to about 38 hours fit in 2,048
+ * counters (16 KB); larger values land in the last bucket. Recording is a
+ * handful of atomic increments, so any number of threads can record
+ * concurrently without a lock.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+	private static final int MAX_SHIFT = 30;
+	private static final int BUCKETS = SUB_BUCKET_COUNT + MAX_SHIFT * SUB_BUCKET_HALF;
+	private static final long MAX_TRACKABLE_MICROS = ((long) SUB_BUCKET_COUNT << MAX_SHIFT) - 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong totalMicros = new AtomicLong();
+	private final AtomicLong maxMicros = new AtomicLong();
+	private final AtomicLong firstStartNanos = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong lastEndNanos = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * @param startNanos - System.nanoTime() when the request was sent.
+	 * @param endNanos   - System.nanoTime() when the last byte was received.
+	 */
+	public void record(long startNanos, long endNanos) {
+		long micros = Math.max(0, (endNanos - startNanos) / 1000);
+		counts.incrementAndGet(indexOf(micros));
+		totalCount.incrementAndGet();
+		totalMicros.addAndGet(micros);
+		maxMicros.accumulateAndGet(micros, Math::max);
+		firstStartNanos.accumulateAndGet(startNanos, Math::min);
+		lastEndNanos.accumulateAndGet(endNanos, Math::max);
+	}
+
+	/**
+	 * Takes a snapshot of the histogram without stopping recorders. A recording
+	 * that races with the snapshot may be missing from it.
+	 *
+	 * @param path - The endpoint the histogram belongs to.
+	 * @return LatencyStatistics - Percentiles, max and throughput; throughput is 0
+	 *         until at least two requests were recorded.
+	 */
+	public LatencyStatistics getStatistics(String path) {
+		long[] snapshot = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+		long elapsedNanos = lastEndNanos.get() - firstStartNanos.get();
+		// A single request spans no interval between requests, so it has no rate
+		double throughput = count < 2 || elapsedNanos <= 0 ? 0 : count * 1_000_000_000.0 / elapsedNanos;
+		double mean = totalCount.get() == 0 ? 0 : (double) totalMicros.get() / totalCount.get();
+		long max = Math.min(maxMicros.get(), MAX_TRACKABLE_MICROS);
+		// Bucket bounds can overshoot the exact maximum, which is never exceeded
+		return new LatencyStatistics(path, count, Math.min(max, valueAtPercentile(snapshot, count, 50)),
+				Math.min(max, valueAtPercentile(snapshot, count, 90)),
+				Math.min(max, valueAtPercentile(snapshot, count, 99)), max, mean, throughput);
+	}
+
+	// Highest value equivalent to the bucket holding the percentile
+	private static long valueAtPercentile(long[] snapshot, long count, double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			seen += snapshot[i];
+			if (seen >= target) {
+				return highestEquivalentValue(i);
+			}
+		}
+		return highestEquivalentValue(snapshot.length - 1);
+	}
+
+	static int indexOf(long micros) {
+		if (micros < SUB_BUCKET_COUNT) {
+			return (int) micros;
+		}
+		if (micros > MAX_TRACKABLE_MICROS) {
+			return BUCKETS - 1;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(micros) - (SUB_BUCKET_BITS - 1);
+		return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (int) ((micros >> shift) - SUB_BUCKET_HALF);
+	}
+
+	static long highestEquivalentValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+		long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,131 @@
+package rest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.protocol.HttpContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import restConfig.ConfigManager;
+
+/**
+ * One {@link LatencyHistogram} per route template (the endpoint path with ids
+ * replaced by {id}, see {@link TransferMetrics}), fed with the time from
+ * sending a request to receiving the last byte of its body. The start is taken
+ * by a request interceptor once the connection is ready, and the end by
+ * {@link TransferMetrics} when the body stream is exhausted, so the time covers
+ * streamed bodies as well and excludes pool waits and connection setup.
+ * Responses served by {@link ResponseCache} never reach the network and are
+ * not recorded.
+ */
+public class LatencyMetrics {
+
+	private static final boolean LATENCY_ENABLED = ConfigManager.getBooleanProperty("latency.enabled", true);
+	private static final String REPORT_FILE = ConfigManager.getProperty("latency.report.file",
+			"target/latency-histograms.json");
+
+	static final String START_NANOS = "rest.latency.startNanos";
+
+	private static final ConcurrentMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+	private LatencyMetrics() {
+	}
+
+	// Stamps the send time on the HttpContext of every request
+	public static HttpRequestInterceptor requestInterceptor() {
+		return (request, context) -> context.setAttribute(START_NANOS, System.nanoTime());
+	}
+
+	public static boolean isLatencyEnabled() {
+		return LATENCY_ENABLED;
+	}
+
+	static void record(String path, HttpContext context, long endNanos) {
+		Object startNanos = context.getAttribute(START_NANOS);
+		if (startNanos instanceof Long) {
+			record(path, (Long) startNanos, endNanos);
+		}
+	}
+
+	// For transports that time the request themselves
+	static void record(String path, long startNanos, long endNanos) {
+		if (LATENCY_ENABLED) {
+			HISTOGRAMS.computeIfAbsent(path, key -> new LatencyHistogram()).record(startNanos, endNanos);
+		}
+	}
+
+	/**
+	 * Takes a snapshot of every histogram.
+	 *
+	 * @return Map - Statistics keyed by route template, sorted by template.
+	 */
+	public static Map<String, LatencyStatistics> getStatistics() {
+		Map<String, LatencyStatistics> statistics = new TreeMap<>();
+		for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+			statistics.put(entry.getKey(), entry.getValue().getStatistics(entry.getKey()));
+		}
+		return statistics;
+	}
+
+	public static void reset() {
+		HISTOGRAMS.clear();
+	}
+
+	public static String[][] toTable() {
+		return toTable(getStatistics().values());
+	}
+
+	// Rows for MarkupHelper.createTable, header first
+	public static String[][] toTable(Collection<LatencyStatistics> statistics) {
+		List<String[]> rows = new ArrayList<>();
+		rows.add(new String[] { "Endpoint", "Count", "p50 ms", "p90 ms", "p99 ms", "Max ms", "Req/s" });
+		for (LatencyStatistics stats : statistics) {
+			rows.add(new String[] { stats.getPath(), String.valueOf(stats.getCount()),
+					String.format("%.1f", stats.getP50Millis()), String.format("%.1f", stats.getP90Millis()),
+					String.format("%.1f", stats.getP99Millis()), String.format("%.1f", stats.getMaxMillis()),
+					stats.getCount() < 2 ? "-" : String.format("%.2f", stats.getThroughput()) });
+		}
+		return rows.toArray(new String[0][]);
+	}
+
+	public static File writeReport() throws IOException {
+		return writeReport(new File(REPORT_FILE));
+	}
+
+	/**
+	 * Writes the statistics as JSON, one object per route template.
+	 *
+	 * @param file - The file to write; missing parent directories are created.
+	 * @return File - The file written.
+	 */
+	public static File writeReport(File file) throws IOException {
+		Map<String, Object> report = new LinkedHashMap<>();
+		for (LatencyStatistics stats : getStatistics().values()) {
+			Map<String, Object> endpoint = new LinkedHashMap<>();
+			endpoint.put("count", stats.getCount());
+			endpoint.put("p50Ms", stats.getP50Millis());
+			endpoint.put("p90Ms", stats.getP90Millis());
+			endpoint.put("p99Ms", stats.getP99Millis());
+			endpoint.put("maxMs", stats.getMaxMillis());
+			endpoint.put("meanMs", stats.getMeanMillis());
+			endpoint.put("throughputPerSec", stats.getThroughput());
+			report.put(stats.getPath(), endpoint);
+		}
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs()) {
+			throw new IOException("Could not create " + parent);
+		}
+		new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, report);
+		return file;
+	}
+}
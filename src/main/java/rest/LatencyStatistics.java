@@ -0,0 +1,64 @@
+package rest;
+
+public class LatencyStatistics {
+	private final String path;
+	private final long count;
+	private final long p50Micros;
+	private final long p90Micros;
+	private final long p99Micros;
+	private final long maxMicros;
+	private final double meanMicros;
+	private final double throughput;
+
+	public LatencyStatistics(String path, long count, long p50Micros, long p90Micros, long p99Micros,
+			long maxMicros, double meanMicros, double throughput) {
+		this.path = path;
+		this.count = count;
+		this.p50Micros = p50Micros;
+		this.p90Micros = p90Micros;
+		this.p99Micros = p99Micros;
+		this.maxMicros = maxMicros;
+		this.meanMicros = meanMicros;
+		this.throughput = throughput;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getP50Millis() {
+		return p50Micros / 1000.0;
+	}
+
+	public double getP90Millis() {
+		return p90Micros / 1000.0;
+	}
+
+	public double getP99Millis() {
+		return p99Micros / 1000.0;
+	}
+
+	public double getMaxMillis() {
+		return maxMicros / 1000.0;
+	}
+
+	public double getMeanMillis() {
+		return meanMicros / 1000.0;
+	}
+
+	// Requests per second between the first send and the last completion; 0
+	// with fewer than two requests
+	public double getThroughput() {
+		return throughput;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%-48s count=%d p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms throughput=%.2f/s", path,
+				count, getP50Millis(), getP90Millis(), getP99Millis(), getMaxMillis(), throughput);
+	}
+}
@@ -0,0 +1,306 @@
+package rest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import coreUtilities.utils.Log;
+import restConfig.ConfigManager;
+
+/**
+ * Drives the {@link ApiEndpoint} operations as a load test.
+ *
+ * In the closed model, load.users virtual users each pick an endpoint by
+ * weight, call it, pause for load.thinkTimeMs and repeat; users start evenly
+ * spread over the ramp-up. In the open model, calls arrive at
+ * load.arrivalRatePerSecond whatever the response times, with the rate rising
+ * linearly during the ramp-up; at most load.maxConcurrency calls are in
+ * flight and later arrivals wait for one of them to finish. Open-model calls
+ * go through {@link AsyncApiUtil}, so with its direct path enabled they are
+ * handed to the transport and recorded when the response arrives, without a
+ * thread waiting on each one.
+ *
+ * Each endpoint is called once, untimed, before the clock starts. Every
+ * latency is measured from the moment the call was due to be sent, not
+ * from when a thread got round to sending it, so a stalled server shows up in
+ * the percentiles instead of silently lowering the send rate. The cache,
+ * coalescing and limiter settings in config.properties apply on every path;
+ * override them with -D system properties for a raw load test.
+ */
+public class LoadGenerator {
+
+	public enum Model {
+		CLOSED, OPEN
+	}
+
+	private final ApiUtil apiUtil;
+	private final Model model;
+	private final int users;
+	private final long thinkTimeMillis;
+	private final double arrivalRatePerSecond;
+	private final int maxConcurrency;
+	private final long durationMillis;
+	private final long rampUpMillis;
+	private final long intervalMillis;
+	private final ApiEndpoint[] endpoints;
+	private final long[] cumulativeWeights;
+
+	public LoadGenerator() {
+		this(new ApiUtil(), Model.valueOf(ConfigManager.getProperty("load.model", "closed").toUpperCase()),
+				ConfigManager.getIntProperty("load.users", 10), ConfigManager.getLongProperty("load.thinkTimeMs", 500),
+				ConfigManager.getIntProperty("load.arrivalRatePerSecond", 10),
+				ConfigManager.getIntProperty("load.maxConcurrency", 100),
+				ConfigManager.getLongProperty("load.durationSeconds", 60) * 1000,
+				ConfigManager.getLongProperty("load.rampUpSeconds", 10) * 1000,
+				ConfigManager.getLongProperty("load.intervalSeconds", 5) * 1000,
+				ConfigManager.getLongMapProperty("load.weights"));
+	}
+
+	/**
+	 * @param weights - Relative weight per ApiUtil method name; endpoints not
+	 *                listed get weight 1, or 0 when the map is not empty.
+	 */
+	public LoadGenerator(ApiUtil apiUtil, Model model, int users, long thinkTimeMillis, double arrivalRatePerSecond,
+			int maxConcurrency, long durationMillis, long rampUpMillis, long intervalMillis,
+			Map<String, Long> weights) {
+		this.apiUtil = apiUtil;
+		this.model = model;
+		this.users = users;
+		this.thinkTimeMillis = thinkTimeMillis;
+		this.arrivalRatePerSecond = arrivalRatePerSecond;
+		this.maxConcurrency = maxConcurrency;
+		this.durationMillis = durationMillis;
+		this.rampUpMillis = Math.min(rampUpMillis, durationMillis);
+		this.intervalMillis = intervalMillis;
+
+		for (String methodName : weights.keySet()) {
+			ApiEndpoint.forMethodName(methodName);
+		}
+		List<ApiEndpoint> weighted = new ArrayList<>();
+		List<Long> cumulative = new ArrayList<>();
+		long sum = 0;
+		for (ApiEndpoint endpoint : ApiEndpoint.values()) {
+			long weight = weights.isEmpty() ? 1 : weights.getOrDefault(endpoint.getMethodName(), 0L);
+			if (weight > 0) {
+				sum += weight;
+				weighted.add(endpoint);
+				cumulative.add(sum);
+			}
+		}
+		if (weighted.isEmpty()) {
+			throw new IllegalArgumentException("load.weights gives no endpoint a positive weight");
+		}
+		this.endpoints = weighted.toArray(new ApiEndpoint[0]);
+		this.cumulativeWeights = cumulative.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	/**
+	 * Runs the load test for the configured duration and waits for the calls
+	 * still in flight.
+	 *
+	 * @return LoadRecorder - The samples, for reporting.
+	 */
+	public LoadRecorder run() throws InterruptedException {
+		warmUp();
+		long start = System.nanoTime();
+		LoadRecorder recorder = new LoadRecorder(start, TimeUnit.MILLISECONDS.toNanos(intervalMillis));
+		Log.info("Starting " + model + " load test for " + durationMillis + " ms with " + describeLoad());
+		if (model == Model.CLOSED) {
+			runClosed(start, recorder);
+		} else {
+			runOpen(start, recorder);
+		}
+		Log.info("Load test finished: " + recorder.getRequests() + " requests, " + recorder.getErrors() + " errors, "
+				+ recorder.getTotalStatistics());
+		return recorder;
+	}
+
+	public Map<String, Object> getSettings() {
+		Map<String, Object> settings = new LinkedHashMap<>();
+		settings.put("model", model.name());
+		settings.put("durationMs", durationMillis);
+		settings.put("rampUpMs", rampUpMillis);
+		settings.put("intervalMs", intervalMillis);
+		if (model == Model.CLOSED) {
+			settings.put("users", users);
+			settings.put("thinkTimeMs", thinkTimeMillis);
+		} else {
+			settings.put("arrivalRatePerSecond", arrivalRatePerSecond);
+			settings.put("maxConcurrency", maxConcurrency);
+		}
+		Map<String, Long> weights = new LinkedHashMap<>();
+		for (int i = 0; i < endpoints.length; i++) {
+			weights.put(endpoints[i].getMethodName(), cumulativeWeights[i] - (i == 0 ? 0 : cumulativeWeights[i - 1]));
+		}
+		settings.put("weights", weights);
+		return settings;
+	}
+
+	private void runClosed(long start, LoadRecorder recorder) throws InterruptedException {
+		long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+		long thinkNanos = TimeUnit.MILLISECONDS.toNanos(thinkTimeMillis);
+		ExecutorService executor = Executors.newFixedThreadPool(users, AsyncApiUtil.daemonThreadFactory("load-user"));
+		for (int user = 0; user < users; user++) {
+			long firstSend = start + TimeUnit.MILLISECONDS.toNanos(rampUpMillis) * user / users;
+			executor.execute(() -> {
+				long intended = firstSend;
+				while (intended < end && !Thread.currentThread().isInterrupted()) {
+					sleepUntil(intended);
+					call(pickEndpoint(), intended, recorder);
+					intended = System.nanoTime() + thinkNanos;
+				}
+			});
+		}
+		awaitCompletion(executor);
+	}
+
+	private void runOpen(long start, LoadRecorder recorder) throws InterruptedException {
+		long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), AsyncApiUtil.daemonThreadFactory("load-worker"));
+		AsyncApiUtil asyncApiUtil = new AsyncApiUtil(apiUtil, executor, 0);
+		Semaphore inFlight = new Semaphore(maxConcurrency);
+		for (long arrival = 1;; arrival++) {
+			long intended = start + arrivalOffsetNanos(arrival);
+			if (intended >= end) {
+				break;
+			}
+			sleepUntil(intended);
+			inFlight.acquire();
+			callAsync(pickEndpoint(), intended, recorder, asyncApiUtil)
+					.whenComplete((result, error) -> inFlight.release());
+		}
+		awaitCompletion(executor, inFlight);
+	}
+
+	/**
+	 * Offset of the n-th arrival from the start. The rate rises linearly from 0
+	 * to the target over the ramp-up, so n arrivals are due once the area under
+	 * the rate curve reaches n.
+	 */
+	long arrivalOffsetNanos(long arrival) {
+		double rampSeconds = rampUpMillis / 1000.0;
+		double rampArrivals = arrivalRatePerSecond * rampSeconds / 2;
+		double seconds = arrival <= rampArrivals ? Math.sqrt(2 * rampSeconds * arrival / arrivalRatePerSecond)
+				: rampSeconds + (arrival - rampArrivals) / arrivalRatePerSecond;
+		return (long) (seconds * 1_000_000_000L);
+	}
+
+	// One untimed call per endpoint, so class loading and the first connection
+	// do not show up as latency
+	private void warmUp() {
+		for (ApiEndpoint endpoint : endpoints) {
+			try {
+				endpoint.invoke(apiUtil);
+			} catch (Exception e) {
+				Log.warn("Warm-up call to " + endpoint.getMethodName() + " failed: " + e);
+			}
+		}
+	}
+
+	private void call(ApiEndpoint endpoint, long intendedNanos, LoadRecorder recorder) {
+		boolean success;
+		try {
+			success = endpoint.invoke(apiUtil).getStatusCode() == 200;
+		} catch (Exception e) {
+			// RestAssured rethrows IOExceptions unchecked, so catch every Exception
+			success = false;
+		}
+		recorder.record(endpoint.getMethodName(), intendedNanos, System.nanoTime(), success);
+	}
+
+	// Records the call once its response arrives; the returned stage completes
+	// after the sample has been recorded
+	private CompletableFuture<Void> callAsync(ApiEndpoint endpoint, long intendedNanos, LoadRecorder recorder,
+			AsyncApiUtil asyncApiUtil) {
+		CompletableFuture<CustomResponse> response;
+		try {
+			response = endpoint.invokeAsync(asyncApiUtil);
+		} catch (Exception e) {
+			response = new CompletableFuture<>();
+			response.completeExceptionally(e);
+		}
+		return response.handle((result, error) -> {
+			recorder.record(endpoint.getMethodName(), intendedNanos, System.nanoTime(),
+					error == null && result.getStatusCode() == 200);
+			return null;
+		});
+	}
+
+	private ApiEndpoint pickEndpoint() {
+		long ticket = ThreadLocalRandom.current().nextLong(cumulativeWeights[cumulativeWeights.length - 1]);
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			if (ticket < cumulativeWeights[i]) {
+				return endpoints[i];
+			}
+		}
+		return endpoints[endpoints.length - 1];
+	}
+
+	private static void sleepUntil(long deadlineNanos) {
+		long remaining;
+		while ((remaining = deadlineNanos - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+			LockSupport.parkNanos(remaining);
+		}
+	}
+
+	// Calls in flight at the end are allowed to finish within async.timeoutMs
+	private void awaitCompletion(ExecutorService executor) throws InterruptedException {
+		executor.shutdown();
+		long graceMillis = ConfigManager.getLongProperty("async.timeoutMs", 30000);
+		if (!executor.awaitTermination(durationMillis + graceMillis, TimeUnit.MILLISECONDS)) {
+			Log.warn("Load test calls still running after " + graceMillis + " ms grace, abandoning them");
+			executor.shutdownNow();
+		}
+	}
+
+	// Open-model calls are done once every permit is back
+	private void awaitCompletion(ExecutorService executor, Semaphore inFlight) throws InterruptedException {
+		long graceMillis = ConfigManager.getLongProperty("async.timeoutMs", 30000);
+		if (!inFlight.tryAcquire(maxConcurrency, durationMillis + graceMillis, TimeUnit.MILLISECONDS)) {
+			Log.warn("Load test calls still running after " + graceMillis + " ms grace, abandoning them");
+			executor.shutdownNow();
+			return;
+		}
+		executor.shutdown();
+	}
+
+	private String describeLoad() {
+		return model == Model.CLOSED ? users + " users, " + thinkTimeMillis + " ms think time"
+				: arrivalRatePerSecond + " calls/s, at most " + maxConcurrency + " concurrent";
+	}
+
+	// Writes <load.output>.csv and <load.output>.json
+	public static void main(String[] args) throws InterruptedException, IOException {
+		if (StubServer.isStubEnabled()) {
+			StubServer.startShared();
+		}
+		LoadGenerator generator = new LoadGenerator();
+		long start = System.nanoTime();
+		LoadRecorder recorder = generator.run();
+		double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+		String output = ConfigManager.getProperty("load.output", "target/load-report");
+		File csv = new File(output + ".csv");
+		File json = new File(output + ".json");
+		recorder.writeCsv(csv);
+		recorder.writeJson(json, generator.getSettings(), elapsedSeconds);
+		System.out.printf("%d requests, %d errors, %.1f req/s, %s%n", recorder.getRequests(), recorder.getErrors(),
+				recorder.getRequests() / elapsedSeconds, recorder.getTotalStatistics());
+		System.out.println(TransportFilter.getConnectionStatistics());
+		System.out.println("Load report: " + csv.getAbsolutePath() + ", " + json.getAbsolutePath());
+		System.exit(0);
+	}
+}
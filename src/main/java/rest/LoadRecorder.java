@@ -0,0 +1,148 @@
+package rest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Collects the samples of a load run: one latency histogram and request and
+ * error counters per reporting interval, per endpoint and for the whole run.
+ * Samples are bucketed by completion time. Recording is lock-free, so virtual
+ * users never wait on each other to report.
+ */
+public class LoadRecorder {
+
+	private final long startNanos;
+	private final long intervalNanos;
+	private final ConcurrentMap<Long, Bucket> intervals = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Bucket> endpoints = new ConcurrentHashMap<>();
+	private final Bucket total = new Bucket();
+
+	public LoadRecorder(long startNanos, long intervalNanos) {
+		this.startNanos = startNanos;
+		this.intervalNanos = intervalNanos;
+	}
+
+	/**
+	 * @param methodName    - The ApiUtil method called.
+	 * @param intendedNanos - When the call should have been sent; measuring from
+	 *                      here rather than the actual send avoids coordinated
+	 *                      omission when the generator falls behind.
+	 * @param endNanos      - When the call completed.
+	 * @param success       - Whether the call returned HTTP 200.
+	 */
+	public void record(String methodName, long intendedNanos, long endNanos, boolean success) {
+		long interval = Math.max(0, (endNanos - startNanos) / intervalNanos);
+		intervals.computeIfAbsent(interval, key -> new Bucket()).record(intendedNanos, endNanos, success);
+		endpoints.computeIfAbsent(methodName, key -> new Bucket()).record(intendedNanos, endNanos, success);
+		total.record(intendedNanos, endNanos, success);
+	}
+
+	public long getRequests() {
+		return total.requests.sum();
+	}
+
+	public long getErrors() {
+		return total.errors.sum();
+	}
+
+	public LatencyStatistics getTotalStatistics() {
+		return total.histogram.getStatistics("total");
+	}
+
+	// Throughput, error rate and percentiles per interval, in time order
+	public List<Map<String, Object>> getIntervals() {
+		List<Map<String, Object>> rows = new ArrayList<>();
+		double intervalSeconds = intervalNanos / 1_000_000_000.0;
+		for (Map.Entry<Long, Bucket> entry : new TreeMap<>(intervals).entrySet()) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("intervalStartSeconds", entry.getKey() * intervalSeconds);
+			row.putAll(entry.getValue().toMap(String.valueOf(entry.getKey()), intervalSeconds));
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	public Map<String, Map<String, Object>> getEndpoints(double elapsedSeconds) {
+		Map<String, Map<String, Object>> rows = new TreeMap<>();
+		for (Map.Entry<String, Bucket> entry : endpoints.entrySet()) {
+			rows.put(entry.getKey(), entry.getValue().toMap(entry.getKey(), elapsedSeconds));
+		}
+		return rows;
+	}
+
+	public void writeCsv(File file) throws IOException {
+		createParent(file);
+		try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+			writer.println("intervalStartSeconds,requests,errors,errorRate,throughputPerSec,p50Ms,p90Ms,p99Ms,maxMs");
+			for (Map<String, Object> row : getIntervals()) {
+				StringBuilder line = new StringBuilder();
+				for (Object value : row.values()) {
+					if (line.length() > 0) {
+						line.append(',');
+					}
+					line.append(value instanceof Double ? String.format("%.3f", (Double) value) : value);
+				}
+				writer.println(line);
+			}
+		}
+	}
+
+	public void writeJson(File file, Map<String, Object> settings, double elapsedSeconds) throws IOException {
+		createParent(file);
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("settings", settings);
+		report.put("total", total.toMap("total", elapsedSeconds));
+		report.put("endpoints", getEndpoints(elapsedSeconds));
+		report.put("intervals", getIntervals());
+		new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, report);
+	}
+
+	private static void createParent(File file) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs()) {
+			throw new IOException("Could not create " + parent);
+		}
+	}
+
+	private static class Bucket {
+		private final LatencyHistogram histogram = new LatencyHistogram();
+		private final LongAdder requests = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+
+		void record(long intendedNanos, long endNanos, boolean success) {
+			histogram.record(intendedNanos, endNanos);
+			requests.increment();
+			if (!success) {
+				errors.increment();
+			}
+		}
+
+		Map<String, Object> toMap(String name, double seconds) {
+			LatencyStatistics stats = histogram.getStatistics(name);
+			long requestCount = requests.sum();
+			long errorCount = errors.sum();
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("requests", requestCount);
+			row.put("errors", errorCount);
+			row.put("errorRate", requestCount == 0 ? 0.0 : (double) errorCount / requestCount);
+			row.put("throughputPerSec", seconds <= 0 ? 0.0 : requestCount / seconds);
+			row.put("p50Ms", stats.getP50Millis());
+			row.put("p90Ms", stats.getP90Millis());
+			row.put("p99Ms", stats.getP99Millis());
+			row.put("maxMs", stats.getMaxMillis());
+			return row;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package rest;
+
+import java.util.Arrays;
+
+/**
+ * Set of long values in a single open-addressing table, without boxing. Used
+ * by {@link IdSet} for ids that do not fit its bitmap, such as negative or
+ * 64-bit ids. Slots are probed linearly; 0 marks an empty slot, so the value 0
+ * itself is tracked by a flag.
+ */
+public class LongHashSet {
+
+	private static final long EMPTY = 0L;
+	private static final long PHI = 0x9E3779B97F4A7C15L;
+
+	private long[] table;
+	private int mask;
+	private int shift;
+	private int size;
+	private boolean containsZero;
+
+	public LongHashSet() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize - Number of values the set should hold before its first
+	 *                     resize.
+	 */
+	public LongHashSet(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+		allocate(capacity);
+	}
+
+	/**
+	 * Adds a value.
+	 *
+	 * @param value - The value.
+	 * @return boolean - true when the value was not in the set yet.
+	 */
+	public boolean add(long value) {
+		if (value == EMPTY) {
+			if (containsZero) {
+				return false;
+			}
+			containsZero = true;
+			size++;
+			return true;
+		}
+		int slot = slot(value);
+		while (table[slot] != EMPTY) {
+			if (table[slot] == value) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = value;
+		// Keeps the table at most half full so probe sequences stay short
+		if (++size > table.length >>> 1) {
+			rehash(table.length << 1);
+		}
+		return true;
+	}
+
+	public boolean contains(long value) {
+		if (value == EMPTY) {
+			return containsZero;
+		}
+		int slot = slot(value);
+		while (table[slot] != EMPTY) {
+			if (table[slot] == value) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		Arrays.fill(table, EMPTY);
+		containsZero = false;
+		size = 0;
+	}
+
+	// Fibonacci hashing: the high bits of the product are well mixed even for
+	// sequential ids
+	private int slot(long value) {
+		return (int) ((value * PHI) >>> shift);
+	}
+
+	private void allocate(int capacity) {
+		table = new long[capacity];
+		mask = capacity - 1;
+		shift = 64 - Integer.numberOfTrailingZeros(capacity);
+	}
+
+	private void rehash(int capacity) {
+		long[] old = table;
+		allocate(capacity);
+		for (long value : old) {
+			if (value != EMPTY) {
+				int slot = slot(value);
+				while (table[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				table[slot] = value;
+			}
+		}
+	}
+}
@@ -0,0 +1,288 @@
+package rest;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.SSLException;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import restConfig.ConfigManager;
+
+/**
+ * Non-blocking {@link Transport} on Netty. A few event loop threads drive all
+ * connections; each host gets a fixed pool of keep-alive connections, and a
+ * request waits for a free one instead of opening more than
+ * http.netty.maxConnections. The transport itself parks no thread while a
+ * response is on its way; callers going through {@link TransportFilter} still
+ * wait in RestAssured, while {@link AsyncApiUtil}'s direct path does not.
+ *
+ * Cancelling the returned future closes the connection of the exchange.
+ *
+ * gzip and deflate bodies are decoded by Netty when http.compression.enabled
+ * is set. Latency is recorded in {@link LatencyMetrics} from the write to the
+ * last byte, like on the HttpClient path, so waits for a pooled connection are
+ * not included.
+ */
+public class NettyTransport implements Transport {
+
+	private static final int THREADS = ConfigManager.getIntProperty("http.netty.threads", 0);
+	private static final int MAX_CONNECTIONS = ConfigManager.getIntProperty("http.netty.maxConnections", 64);
+	private static final int MAX_CONTENT_BYTES = ConfigManager.getIntProperty("http.netty.maxContentBytes",
+			256 * 1024 * 1024);
+	private static final int CONNECT_TIMEOUT_MS = ConfigManager.getIntProperty("http.connectTimeoutMs", 10000);
+	private static final int SOCKET_TIMEOUT_MS = ConfigManager.getIntProperty("http.socketTimeoutMs", 60000);
+	private static final boolean COMPRESSION_ENABLED = ConfigManager.getBooleanProperty("http.compression.enabled",
+			true);
+
+	private static final AttributeKey<Exchange> EXCHANGE = AttributeKey.valueOf(NettyTransport.class, "exchange");
+
+	private final EventLoopGroup group;
+	private final Bootstrap bootstrap;
+	private final ResponseHandler responseHandler = new ResponseHandler();
+	private final ConcurrentMap<String, FixedChannelPool> pools = new ConcurrentHashMap<>();
+	private final LongAdder connectionsOpened = new LongAdder();
+	private volatile SslContext sslContext;
+
+	public NettyTransport() {
+		this(THREADS);
+	}
+
+	/**
+	 * @param threads - Event loop threads, 0 for Netty's default of twice the
+	 *                number of cores.
+	 */
+	public NettyTransport(int threads) {
+		this.group = new NioEventLoopGroup(threads, new DefaultThreadFactory("netty-transport", true));
+		this.bootstrap = new Bootstrap().group(group).channel(NioSocketChannel.class)
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT_MS)
+				.option(ChannelOption.TCP_NODELAY, true).option(ChannelOption.SO_KEEPALIVE, true);
+	}
+
+	@Override
+	public CompletableFuture<Response> send(String method, String uri, Headers headers, byte[] body) {
+		CompletableFuture<Response> result = new CompletableFuture<>();
+		TargetUri target;
+		FixedChannelPool pool;
+		try {
+			target = TargetUri.parse(uri);
+			pool = poolFor(target);
+		} catch (IllegalArgumentException | SSLException e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+
+		pool.acquire().addListener((io.netty.util.concurrent.Future<Channel> acquired) -> {
+			if (!acquired.isSuccess()) {
+				result.completeExceptionally(acquired.cause());
+				return;
+			}
+			Channel channel = acquired.getNow();
+			if (result.isDone()) {
+				// Cancelled while waiting for a connection
+				pool.release(channel);
+				return;
+			}
+			FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.valueOf(method),
+					target.pathAndQuery, body == null ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(body));
+			for (Header header : headers) {
+				request.headers().add(header.getName(), header.getValue());
+			}
+			request.headers().set(HttpHeaderNames.HOST, target.authority);
+			request.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+			request.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, body == null ? 0 : body.length);
+			if (COMPRESSION_ENABLED) {
+				request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate");
+			}
+
+			// The clock starts once a connection is ready, so pool waits are not
+			// counted as latency, as on the HttpClient path
+			Exchange exchange = new Exchange(pool, result, TransferMetrics.routeTemplate(uri), System.nanoTime());
+			channel.attr(EXCHANGE).set(exchange);
+			exchange.timeout = channel.eventLoop().schedule(
+					() -> fail(channel, new SocketTimeoutException("No response from " + uri + " within "
+							+ SOCKET_TIMEOUT_MS + " ms")),
+					SOCKET_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			channel.writeAndFlush(request).addListener(written -> {
+				if (!written.isSuccess()) {
+					fail(channel, written.cause());
+				}
+			});
+			// A caller that cancels the result drops the connection, unless the
+			// exchange has ended and the channel already serves another one
+			result.whenComplete((response, error) -> {
+				if (result.isCancelled() && channel.attr(EXCHANGE).compareAndSet(exchange, null)) {
+					exchange.cancelTimeout();
+					channel.close();
+					exchange.pool.release(channel);
+				}
+			});
+		});
+		return result;
+	}
+
+	// Connections opened since start, across all hosts
+	public long getConnectionsOpened() {
+		return connectionsOpened.sum();
+	}
+
+	@Override
+	public void close() {
+		for (FixedChannelPool pool : pools.values()) {
+			pool.close();
+		}
+		pools.clear();
+		group.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+	}
+
+	private FixedChannelPool poolFor(TargetUri target) throws SSLException {
+		if (target.secure && sslContext == null) {
+			synchronized (this) {
+				if (sslContext == null) {
+					sslContext = SslContextBuilder.forClient().build();
+				}
+			}
+		}
+		return pools.computeIfAbsent(target.origin,
+				key -> new FixedChannelPool(bootstrap.clone().remoteAddress(target.host, target.port),
+						new AbstractChannelPoolHandler() {
+							@Override
+							public void channelCreated(Channel channel) {
+								connectionsOpened.increment();
+								ChannelPipeline pipeline = channel.pipeline();
+								if (target.secure) {
+									pipeline.addLast(sslContext.newHandler(channel.alloc(), target.host, target.port));
+								}
+								pipeline.addLast(new HttpClientCodec(), new HttpContentDecompressor(),
+										new HttpObjectAggregator(MAX_CONTENT_BYTES), responseHandler);
+							}
+						}, ChannelHealthChecker.ACTIVE, FixedChannelPool.AcquireTimeoutAction.FAIL, SOCKET_TIMEOUT_MS,
+						MAX_CONNECTIONS, Integer.MAX_VALUE));
+	}
+
+	// Completes the pending exchange on a channel with an error and drops the
+	// connection
+	private static void fail(Channel channel, Throwable cause) {
+		Exchange exchange = channel.attr(EXCHANGE).getAndSet(null);
+		if (exchange == null) {
+			return;
+		}
+		exchange.cancelTimeout();
+		channel.close();
+		exchange.pool.release(channel);
+		exchange.result.completeExceptionally(cause);
+	}
+
+	private static Response toResponse(FullHttpResponse message) {
+		List<Header> headers = new ArrayList<>();
+		for (Map.Entry<String, String> header : message.headers()) {
+			if (!HttpHeaderNames.CONTENT_ENCODING.contentEqualsIgnoreCase(header.getKey())
+					&& !HttpHeaderNames.TRANSFER_ENCODING.contentEqualsIgnoreCase(header.getKey())) {
+				headers.add(new Header(header.getKey(), header.getValue()));
+			}
+		}
+		ResponseBuilder builder = new ResponseBuilder().setStatusCode(message.status().code())
+				.setStatusLine(message.protocolVersion() + " " + message.status()).setHeaders(new Headers(headers))
+				.setBody(ByteBufUtil.getBytes(message.content()));
+		String contentType = message.headers().get(HttpHeaderNames.CONTENT_TYPE);
+		if (contentType != null) {
+			builder.setContentType(contentType);
+		}
+		return builder.build();
+	}
+
+	@Sharable
+	private static class ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+		@Override
+		protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse message) {
+			Channel channel = ctx.channel();
+			Exchange exchange = channel.attr(EXCHANGE).getAndSet(null);
+			if (exchange == null) {
+				return;
+			}
+			exchange.cancelTimeout();
+			Response response = toResponse(message);
+			LatencyMetrics.record(exchange.path, exchange.startNanos, System.nanoTime());
+			if (!HttpUtil.isKeepAlive(message)) {
+				channel.close();
+			}
+			exchange.pool.release(channel);
+			exchange.result.complete(response);
+		}
+
+		@Override
+		public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+			fail(ctx.channel(), new IOException("Connection closed before the response was complete"));
+			super.channelInactive(ctx);
+		}
+
+		@Override
+		public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+			fail(ctx.channel(), cause);
+		}
+	}
+
+	// One request in flight on a pooled channel
+	private static class Exchange {
+		private final FixedChannelPool pool;
+		private final CompletableFuture<Response> result;
+		private final String path;
+		private final long startNanos;
+		private volatile ScheduledFuture<?> timeout;
+
+		Exchange(FixedChannelPool pool, CompletableFuture<Response> result, String path, long startNanos) {
+			this.pool = pool;
+			this.result = result;
+			this.path = path;
+			this.startNanos = startNanos;
+		}
+
+		void cancelTimeout() {
+			if (timeout != null) {
+				timeout.cancel(false);
+			}
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package rest;
+
+public class PoolStatistics {
+	private final String name;
+	private final int leased;
+	private final int available;
+	private final int pending;
+	private final int max;
+	private final long connectionsOpened;
+	private final long tlsHandshakes;
+	private final long connectNanos;
+
+	public PoolStatistics(int leased, int available, int pending, int max, long connectionsOpened,
+			long tlsHandshakes, long connectNanos) {
+		this("HTTP pool", leased, available, pending, max, connectionsOpened, tlsHandshakes, connectNanos);
+	}
+
+	public PoolStatistics(String name, int leased, int available, int pending, int max, long connectionsOpened,
+			long tlsHandshakes, long connectNanos) {
+		this.name = name;
+		this.leased = leased;
+		this.available = available;
+		this.pending = pending;
+		this.max = max;
+		this.connectionsOpened = connectionsOpened;
+		this.tlsHandshakes = tlsHandshakes;
+		this.connectNanos = connectNanos;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getLeased() {
+		return leased;
+	}
+
+	public int getAvailable() {
+		return available;
+	}
+
+	public int getPending() {
+		return pending;
+	}
+
+	public int getMax() {
+		return max;
+	}
+
+	public long getConnectionsOpened() {
+		return connectionsOpened;
+	}
+
+	public long getTlsHandshakes() {
+		return tlsHandshakes;
+	}
+
+	// Average time to open a connection, including the TLS handshake for https
+	public double getAverageConnectMillis() {
+		return connectionsOpened == 0 ? 0 : connectNanos / 1_000_000.0 / connectionsOpened;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"%s: leased=%d, available=%d, pending=%d, max=%d, connectionsOpened=%d, tlsHandshakes=%d, avgConnectMs=%.1f",
+				name, leased, available, pending, max, connectionsOpened, tlsHandshakes, getAverageConnectMillis());
+	}
+}
@@ -0,0 +1,38 @@
+package rest;
+
+import java.util.Collections;
+import java.util.List;
+
+public class ProjectionResult {
+	private final List<String> paths;
+	private final List<List<Object>> values;
+
+	public ProjectionResult(List<String> paths, List<List<Object>> values) {
+		this.paths = paths;
+		this.values = values;
+	}
+
+	public List<String> getPaths() {
+		return paths;
+	}
+
+	// All values matched by the path, in document order
+	public List<Object> getList(String path) {
+		int index = paths.indexOf(path);
+		if (index < 0) {
+			throw new IllegalArgumentException("Path " + path + " was not part of the projection " + paths);
+		}
+		return Collections.unmodifiableList(values.get(index));
+	}
+
+	// The first value matched by the path, or null when it was absent
+	public Object get(String path) {
+		List<Object> matches = getList(path);
+		return matches.isEmpty() ? null : matches.get(0);
+	}
+
+	public String getString(String path) {
+		Object value = get(path);
+		return value == null ? null : value.toString();
+	}
+}
@@ -0,0 +1,114 @@
+package rest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import restConfig.ConfigManager;
+
+/**
+ * Single-flight deduplication of identical in-flight calls. The first thread to
+ * call a key performs the request; threads arriving with the same key while it
+ * is running wait for it and receive their own copy of its decoded
+ * {@link CustomResponse}, or the same exception. The copy is shallow: setting a
+ * field on one caller's response leaves the others alone, but the results
+ * lists and maps are shared and must be treated as read-only. Nothing is kept
+ * once the call completes, so this is not a cache: a call that starts after
+ * the previous one finished goes to the network again.
+ */
+public class RequestCoalescer {
+
+	private static final boolean COALESCE_ENABLED = ConfigManager.getBooleanProperty("coalesce.enabled", false);
+
+	private static final RequestCoalescer INSTANCE = new RequestCoalescer(COALESCE_ENABLED);
+
+	private final boolean enabled;
+	private final ConcurrentMap<String, CompletableFuture<CustomResponse>> inFlight = new ConcurrentHashMap<>();
+	private final AtomicLong calls = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+
+	public RequestCoalescer(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	// The coalescer shared by every ApiUtil instance
+	public static RequestCoalescer getInstance() {
+		return INSTANCE;
+	}
+
+	public static boolean isCoalescingEnabled() {
+		return COALESCE_ENABLED;
+	}
+
+	/**
+	 * Runs the call, or joins an identical one already in flight.
+	 *
+	 * @param methodName - The ApiUtil method making the call.
+	 * @param endpoint   - The endpoint including its query string.
+	 * @param body       - Calls with a request body are never coalesced.
+	 * @param call       - Performs the request and decodes the response.
+	 * @return CustomResponse - The response, or a copy of the leader's for a
+	 *         coalesced caller.
+	 */
+	public CustomResponse execute(String methodName, String endpoint, Object body, Supplier<CustomResponse> call) {
+		calls.incrementAndGet();
+		if (!enabled || body != null) {
+			return call.get();
+		}
+
+		String key = methodName + " " + endpoint;
+		CompletableFuture<CustomResponse> leader = new CompletableFuture<>();
+		CompletableFuture<CustomResponse> existing = inFlight.putIfAbsent(key, leader);
+		if (existing != null) {
+			coalesced.incrementAndGet();
+			CustomResponse response = await(existing);
+			return response == null ? null : response.copy();
+		}
+
+		try {
+			CustomResponse response = call.get();
+			leader.complete(response);
+			return response;
+		} catch (RuntimeException | Error e) {
+			leader.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, leader);
+		}
+	}
+
+	// Total calls seen, including the coalesced ones
+	public long getCalls() {
+		return calls.get();
+	}
+
+	// Calls answered by joining another thread's request
+	public long getCoalescedCalls() {
+		return coalesced.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Request coalescing: calls=%d, coalesced=%d", getCalls(), getCoalescedCalls());
+	}
+
+	// Rethrows the leader's exception unwrapped, as if this thread had made the
+	// call
+	private static CustomResponse await(CompletableFuture<CustomResponse> leader) {
+		try {
+			return leader.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,289 @@
+package rest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import restConfig.ConfigManager;
+
+/**
+ * Client-side throttle for shared environments. Each call takes a token from a
+ * global token bucket and from its endpoint's bucket, then a slot from the
+ * global and the endpoint's max-in-flight semaphores. A rate or limit of 0
+ * means unlimited. Limits are read from limiter.* in config.properties; the
+ * per-endpoint ones are "path:value" lists, with ids in the path written as
+ * {id}. A call that has not been admitted within limiter.maxWaitMs fails with
+ * an IllegalStateException instead of queueing without bound, and gives back
+ * the tokens and slots it had taken.
+ *
+ * The time spent waiting here is recorded in its own histograms, apart from
+ * the send-to-last-byte latency in {@link LatencyMetrics}, which only starts
+ * once the request is on its way.
+ */
+public class RequestLimiter implements OrderedFilter {
+
+	// Outside the circuit breaker, so time queued here is neither timed by the
+	// breaker nor spent holding a half-open trial permit
+	public static final int ORDER = 150;
+
+	private static final boolean LIMITER_ENABLED = ConfigManager.getBooleanProperty("limiter.enabled", false);
+	private static final int RATE_PER_SECOND = ConfigManager.getIntProperty("limiter.ratePerSecond", 0);
+	private static final int BURST = ConfigManager.getIntProperty("limiter.burst", 10);
+	private static final int MAX_IN_FLIGHT = ConfigManager.getIntProperty("limiter.maxInFlight", 0);
+	private static final long MAX_WAIT_MS = ConfigManager.getLongProperty("limiter.maxWaitMs", 30000);
+	private static final Map<String, Long> ENDPOINT_RATE = ConfigManager
+			.getLongMapProperty("limiter.endpointRatePerSecond");
+	private static final Map<String, Long> ENDPOINT_MAX_IN_FLIGHT = ConfigManager
+			.getLongMapProperty("limiter.endpointMaxInFlight");
+
+	private static final RequestLimiter INSTANCE = new RequestLimiter(RATE_PER_SECOND, BURST, MAX_IN_FLIGHT,
+			MAX_WAIT_MS, ENDPOINT_RATE, ENDPOINT_MAX_IN_FLIGHT);
+
+	private final TokenBucket globalBucket;
+	private final Semaphore globalSlots;
+	private final long maxWaitNanos;
+	private final Map<String, Long> endpointRate;
+	private final Map<String, Long> endpointMaxInFlight;
+	private final ConcurrentMap<String, Limits> endpointLimits = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, LatencyHistogram> waits = new ConcurrentHashMap<>();
+
+	/**
+	 * @param ratePerSecond       - Calls per second over all endpoints, 0 for
+	 *                            unlimited.
+	 * @param burst               - Calls the global bucket lets through at once.
+	 * @param maxInFlight         - Calls in flight over all endpoints, 0 for
+	 *                            unlimited.
+	 * @param maxWaitMillis       - Longest wait for admission, 0 for no limit.
+	 * @param endpointRate        - Calls per second per route template.
+	 * @param endpointMaxInFlight - Calls in flight per route template.
+	 */
+	public RequestLimiter(int ratePerSecond, int burst, int maxInFlight, long maxWaitMillis,
+			Map<String, Long> endpointRate, Map<String, Long> endpointMaxInFlight) {
+		this.globalBucket = ratePerSecond > 0 ? new TokenBucket(ratePerSecond, burst) : null;
+		this.globalSlots = maxInFlight > 0 ? new Semaphore(maxInFlight, true) : null;
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+		this.endpointRate = new HashMap<>(endpointRate);
+		this.endpointMaxInFlight = new HashMap<>(endpointMaxInFlight);
+	}
+
+	// The limiter configured in config.properties
+	public static RequestLimiter getInstance() {
+		return INSTANCE;
+	}
+
+	public static boolean isLimiterEnabled() {
+		return LIMITER_ENABLED;
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+			FilterContext ctx) {
+		Runnable release = admit(TransferMetrics.routeTemplate(requestSpec.getURI()));
+		try {
+			return ctx.next(requestSpec, responseSpec);
+		} finally {
+			release.run();
+		}
+	}
+
+	/**
+	 * Waits until a call to path may be sent, as the filter does for
+	 * RestAssured calls.
+	 *
+	 * @param path - The route template the limits are looked up by.
+	 * @return Runnable - Gives the slots back; run it once the call has ended.
+	 * @throws IllegalStateException when the call is not admitted within
+	 *                               limiter.maxWaitMs or the thread is
+	 *                               interrupted.
+	 */
+	public Runnable admit(String path) {
+		Limits limits = endpointLimits.computeIfAbsent(path, this::limitsFor);
+
+		long waitStart = System.nanoTime();
+		boolean endpointToken = false;
+		boolean globalToken = false;
+		boolean endpointSlot = false;
+		boolean admitted = false;
+		try {
+			endpointToken = take(limits.bucket, waitStart);
+			globalToken = endpointToken && take(globalBucket, waitStart);
+			// The endpoint slot first, so a throttled endpoint never holds a global slot
+			endpointSlot = globalToken && acquire(limits.slots, waitStart);
+			admitted = endpointSlot && acquire(globalSlots, waitStart);
+			if (!admitted) {
+				throw waitedTooLong(path);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the request limiter on " + path, e);
+		} finally {
+			// A call that is not sent gives back what it took, so it does not use
+			// up the rate of the calls after it
+			if (!admitted) {
+				if (endpointToken) {
+					giveBack(limits.bucket);
+				}
+				if (globalToken) {
+					giveBack(globalBucket);
+				}
+				if (endpointSlot && limits.slots != null) {
+					limits.slots.release();
+				}
+			}
+		}
+		waits.computeIfAbsent(path, key -> new LatencyHistogram()).record(waitStart, System.nanoTime());
+
+		return () -> {
+			if (globalSlots != null) {
+				globalSlots.release();
+			}
+			if (limits.slots != null) {
+				limits.slots.release();
+			}
+		};
+	}
+
+	/**
+	 * Formats the wait statistics for MarkupHelper.createTable. Unlike
+	 * {@link LatencyMetrics#toTable()} there is no throughput column, since a
+	 * rate of waits says nothing about the endpoint.
+	 *
+	 * @return String[][] - A header row, then one row per route template.
+	 */
+	public String[][] toWaitTable() {
+		List<String[]> rows = new ArrayList<>();
+		rows.add(new String[] { "Endpoint", "Count", "p50 ms", "p90 ms", "p99 ms", "Max ms", "Mean ms" });
+		for (LatencyStatistics stats : getWaitStatistics().values()) {
+			rows.add(new String[] { stats.getPath(), String.valueOf(stats.getCount()),
+					String.format("%.1f", stats.getP50Millis()), String.format("%.1f", stats.getP90Millis()),
+					String.format("%.1f", stats.getP99Millis()), String.format("%.1f", stats.getMaxMillis()),
+					String.format("%.1f", stats.getMeanMillis()) });
+		}
+		return rows.toArray(new String[0][]);
+	}
+
+	/**
+	 * Takes a snapshot of the time calls spent waiting for a token or a slot.
+	 *
+	 * @return Map - Wait statistics keyed by route template, sorted by template.
+	 */
+	public Map<String, LatencyStatistics> getWaitStatistics() {
+		Map<String, LatencyStatistics> statistics = new TreeMap<>();
+		for (Map.Entry<String, LatencyHistogram> entry : waits.entrySet()) {
+			statistics.put(entry.getKey(), entry.getValue().getStatistics(entry.getKey()));
+		}
+		return statistics;
+	}
+
+	// Takes a token, waiting no longer than limiter.maxWaitMs from waitStart
+	private boolean take(TokenBucket bucket, long waitStart) throws InterruptedException {
+		return bucket == null || bucket.take(remainingNanos(waitStart));
+	}
+
+	private static void giveBack(TokenBucket bucket) {
+		if (bucket != null) {
+			bucket.giveBack();
+		}
+	}
+
+	// Takes a slot, waiting no longer than limiter.maxWaitMs from waitStart
+	private boolean acquire(Semaphore slots, long waitStart) throws InterruptedException {
+		if (slots == null) {
+			return true;
+		}
+		if (maxWaitNanos <= 0) {
+			slots.acquire();
+			return true;
+		}
+		return slots.tryAcquire(remainingNanos(waitStart), TimeUnit.NANOSECONDS);
+	}
+
+	private long remainingNanos(long waitStart) {
+		return maxWaitNanos <= 0 ? Long.MAX_VALUE : waitStart + maxWaitNanos - System.nanoTime();
+	}
+
+	private IllegalStateException waitedTooLong(String path) {
+		return new IllegalStateException("Waited more than " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos)
+				+ " ms for the request limiter on " + path);
+	}
+
+	private Limits limitsFor(String path) {
+		Long rate = endpointRate.get(path);
+		Long maxInFlight = endpointMaxInFlight.get(path);
+		return new Limits(rate == null || rate <= 0 ? null : new TokenBucket(rate, Math.max(1, rate.intValue())),
+				maxInFlight == null || maxInFlight <= 0 ? null : new Semaphore(maxInFlight.intValue(), true));
+	}
+
+	private static class Limits {
+		private final TokenBucket bucket;
+		private final Semaphore slots;
+
+		Limits(TokenBucket bucket, Semaphore slots) {
+			this.bucket = bucket;
+			this.slots = slots;
+		}
+	}
+
+	/**
+	 * Token bucket refilled continuously at a fixed rate. A caller that finds it
+	 * empty reserves the next token by driving the balance negative and sleeps
+	 * outside the lock until that token is due, so waiting callers are served in
+	 * arrival order. A caller whose token would not be due in time reserves
+	 * nothing.
+	 */
+	public static class TokenBucket {
+		private final double tokensPerNano;
+		private final double capacity;
+		private double tokens;
+		private long refilledAt = System.nanoTime();
+
+		public TokenBucket(double ratePerSecond, int burst) {
+			this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+			this.capacity = Math.max(1, burst);
+			this.tokens = capacity;
+		}
+
+		// false, without taking a token, when the token is not due within maxWaitNanos
+		public boolean take(long maxWaitNanos) throws InterruptedException {
+			long waitNanos = reserve(maxWaitNanos);
+			if (waitNanos > 0) {
+				TimeUnit.NANOSECONDS.sleep(waitNanos);
+			}
+			return waitNanos >= 0;
+		}
+
+		// Returns a token taken by a call that was then not sent
+		public synchronized void giveBack() {
+			tokens = Math.min(capacity, tokens + 1);
+		}
+
+		// Nanoseconds until the reserved token is due, or -1 when none was reserved
+		private synchronized long reserve(long maxWaitNanos) {
+			long now = System.nanoTime();
+			tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+			refilledAt = now;
+			long waitNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+			if (waitNanos > 0 && waitNanos > maxWaitNanos) {
+				return -1;
+			}
+			tokens -= 1;
+			return waitNanos;
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import restConfig.ConfigManager;
+
+/**
+ * Opt-in cache for reference-data GET endpoints such as
+ * /PharmacySettings/MainStore and /radiology/FilmTypes. Only paths listed in
+ * cache.ttlMs are cached, keyed by method and full URI including the query.
+ *
+ * A Cache-Control max-age from the server wins over the configured TTL,
+ * no-store disables caching and no-cache forces revalidation. Once an entry
+ * expires and the server sent an ETag, the next call revalidates with
+ * If-None-Match and a 304 refreshes the entry without transferring the body.
+ * The cache holds at most cache.maxEntries responses, evicting the least
+ * recently used.
+ */
+public class ResponseCache implements OrderedFilter {
+
+	// Outside every other filter so that a hit skips them all
+	public static final int ORDER = 100;
+
+	private static final boolean CACHE_ENABLED = ConfigManager.getBooleanProperty("cache.enabled", false);
+	private static final int MAX_ENTRIES = ConfigManager.getIntProperty("cache.maxEntries", 200);
+	private static final Map<String, Long> TTL_MS = ConfigManager.getLongMapProperty("cache.ttlMs");
+
+	private static final ResponseCache INSTANCE = new ResponseCache(MAX_ENTRIES, TTL_MS);
+
+	private final int maxEntries;
+	private final Map<String, Long> ttlMillis;
+	private final Map<String, Entry> entries;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong revalidations = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param maxEntries - The number of responses kept before the least recently
+	 *                   used one is evicted.
+	 * @param ttlMillis  - Time to live per endpoint path, for example
+	 *                   "/radiology/FilmTypes" mapped to 300000.
+	 */
+	public ResponseCache(int maxEntries, Map<String, Long> ttlMillis) {
+		this.maxEntries = maxEntries;
+		this.ttlMillis = new LinkedHashMap<>(ttlMillis);
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				if (size() > ResponseCache.this.maxEntries) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	// The cache configured in config.properties
+	public static ResponseCache getInstance() {
+		return INSTANCE;
+	}
+
+	public static boolean isCacheEnabled() {
+		return CACHE_ENABLED;
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+			FilterContext ctx) {
+		String uri = requestSpec.getURI();
+		Long ttl = "GET".equals(requestSpec.getMethod()) ? ttlFor(uri) : null;
+		if (ttl == null) {
+			return ctx.next(requestSpec, responseSpec);
+		}
+
+		String key = requestSpec.getMethod() + " " + uri;
+		Entry entry = get(key);
+		long now = System.currentTimeMillis();
+		if (entry != null && now < entry.expiresAt) {
+			hits.incrementAndGet();
+			return entry.toResponse();
+		}
+		if (entry != null && entry.etag != null) {
+			requestSpec.header("If-None-Match", entry.etag);
+		}
+
+		Response response = ctx.next(requestSpec, responseSpec);
+		if (entry != null && entry.etag != null && response.getStatusCode() == 304) {
+			revalidations.incrementAndGet();
+			long lifetime = lifetime(response.getHeader("Cache-Control"), response.getHeader("Age"), ttl);
+			Entry refreshed = new Entry(entry, System.currentTimeMillis() + Math.max(0, lifetime));
+			put(key, refreshed);
+			return refreshed.toResponse();
+		}
+
+		misses.incrementAndGet();
+		if (response.getStatusCode() == 200) {
+			long lifetime = lifetime(response.getHeader("Cache-Control"), response.getHeader("Age"), ttl);
+			String etag = response.getHeader("ETag");
+			if (lifetime > 0 || (lifetime == 0 && etag != null)) {
+				put(key, new Entry(response, etag, System.currentTimeMillis() + lifetime));
+			} else {
+				remove(key);
+			}
+		}
+		return response;
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	public CacheStatistics getStatistics() {
+		int size;
+		synchronized (this) {
+			size = entries.size();
+		}
+		return new CacheStatistics(hits.get(), misses.get(), revalidations.get(), evictions.get(), size, maxEntries);
+	}
+
+	// Configured TTL of the endpoint, or null when it is not cacheable
+	private Long ttlFor(String uri) {
+		int queryStart = uri.indexOf('?');
+		String path = queryStart < 0 ? uri : uri.substring(0, queryStart);
+		for (Map.Entry<String, Long> ttl : ttlMillis.entrySet()) {
+			if (path.endsWith(ttl.getKey())) {
+				return ttl.getValue();
+			}
+		}
+		return null;
+	}
+
+	// Freshness lifetime in ms; -1 means the response must not be stored
+	static long lifetime(String cacheControl, String age, long defaultTtl) {
+		if (cacheControl == null) {
+			return defaultTtl;
+		}
+		long lifetime = defaultTtl;
+		for (String directive : cacheControl.toLowerCase().split(",")) {
+			directive = directive.trim();
+			if (directive.equals("no-store")) {
+				return -1;
+			}
+			if (directive.equals("no-cache")) {
+				return 0;
+			}
+			if (directive.startsWith("max-age=")) {
+				try {
+					lifetime = Long.parseLong(directive.substring(8).replace("\"", "")) * 1000;
+				} catch (NumberFormatException e) {
+					lifetime = 0;
+				}
+			}
+		}
+		if (age != null) {
+			try {
+				lifetime -= Long.parseLong(age.trim()) * 1000;
+			} catch (NumberFormatException e) {
+				// An unparseable Age is ignored
+			}
+		}
+		return Math.max(0, lifetime);
+	}
+
+	private synchronized Entry get(String key) {
+		return entries.get(key);
+	}
+
+	private synchronized void put(String key, Entry entry) {
+		entries.put(key, entry);
+	}
+
+	private synchronized void remove(String key) {
+		entries.remove(key);
+	}
+
+	// A detached copy of a response; every hit gets its own Response instance
+	private static class Entry {
+		private final int statusCode;
+		private final String statusLine;
+		private final Headers headers;
+		private final String contentType;
+		private final byte[] body;
+		private final String etag;
+		private final long expiresAt;
+
+		private Entry(Response response, String etag, long expiresAt) {
+			this.statusCode = response.getStatusCode();
+			this.statusLine = response.getStatusLine();
+			this.headers = response.getHeaders();
+			this.contentType = response.getContentType();
+			this.body = response.asByteArray();
+			this.etag = etag;
+			this.expiresAt = expiresAt;
+		}
+
+		private Entry(Entry entry, long expiresAt) {
+			this.statusCode = entry.statusCode;
+			this.statusLine = entry.statusLine;
+			this.headers = entry.headers;
+			this.contentType = entry.contentType;
+			this.body = entry.body;
+			this.etag = entry.etag;
+			this.expiresAt = expiresAt;
+		}
+
+		private Response toResponse() {
+			return new ResponseBuilder().setStatusCode(statusCode).setStatusLine(statusLine).setHeaders(headers)
+					.setContentType(contentType).setBody(body).build();
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package rest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import coreUtilities.utils.Log;
+import restConfig.ConfigManager;
+
+/**
+ * Request-level retries for transient failures, applied inside the pooled
+ * HttpClient so a retry repeats only the HTTP exchange, never the test's
+ * validation or assertions. Connect timeouts, refused or reset connections,
+ * requests the server dropped without a response and 502/503/504 answers are
+ * retried; every other status, 4xx included, is returned as is. Only
+ * idempotent methods with a repeatable body are retried.
+ *
+ * Waits use exponential backoff with full jitter, capped at
+ * http.retry.maxDelayMs, and honour a Retry-After in seconds. All retries in
+ * the JVM draw from one budget of http.retry.budget, so a degraded server is
+ * not hammered for the whole suite once the budget is spent.
+ */
+@SuppressWarnings("deprecation")
+public class RetryPolicy {
+
+	private static final boolean RETRY_ENABLED = ConfigManager.getBooleanProperty("http.retry.enabled", false);
+	private static final int MAX_ATTEMPTS = ConfigManager.getIntProperty("http.retry.maxAttempts", 3);
+	private static final long BASE_DELAY_MS = ConfigManager.getLongProperty("http.retry.baseDelayMs", 200);
+	private static final long MAX_DELAY_MS = ConfigManager.getLongProperty("http.retry.maxDelayMs", 5000);
+	private static final int BUDGET = ConfigManager.getIntProperty("http.retry.budget", 30);
+
+	private static final RetryPolicy INSTANCE = new RetryPolicy(MAX_ATTEMPTS, BASE_DELAY_MS, MAX_DELAY_MS, BUDGET);
+
+	private final int maxAttempts;
+	private final long baseDelayMillis;
+	private final long maxDelayMillis;
+	private final int budget;
+	private final AtomicInteger budgetRemaining;
+
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder recovered = new LongAdder();
+	private final LongAdder exhausted = new LongAdder();
+	private final LongAdder budgetDenied = new LongAdder();
+	private final AtomicLong addedNanos = new AtomicLong();
+	private final ConcurrentMap<String, LongAdder> retriesByReason = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, LongAdder> retriesByEndpoint = new ConcurrentHashMap<>();
+
+	public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, int budget) {
+		this.maxAttempts = maxAttempts;
+		this.baseDelayMillis = baseDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+		this.budget = budget;
+		this.budgetRemaining = new AtomicInteger(budget);
+	}
+
+	// The policy configured in config.properties
+	public static RetryPolicy getInstance() {
+		return INSTANCE;
+	}
+
+	public static boolean isRetryEnabled() {
+		return RETRY_ENABLED;
+	}
+
+	/**
+	 * Wraps a request director so each execution is retried under this policy.
+	 *
+	 * @param directors - Creates a fresh director per attempt, since a director
+	 *                  is not meant to be executed twice.
+	 * @return RequestDirector - The retrying director.
+	 */
+	org.apache.http.client.RequestDirector wrap(Supplier<org.apache.http.client.RequestDirector> directors) {
+		return (target, request, context) -> execute(directors, target, request, context);
+	}
+
+	private HttpResponse execute(Supplier<org.apache.http.client.RequestDirector> directors, HttpHost target,
+			HttpRequest request, HttpContext context) throws HttpException, IOException {
+		String path = TransferMetrics.endpointPath(request);
+		boolean retryable = isIdempotent(request);
+		long firstStart = System.nanoTime();
+		for (int attempt = 1;; attempt++) {
+			long attemptStart = System.nanoTime();
+			HttpResponse response;
+			try {
+				response = directors.get().execute(target, request, context);
+			} catch (IOException e) {
+				String reason = classify(e);
+				if (reason == null || !retryable || !mayRetry(attempt, path, reason)) {
+					recordOutcome(attempt, firstStart, attemptStart, false);
+					throw e;
+				}
+				backOff(attempt, null, path, reason, e.toString());
+				continue;
+			}
+
+			int statusCode = response.getStatusLine().getStatusCode();
+			String reason = statusCode == 502 || statusCode == 503 || statusCode == 504 ? "http-" + statusCode : null;
+			if (reason == null || !retryable || !mayRetry(attempt, path, reason)) {
+				recordOutcome(attempt, firstStart, attemptStart, reason == null);
+				return response;
+			}
+			String retryAfter = response.containsHeader("Retry-After")
+					? response.getFirstHeader("Retry-After").getValue()
+					: null;
+			// Releases the connection back to the pool before waiting
+			EntityUtils.consumeQuietly(response.getEntity());
+			backOff(attempt, retryAfter, path, reason, response.getStatusLine().toString());
+		}
+	}
+
+	public RetryStatistics getStatistics() {
+		return new RetryStatistics(retries.sum(), recovered.sum(), exhausted.sum(), budgetDenied.sum(),
+				Math.max(0, budgetRemaining.get()), budget, addedNanos.get(), snapshot(retriesByReason),
+				snapshot(retriesByEndpoint));
+	}
+
+	// Reason code for a retryable exception, or null when it must not be retried
+	static String classify(IOException e) {
+		if (e instanceof ConnectTimeoutException) {
+			return "connect-timeout";
+		}
+		if (e instanceof ConnectException) {
+			return "connect-refused";
+		}
+		if (e instanceof NoHttpResponseException) {
+			return "no-response";
+		}
+		if (e instanceof SocketException && e.getMessage() != null) {
+			String message = e.getMessage().toLowerCase();
+			if (message.contains("reset") || message.contains("broken pipe")) {
+				return "connection-reset";
+			}
+		}
+		return null;
+	}
+
+	private static boolean isIdempotent(HttpRequest request) {
+		String method = request.getRequestLine().getMethod();
+		boolean idempotent = method.equals("GET") || method.equals("HEAD") || method.equals("OPTIONS")
+				|| method.equals("PUT") || method.equals("DELETE");
+		if (idempotent && request instanceof HttpEntityEnclosingRequest) {
+			HttpEntityEnclosingRequest withBody = (HttpEntityEnclosingRequest) request;
+			return withBody.getEntity() == null || withBody.getEntity().isRepeatable();
+		}
+		return idempotent;
+	}
+
+	// Takes a token from the budget when another attempt is allowed
+	private boolean mayRetry(int attempt, String path, String reason) {
+		if (attempt >= maxAttempts) {
+			exhausted.increment();
+			return false;
+		}
+		if (budgetRemaining.getAndDecrement() <= 0) {
+			budgetRemaining.incrementAndGet();
+			budgetDenied.increment();
+			Log.warn("Retry budget of " + budget + " spent, not retrying " + reason + " on " + path);
+			return false;
+		}
+		retries.increment();
+		retriesByReason.computeIfAbsent(reason, key -> new LongAdder()).increment();
+		retriesByEndpoint.computeIfAbsent(TransferMetrics.routeTemplate(path), key -> new LongAdder()).increment();
+		return true;
+	}
+
+	private void backOff(int attempt, String retryAfter, String path, String reason, String detail)
+			throws InterruptedIOException {
+		long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+		long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+		if (retryAfter != null) {
+			try {
+				delay = Math.min(maxDelayMillis, Math.max(delay, Long.parseLong(retryAfter.trim()) * 1000));
+			} catch (NumberFormatException ignored) {
+				// an HTTP-date Retry-After falls back to the jittered delay
+			}
+		}
+		Log.info("Retrying " + path + " after " + detail + " (" + reason + "), attempt " + (attempt + 1) + " of "
+				+ maxAttempts + " in " + delay + " ms");
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while backing off before retrying " + path);
+		}
+	}
+
+	// The added latency is everything before the final attempt started
+	private void recordOutcome(int attempt, long firstStart, long finalAttemptStart, boolean succeeded) {
+		if (attempt > 1) {
+			addedNanos.addAndGet(finalAttemptStart - firstStart);
+			if (succeeded) {
+				recovered.increment();
+			}
+		}
+	}
+
+	private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+		Map<String, Long> snapshot = new TreeMap<>();
+		for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+			snapshot.put(entry.getKey(), entry.getValue().sum());
+		}
+		return snapshot;
+	}
+}
@@ -0,0 +1,77 @@
+package rest;
+
+import java.util.Map;
+
+public class RetryStatistics {
+	private final long retries;
+	private final long recovered;
+	private final long exhausted;
+	private final long budgetDenied;
+	private final int budgetRemaining;
+	private final int budget;
+	private final long addedNanos;
+	private final Map<String, Long> retriesByReason;
+	private final Map<String, Long> retriesByEndpoint;
+
+	public RetryStatistics(long retries, long recovered, long exhausted, long budgetDenied, int budgetRemaining,
+			int budget, long addedNanos, Map<String, Long> retriesByReason, Map<String, Long> retriesByEndpoint) {
+		this.retries = retries;
+		this.recovered = recovered;
+		this.exhausted = exhausted;
+		this.budgetDenied = budgetDenied;
+		this.budgetRemaining = budgetRemaining;
+		this.budget = budget;
+		this.addedNanos = addedNanos;
+		this.retriesByReason = retriesByReason;
+		this.retriesByEndpoint = retriesByEndpoint;
+	}
+
+	// Extra attempts made, not counting the first attempt of each request
+	public long getRetries() {
+		return retries;
+	}
+
+	// Requests that succeeded after at least one retry
+	public long getRecovered() {
+		return recovered;
+	}
+
+	// Requests still failing after http.retry.maxAttempts attempts
+	public long getExhausted() {
+		return exhausted;
+	}
+
+	// Retryable failures returned as is because the budget was spent
+	public long getBudgetDenied() {
+		return budgetDenied;
+	}
+
+	public int getBudgetRemaining() {
+		return budgetRemaining;
+	}
+
+	public int getBudget() {
+		return budget;
+	}
+
+	// Time spent in failed attempts and backoff before the final attempt
+	public double getAddedMillis() {
+		return addedNanos / 1_000_000.0;
+	}
+
+	public Map<String, Long> getRetriesByReason() {
+		return retriesByReason;
+	}
+
+	public Map<String, Long> getRetriesByEndpoint() {
+		return retriesByEndpoint;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"HTTP retries: retries=%d, recovered=%d, exhausted=%d, budgetDenied=%d, budget=%d/%d, addedMs=%.1f, byReason=%s, byEndpoint=%s",
+				retries, recovered, exhausted, budgetDenied, budgetRemaining, budget, getAddedMillis(),
+				retriesByReason, retriesByEndpoint);
+	}
+}
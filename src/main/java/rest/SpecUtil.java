@@ -0,0 +1,69 @@
+package rest;
+
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.DecoderConfig;
+import io.restassured.config.DecoderConfig.ContentDecoder;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.ContentType;
+import io.restassured.specification.RequestSpecification;
+import restConfig.ConfigManager;
+
+public class SpecUtil {
+
+	private SpecUtil() {
+	}
+
+	// Built once on first use. given().spec(...) merges a copy of it into every
+	// request, so the shared instance itself is never mutated after build().
+	private static class Holder {
+		private static final RequestSpecification REQUEST_SPEC = buildRequestSpec();
+	}
+
+	/**
+	 * Returns the request specification shared by every {@link ApiUtil} call. It
+	 * carries the base URL, the Authorization header and the JSON content type, so
+	 * callers only have to layer their endpoint path and query on top of it.
+	 *
+	 * @return RequestSpecification - The shared, pre-built specification.
+	 */
+	public static RequestSpecification getRequestSpec() {
+		if (FixtureFilter.isFixturesEnabled()) {
+			// Opens the store before the holder, which must not fail to initialize
+			FixtureFilter.getInstance();
+		}
+		return Holder.REQUEST_SPEC;
+	}
+
+	// Method to build a fresh specification from config.properties
+	public static RequestSpecification buildRequestSpec() {
+		RequestSpecBuilder builder = new RequestSpecBuilder().setBaseUri(ConfigManager.getProperty("base.url"))
+				.addHeader("Authorization", AuthUtil.getAuthHeader()).setContentType(ContentType.JSON)
+				.setConfig(RestAssuredConfig.config().httpClient(HttpClientPool.httpClientConfig())
+						.decoderConfig(decoderConfig()));
+		if (FixtureFilter.isFixturesEnabled()) {
+			builder.addFilter(FixtureFilter.getInstance());
+		}
+		if (ResponseCache.isCacheEnabled()) {
+			builder.addFilter(ResponseCache.getInstance());
+		}
+		if (CircuitBreakerFilter.isBreakerEnabled()) {
+			builder.addFilter(CircuitBreakerFilter.getInstance());
+		}
+		if (RequestLimiter.isLimiterEnabled()) {
+			builder.addFilter(RequestLimiter.getInstance());
+		}
+		if (TransportFilter.isCustomTransport()) {
+			builder.addFilter(TransportFilter.getInstance());
+		}
+		return builder.build();
+	}
+
+	// Accept-Encoding is only sent when compression is enabled; the decoding
+	// itself is done by TransferMetrics
+	private static DecoderConfig decoderConfig() {
+		if (ConfigManager.getBooleanProperty("http.compression.enabled", true)) {
+			return DecoderConfig.decoderConfig().contentDecoders(ContentDecoder.GZIP, ContentDecoder.DEFLATE);
+		}
+		return DecoderConfig.decoderConfig().noContentDecoders();
+	}
+}
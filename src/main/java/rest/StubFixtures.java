@@ -0,0 +1,372 @@
+package rest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Synthetic response bodies for the paths in {@link ApiEndpoint}, shaped like
+ * the healthapp API: a "Status" of "OK" and the payload under "Results". The
+ * data is generated from the row index, so every run serves the same rows.
+ * Identifiers are unique within a list, ids passed in the query are echoed
+ * back, and the date-range paths only return rows whose date falls between
+ * FromDate and ToDate.
+ */
+final class StubFixtures {
+
+	private static final String[] ITEM_NAMES = { "Paracetamol 500mg", "Amoxicillin 250mg", "Cetirizine 10mg",
+			"Metformin 500mg", "Omeprazole 20mg", "Azithromycin 500mg", "Ibuprofen 400mg", "Pantoprazole 40mg" };
+	private static final String[] GENERIC_NAMES = { "Paracetamol", "Amoxicillin", "Cetirizine", "Metformin",
+			"Omeprazole", "Azithromycin", "Ibuprofen", "Pantoprazole" };
+	private static final String[] PATIENT_NAMES = { "Sonia Gandhi", "Surya Nayak", "Abhisek Mohanta", "Ram Sharma",
+			"Sita Thapa", "Hari Karki", "Gita Rai", "Bikash Shrestha" };
+	private static final String[] FILM_TYPES = { "8x10", "10x12", "11x14", "14x14", "14x17", "Dental", "Mammo 18x24" };
+	private static final String[] IMAGING_ITEMS = { "X-Ray Chest PA", "USG Abdomen", "CT Head Plain", "MRI Brain",
+			"X-Ray Knee AP/LAT" };
+	private static final String[] DEPARTMENTS = { "Radiology", "Laboratory", "Pharmacy", "Bed Charges", "OT" };
+	private static final String[] REQUISITION_STATUSES = { "active", "partial", "complete", "cancelled" };
+
+	private static final LocalDate FIRST_DATE = LocalDate.of(2019, 1, 1);
+	private static final LocalDate LAST_DATE = LocalDate.of(2025, 12, 31);
+
+	private final int rows;
+	private final Map<String, Function<Map<String, String>, Object>> results = new HashMap<>();
+
+	/**
+	 * @param rows - Number of rows in each list fixture; date-range lists spread
+	 *             them evenly from 2019 to 2025.
+	 */
+	StubFixtures(int rows) {
+		this.rows = Math.max(1, rows);
+		results.put("/PharmacyStock/AllStockDetails", query -> allStockDetails());
+		results.put("/PharmacySettings/MainStore", query -> mainStore());
+		results.put("/DispensaryRequisition/Dispensary", this::requisitions);
+		results.put("/PatientConsumption/PatientConsumptions", query -> patientConsumptions());
+		results.put("/PatientConsumption/PatientConsumptionInfo", this::patientConsumptionInfo);
+		results.put("/PatientConsumption/PharmacyIpBillingScheme", this::billingScheme);
+		results.put("/PharmacySales/PatientBillingSummary", this::billingSummary);
+		results.put("/PatientConsumption/ConsumptionsOfPatient", this::consumptionsOfPatient);
+		results.put("/PatientConsumption/Returns", query -> returns());
+		results.put("/Admission/DischargedPatients", this::dischargedPatients);
+		results.put("/radiology/FilmTypes", query -> filmTypes());
+		results.put("/radiology/Requisitions", this::imagingRequisitions);
+		results.put("/radiology/ImagingReports", this::imagingReports);
+		results.put("/Billing/InPatientProvisionalItems", this::inPatientProvisionalItems);
+	}
+
+	/**
+	 * Builds the response body for a path relative to base.url.
+	 *
+	 * @param path  - The endpoint path; a trailing numeric segment such as the
+	 *              dispensary id in /DispensaryRequisition/Dispensary/1 is passed
+	 *              on as the "id" parameter.
+	 * @param query - Query parameters, first value of each, names as sent.
+	 * @return Map - The body to serialize, or null when the path is unknown.
+	 */
+	Map<String, Object> body(String path, Map<String, String> query) {
+		Function<Map<String, String>, Object> fixture = results.get(path);
+		Map<String, String> parameters = new HashMap<>();
+		for (Map.Entry<String, String> entry : query.entrySet()) {
+			parameters.put(entry.getKey().toLowerCase(), entry.getValue());
+		}
+		if (fixture == null) {
+			int lastSlash = path.lastIndexOf('/');
+			fixture = lastSlash > 0 ? results.get(path.substring(0, lastSlash)) : null;
+			if (fixture == null) {
+				return null;
+			}
+			parameters.put("id", path.substring(lastSlash + 1));
+		}
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("Status", "OK");
+		body.put("Results", fixture.apply(parameters));
+		body.put("ErrorMessage", null);
+		return body;
+	}
+
+	private List<Map<String, Object>> allStockDetails() {
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("ItemId", 1000 + i);
+			row.put("ItemName", pick(ITEM_NAMES, i) + " #" + i);
+			row.put("GenericName", pick(GENERIC_NAMES, i));
+			row.put("BatchNo", "B" + (5000 + i));
+			row.put("ExpiryDate", dateTime(LAST_DATE.minusDays(i % 400)));
+			row.put("AvailableQuantity", 10 + i * 7 % 500);
+			row.put("CostPrice", price(i));
+			row.put("MRP", price(i) * 1.2);
+			row.put("StoreId", 1);
+			row.put("IsActive", true);
+			list.add(row);
+		}
+		return list;
+	}
+
+	private Map<String, Object> mainStore() {
+		Map<String, Object> store = new LinkedHashMap<>();
+		store.put("StoreId", 1);
+		store.put("Name", "Main Store");
+		store.put("Code", "MS");
+		store.put("Category", "store");
+		store.put("SubCategory", "pharmacy");
+		store.put("StoreDescription", "Central pharmacy store");
+		store.put("IsActive", true);
+		return store;
+	}
+
+	private List<Map<String, Object>> requisitions(Map<String, String> query) {
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			String date = dateTime(dateOf(i));
+			if (!inRange(date, query)) {
+				continue;
+			}
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("RequisitionId", 2000 + i);
+			row.put("RequistionNo", 1 + i);
+			row.put("RequisitionDate", date);
+			row.put("RequisitionStatus", pick(REQUISITION_STATUSES, i));
+			row.put("DispensaryId", intParameter(query, "id", 1));
+			row.put("CreatedBy", 1);
+			list.add(row);
+		}
+		return list;
+	}
+
+	private List<Map<String, Object>> patientConsumptions() {
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("PatientId", 100 + i);
+			row.put("PatientVisitId", 40 + i);
+			row.put("HospitalNo", hospitalNo(100 + i));
+			row.put("PatientName", pick(PATIENT_NAMES, i));
+			row.put("Gender", i % 2 == 0 ? "Female" : "Male");
+			row.put("Age", (20 + i % 60) + "Y");
+			row.put("TotalAmount", price(i) * 3);
+			list.add(row);
+		}
+		return list;
+	}
+
+	private Map<String, Object> patientConsumptionInfo(Map<String, String> query) {
+		int patientId = intParameter(query, "patientid", 114);
+		Map<String, Object> info = new LinkedHashMap<>();
+		info.put("PatientId", patientId);
+		info.put("PatientVisitId", intParameter(query, "patientvisitid", 53));
+		info.put("HospitalNo", hospitalNo(patientId));
+		info.put("PatientName", pick(PATIENT_NAMES, patientId));
+		info.put("WardName", "General Ward");
+		info.put("BedCode", "GW-" + patientId % 30);
+		return info;
+	}
+
+	private Map<String, Object> billingScheme(Map<String, String> query) {
+		int schemeId = intParameter(query, "schemeid", 4);
+		Map<String, Object> scheme = new LinkedHashMap<>();
+		scheme.put("SchemeId", schemeId);
+		scheme.put("SchemeCode", "SCH" + schemeId);
+		scheme.put("SchemeName", "General Scheme " + schemeId);
+		scheme.put("DefaultPriceCategoryId", 1);
+		scheme.put("IsActive", true);
+		return scheme;
+	}
+
+	private Map<String, Object> billingSummary(Map<String, String> query) {
+		int patientId = intParameter(query, "patientid", 114);
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("PatientId", patientId);
+		summary.put("CreditAmount", 0.0);
+		summary.put("ProvisionalAmt", 1250.5);
+		summary.put("TotalDue", 1250.5);
+		summary.put("DepositBalance", 500.25);
+		summary.put("BalanceAmount", 750.25);
+		return summary;
+	}
+
+	private List<Map<String, Object>> consumptionsOfPatient(Map<String, String> query) {
+		int patientId = intParameter(query, "patientid", 114);
+		int visitId = intParameter(query, "patientvisitid", 53);
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("PatientConsumptionId", 3000 + i);
+			row.put("PatientId", patientId);
+			row.put("PatientVisitId", visitId);
+			row.put("ItemName", pick(ITEM_NAMES, i));
+			row.put("Quantity", 1 + i % 5);
+			row.put("SalePrice", price(i));
+			row.put("TotalAmount", price(i) * (1 + i % 5));
+			row.put("CreatedOn", dateTime(dateOf(i)));
+			list.add(row);
+		}
+		return list;
+	}
+
+	private List<Map<String, Object>> returns() {
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("ConsumptionReturnReceiptNo", 4000 + i);
+			row.put("PatientId", 100 + i);
+			row.put("PatientName", pick(PATIENT_NAMES, i));
+			row.put("HospitalNo", hospitalNo(100 + i));
+			row.put("TotalAmount", price(i));
+			row.put("CreatedOn", dateTime(dateOf(i)));
+			list.add(row);
+		}
+		return list;
+	}
+
+	private List<Map<String, Object>> dischargedPatients(Map<String, String> query) {
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			String discharged = dateTime(dateOf(i));
+			if (!inRange(discharged, query)) {
+				continue;
+			}
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("PatientAdmissionId", 5000 + i);
+			row.put("PatientVisitId", 6000 + i);
+			row.put("PatientId", 100 + i);
+			row.put("PatientCode", hospitalNo(100 + i));
+			row.put("Name", pick(PATIENT_NAMES, i));
+			row.put("AdmittedDate", dateTime(dateOf(i).minusDays(1 + i % 10)));
+			row.put("DischargedDate", discharged);
+			row.put("AdmissionStatus", "discharged");
+			list.add(row);
+		}
+		return list;
+	}
+
+	private List<Map<String, Object>> filmTypes() {
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (int i = 0; i < FILM_TYPES.length; i++) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("FilmTypeId", 1 + i);
+			row.put("FilmType", FILM_TYPES[i]);
+			row.put("ImagingTypeId", 1 + i % 4);
+			row.put("IsActive", true);
+			list.add(row);
+		}
+		return list;
+	}
+
+	private List<Map<String, Object>> imagingRequisitions(Map<String, String> query) {
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			String createdOn = dateTime(dateOf(i));
+			if (!inRange(createdOn, query)) {
+				continue;
+			}
+			Map<String, Object> row = imagingRow(i, createdOn);
+			row.put("OrderStatus", query.getOrDefault("reqorderstatus", "active"));
+			list.add(row);
+		}
+		return list;
+	}
+
+	private List<Map<String, Object>> imagingReports(Map<String, String> query) {
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			String createdOn = dateTime(dateOf(i));
+			if (!inRange(createdOn, query)) {
+				continue;
+			}
+			Map<String, Object> row = imagingRow(i, createdOn);
+			row.put("ImagingReportId", 8000 + i);
+			row.put("OrderStatus", query.getOrDefault("reportorderstatus", "final"));
+			list.add(row);
+		}
+		return list;
+	}
+
+	private Map<String, Object> imagingRow(int i, String createdOn) {
+		Map<String, Object> row = new LinkedHashMap<>();
+		row.put("ImagingRequisitionId", 7000 + i);
+		row.put("PatientId", 100 + i);
+		row.put("PatientName", pick(PATIENT_NAMES, i));
+		row.put("ImagingTypeId", 1 + i % 4);
+		row.put("ImagingItemName", pick(IMAGING_ITEMS, i));
+		row.put("CreatedOn", createdOn);
+		return row;
+	}
+
+	private Map<String, Object> inPatientProvisionalItems(Map<String, String> query) {
+		int patientId = intParameter(query, "patientid", 176);
+		int visitId = intParameter(query, "patientvisitid", 147);
+		Map<String, Object> patient = new LinkedHashMap<>();
+		patient.put("PatientId", patientId);
+		patient.put("PatientVisitId", visitId);
+		patient.put("PatientCode", hospitalNo(patientId));
+		patient.put("ShortName", pick(PATIENT_NAMES, patientId));
+		patient.put("Gender", "Male");
+
+		List<Map<String, Object>> billItems = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			Map<String, Object> item = new LinkedHashMap<>();
+			item.put("BillingTransactionItemId", 9000 + i);
+			item.put("PatientId", patientId);
+			item.put("PatientVisitId", visitId);
+			item.put("ServiceDepartmentName", pick(DEPARTMENTS, i));
+			item.put("ItemName", pick(IMAGING_ITEMS, i));
+			item.put("Price", price(i));
+			item.put("Quantity", 1);
+			item.put("BillStatus", "provisional");
+			item.put("BillingType", "inpatient");
+			item.put("VisitType", "inpatient");
+			billItems.add(item);
+		}
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("Patient", patient);
+		result.put("BillItems", billItems);
+		return result;
+	}
+
+	// Row dates step evenly through 2019 to 2025
+	private LocalDate dateOf(int i) {
+		long span = LAST_DATE.toEpochDay() - FIRST_DATE.toEpochDay();
+		return FIRST_DATE.plusDays(span * i / rows);
+	}
+
+	/**
+	 * Compares the timestamp as text against the FromDate and ToDate
+	 * parameters, so a ToDate without a time means midnight at its start.
+	 */
+	private static boolean inRange(String dateTime, Map<String, String> query) {
+		String from = query.get("fromdate");
+		String to = query.get("todate");
+		return (from == null || dateTime.compareTo(from) >= 0) && (to == null || dateTime.compareTo(to) <= 0);
+	}
+
+	private static String dateTime(LocalDate date) {
+		return date + "T10:30:00";
+	}
+
+	private static double price(int i) {
+		return 5 + i * 37 % 1000 / 4.0;
+	}
+
+	private static String hospitalNo(int patientId) {
+		return String.format("2406%06d", patientId);
+	}
+
+	private static String pick(String[] values, int i) {
+		return values[Math.floorMod(i, values.length)];
+	}
+
+	private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+		try {
+			String value = query.get(name);
+			return value == null ? defaultValue : Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+}
@@ -0,0 +1,342 @@
+package rest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.DiscardingEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import coreUtilities.utils.Log;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import restConfig.ConfigManager;
+
+/**
+ * In-process stand-in for the healthapp API, serving the fixtures in
+ * {@link StubFixtures} for every {@link ApiEndpoint} path. Point base.url at
+ * {@link #getBaseUrl()} to run the suite, a sweep or a load test without
+ * network access or a valid token; the Authorization header is not checked.
+ *
+ * The server is built on Netty with keep-alive and gzip/deflate support, and
+ * each distinct URI is rendered once and then served from memory, so the stub
+ * is rarely the bottleneck when benchmarking the client. With stub.enabled the
+ * test listener and {@link LoadGenerator} start a shared instance on stub.port.
+ *
+ * A second listener on stub.h2c.port serves the same fixtures over HTTP/2
+ * cleartext (h2c with prior knowledge) for {@link Http2Transport}. It speaks
+ * HTTP/2 only and does not compress responses.
+ */
+public class StubServer implements AutoCloseable {
+
+	public static final String BASE_PATH = "/api";
+
+	private static final boolean STUB_ENABLED = ConfigManager.getBooleanProperty("stub.enabled", false);
+	private static final int PORT = ConfigManager.getIntProperty("stub.port", 18080);
+	private static final int H2C_PORT = ConfigManager.getIntProperty("stub.h2c.port", -1);
+	private static final int THREADS = ConfigManager.getIntProperty("stub.threads", 0);
+	private static final int ROWS = ConfigManager.getIntProperty("stub.rows", 100);
+
+	// Rendered bodies are kept for this many distinct URIs
+	private static final int MAX_RENDERED = 1024;
+
+	private static StubServer shared;
+
+	private final int requestedPort;
+	private final int requestedH2cPort;
+	private final int threads;
+	private final StubFixtures fixtures;
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final ConcurrentMap<String, byte[]> rendered = new ConcurrentHashMap<>();
+
+	private EventLoopGroup bossGroup;
+	private EventLoopGroup workerGroup;
+	private Channel serverChannel;
+	private HttpAsyncServer h2cServer;
+	private ListenerEndpoint h2cEndpoint;
+
+	public StubServer() {
+		this(PORT, H2C_PORT, THREADS, ROWS);
+	}
+
+	/**
+	 * @param port    - Port to listen on, 0 for any free port.
+	 * @param threads - Event loop threads, 0 for Netty's default of twice the
+	 *                number of cores.
+	 * @param rows    - Number of rows in each list fixture.
+	 */
+	public StubServer(int port, int threads, int rows) {
+		this(port, -1, threads, rows);
+	}
+
+	/**
+	 * @param port    - Port to listen on, 0 for any free port.
+	 * @param h2cPort - Port for the h2c listener, 0 for any free port and -1 for
+	 *                none.
+	 * @param threads - Event loop threads, 0 for Netty's default of twice the
+	 *                number of cores.
+	 * @param rows    - Number of rows in each list fixture.
+	 */
+	public StubServer(int port, int h2cPort, int threads, int rows) {
+		this.requestedPort = port;
+		this.requestedH2cPort = h2cPort;
+		this.threads = threads;
+		this.fixtures = new StubFixtures(rows);
+	}
+
+	public static boolean isStubEnabled() {
+		return STUB_ENABLED;
+	}
+
+	// Starts the instance configured in config.properties, once per JVM
+	public static synchronized StubServer startShared() throws InterruptedException {
+		if (shared == null) {
+			shared = new StubServer().start();
+		}
+		return shared;
+	}
+
+	public synchronized StubServer start() throws InterruptedException {
+		if (serverChannel != null) {
+			return this;
+		}
+		bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("stub-boss", true));
+		workerGroup = new NioEventLoopGroup(threads, new DefaultThreadFactory("stub-worker", true));
+		StubHandler handler = new StubHandler();
+		ServerBootstrap bootstrap = new ServerBootstrap().group(bossGroup, workerGroup)
+				.channel(NioServerSocketChannel.class).option(ChannelOption.SO_BACKLOG, 1024)
+				.childOption(ChannelOption.TCP_NODELAY, true).childHandler(new ChannelInitializer<SocketChannel>() {
+					@Override
+					protected void initChannel(SocketChannel channel) {
+						channel.pipeline().addLast(new HttpServerCodec(), new HttpContentCompressor(),
+								new HttpObjectAggregator(1024 * 1024), handler);
+					}
+				});
+		try {
+			serverChannel = bootstrap.bind(requestedPort).sync().channel();
+			if (requestedH2cPort >= 0) {
+				startH2c();
+			}
+		} catch (InterruptedException | RuntimeException e) {
+			close();
+			throw e;
+		}
+		Log.info("Stub server listening on " + getBaseUrl()
+				+ (h2cEndpoint == null ? "" : ", h2c on " + getH2cBaseUrl()));
+		return this;
+	}
+
+	private void startH2c() throws InterruptedException {
+		IOReactorConfig.Builder reactor = IOReactorConfig.custom().setTcpNoDelay(true).setSoReuseAddress(true);
+		if (threads > 0) {
+			reactor.setIoThreadCount(threads);
+		}
+		h2cServer = H2ServerBootstrap.bootstrap().setIOReactorConfig(reactor.build())
+				.setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+				.setH2Config(H2Config.custom().setPushEnabled(false).build()).register("*", new H2cHandler()).create();
+		h2cServer.start();
+		try {
+			h2cEndpoint = h2cServer.listen(new InetSocketAddress(requestedH2cPort), URIScheme.HTTP).get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Cannot listen on h2c port " + requestedH2cPort, e.getCause());
+		}
+	}
+
+	public int getPort() {
+		return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+	}
+
+	// Value for base.url
+	public String getBaseUrl() {
+		return "http://localhost:" + getPort() + BASE_PATH;
+	}
+
+	// Port of the h2c listener, or -1 when it is not running
+	public int getH2cPort() {
+		return h2cEndpoint == null ? -1 : ((InetSocketAddress) h2cEndpoint.getAddress()).getPort();
+	}
+
+	// Value for base.url with http.transport=http2
+	public String getH2cBaseUrl() {
+		return "http://localhost:" + getH2cPort() + BASE_PATH;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (h2cServer != null) {
+			h2cServer.close(CloseMode.IMMEDIATE);
+			h2cServer = null;
+			h2cEndpoint = null;
+		}
+		if (serverChannel != null) {
+			serverChannel.close().syncUninterruptibly();
+			serverChannel = null;
+		}
+		if (workerGroup != null) {
+			workerGroup.shutdownGracefully().syncUninterruptibly();
+			workerGroup = null;
+		}
+		if (bossGroup != null) {
+			bossGroup.shutdownGracefully().syncUninterruptibly();
+			bossGroup = null;
+		}
+	}
+
+	// Body for a request URI, or null for an unknown path
+	private byte[] render(String uri) throws JsonProcessingException {
+		byte[] body = rendered.get(uri);
+		if (body != null) {
+			return body;
+		}
+		QueryStringDecoder decoder = new QueryStringDecoder(uri);
+		String path = decoder.path();
+		if (!path.startsWith(BASE_PATH + "/")) {
+			return null;
+		}
+		Map<String, String> query = new LinkedHashMap<>();
+		for (Map.Entry<String, List<String>> parameter : decoder.parameters().entrySet()) {
+			query.put(parameter.getKey(), parameter.getValue().get(0));
+		}
+		Map<String, Object> fixture = fixtures.body(path.substring(BASE_PATH.length()), query);
+		if (fixture == null) {
+			return null;
+		}
+		body = mapper.writeValueAsBytes(fixture);
+		if (rendered.size() < MAX_RENDERED) {
+			rendered.put(uri, body);
+		}
+		return body;
+	}
+
+	// Status and body for a request; unknown paths and methods other than GET get
+	// a JSON error body
+	private StubReply reply(String method, String uri) throws JsonProcessingException {
+		HttpResponseStatus status = HttpResponseStatus.OK;
+		byte[] body = null;
+		if (HttpMethod.GET.name().equals(method)) {
+			body = render(uri);
+			if (body == null) {
+				status = HttpResponseStatus.NOT_FOUND;
+			}
+		} else {
+			status = HttpResponseStatus.METHOD_NOT_ALLOWED;
+		}
+		if (body == null) {
+			body = ("{\"Status\":\"Failed\",\"Results\":null,\"ErrorMessage\":\"" + status + " " + method + " "
+					+ uri.replace("\"", "'") + "\"}").getBytes(StandardCharsets.UTF_8);
+		}
+		return new StubReply(status, body);
+	}
+
+	private static class StubReply {
+		private final HttpResponseStatus status;
+		private final byte[] body;
+
+		StubReply(HttpResponseStatus status, byte[] body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+
+	@Sharable
+	private class StubHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+		@Override
+		protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) throws Exception {
+			StubReply reply = reply(request.method().name(), request.uri());
+			FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, reply.status,
+					Unpooled.wrappedBuffer(reply.body));
+			response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json; charset=utf-8");
+			response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, reply.body.length);
+			boolean keepAlive = HttpUtil.isKeepAlive(request);
+			if (keepAlive) {
+				response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+				ctx.writeAndFlush(response);
+			} else {
+				ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+			}
+		}
+
+		@Override
+		public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+			Log.warn("Stub server closing connection: " + cause);
+			ctx.close();
+		}
+	}
+
+	private class H2cHandler implements AsyncServerRequestHandler<Message<HttpRequest, Void>> {
+
+		@Override
+		public AsyncRequestConsumer<Message<HttpRequest, Void>> prepare(HttpRequest request,
+				EntityDetails entityDetails, HttpContext context) {
+			return new BasicRequestConsumer<>(entityDetails == null ? null : new DiscardingEntityConsumer<>());
+		}
+
+		@Override
+		public void handle(Message<HttpRequest, Void> message, ResponseTrigger responseTrigger, HttpContext context)
+				throws HttpException, IOException {
+			HttpRequest request = message.getHead();
+			StubReply reply = reply(request.getMethod(), request.getPath());
+			responseTrigger.submitResponse(AsyncResponseBuilder.create(reply.status.code())
+					.setEntity(reply.body, ContentType.APPLICATION_JSON).build(), context);
+		}
+	}
+
+	// Serves the fixtures on stub.port until the process is stopped
+	public static void main(String[] args) throws InterruptedException {
+		StubServer server = new StubServer().start();
+		System.out.println("Stub server listening on " + server.getBaseUrl());
+		server.serverChannel.closeFuture().sync();
+	}
+}
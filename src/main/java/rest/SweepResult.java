@@ -0,0 +1,62 @@
+package rest;
+
+public class SweepResult {
+	private final String methodName;
+	private final String endpoint;
+	private final int statusCode;
+	private final String status;
+	private final long latencyMillis;
+	private final long payloadBytes;
+	private final String error;
+
+	public SweepResult(String methodName, String endpoint, int statusCode, String status, long latencyMillis,
+			long payloadBytes, String error) {
+		this.methodName = methodName;
+		this.endpoint = endpoint;
+		this.statusCode = statusCode;
+		this.status = status;
+		this.latencyMillis = latencyMillis;
+		this.payloadBytes = payloadBytes;
+		this.error = error;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public long getLatencyMillis() {
+		return latencyMillis;
+	}
+
+	public long getPayloadBytes() {
+		return payloadBytes;
+	}
+
+	// Exception message when the call failed or timed out, otherwise null
+	public String getError() {
+		return error;
+	}
+
+	public boolean isHealthy() {
+		return error == null && statusCode == 200 && "OK".equals(status);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%-48s %-7s http=%d status=%s latency=%dms payload=%dB%s", methodName,
+				isHealthy() ? "HEALTHY" : "FAILED", statusCode, status, latencyMillis, payloadBytes,
+				error == null ? "" : " error=" + error);
+	}
+}
@@ -0,0 +1,48 @@
+package rest;
+
+// Scheme, host and port of a request URI, parsed by hand since RestAssured may
+// leave characters such as [ ] unescaped in the query
+final class TargetUri {
+	final boolean secure;
+	final String host;
+	final int port;
+	final String authority;
+	final String pathAndQuery;
+	final String origin;
+
+	private TargetUri(boolean secure, String host, int port, String authority, String pathAndQuery) {
+		this.secure = secure;
+		this.host = host;
+		this.port = port;
+		this.authority = authority;
+		this.pathAndQuery = pathAndQuery;
+		this.origin = (secure ? "https://" : "http://") + host + ":" + port;
+	}
+
+	static TargetUri parse(String uri) {
+		int schemeEnd = uri.indexOf("://");
+		if (schemeEnd < 0) {
+			throw new IllegalArgumentException("Not an absolute URI: " + uri);
+		}
+		String scheme = uri.substring(0, schemeEnd).toLowerCase();
+		if (!scheme.equals("http") && !scheme.equals("https")) {
+			throw new IllegalArgumentException("Unsupported scheme in " + uri);
+		}
+		boolean secure = scheme.equals("https");
+		int authorityStart = schemeEnd + 3;
+		int pathStart = uri.indexOf('/', authorityStart);
+		int queryStart = uri.indexOf('?', authorityStart);
+		int authorityEnd = pathStart < 0 ? (queryStart < 0 ? uri.length() : queryStart)
+				: (queryStart < 0 ? pathStart : Math.min(pathStart, queryStart));
+		String authority = uri.substring(authorityStart, authorityEnd);
+		String pathAndQuery = authorityEnd == uri.length() ? "/" : uri.substring(authorityEnd);
+		if (pathAndQuery.startsWith("?")) {
+			pathAndQuery = "/" + pathAndQuery;
+		}
+
+		int portStart = authority.lastIndexOf(':');
+		String host = portStart < 0 ? authority : authority.substring(0, portStart);
+		int port = portStart < 0 ? (secure ? 443 : 80) : Integer.parseInt(authority.substring(portStart + 1));
+		return new TargetUri(secure, host, port, authority, pathAndQuery);
+	}
+}
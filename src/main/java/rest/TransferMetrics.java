@@ -0,0 +1,317 @@
+package rest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+
+import restConfig.ConfigManager;
+
+/**
+ * Decodes gzip and deflate response bodies as they are streamed and records,
+ * per route template, the body bytes received on the wire, the bytes after
+ * decoding and the time spent decompressing. The interceptor runs before
+ * RestAssured's own content decoders and hides the Content-Encoding from them,
+ * so each body is decompressed exactly once and never buffered in compressed
+ * form.
+ *
+ * The end of each body stream is also where {@link LatencyMetrics} takes the
+ * last-byte time.
+ *
+ * Whether Accept-Encoding is sent is controlled by http.compression.enabled;
+ * compressed responses are decoded either way. An endpoint whose compressed
+ * response count stays at zero while compression is enabled ignores it.
+ */
+public class TransferMetrics {
+
+	private static final String BASE_PATH = basePath(ConfigManager.getProperty("base.url"));
+
+	// Path segments that are ids: whole numbers and GUIDs
+	private static final Pattern ID_SEGMENT = Pattern
+			.compile("(?<=/)(\\d+|\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12})(?=/|$)");
+
+	private static final ConcurrentMap<String, Counters> COUNTERS = new ConcurrentHashMap<>();
+
+	private TransferMetrics() {
+	}
+
+	// The interceptor HttpClientPool registers on every client it creates
+	public static HttpResponseInterceptor responseInterceptor() {
+		return new DecodingInterceptor();
+	}
+
+	/**
+	 * Takes a snapshot of the transfer counters.
+	 *
+	 * @return Map - Statistics keyed by route template, sorted by template.
+	 */
+	public static Map<String, TransferStatistics> getStatistics() {
+		Map<String, TransferStatistics> statistics = new TreeMap<>();
+		for (Map.Entry<String, Counters> entry : COUNTERS.entrySet()) {
+			Counters counters = entry.getValue();
+			statistics.put(entry.getKey(),
+					new TransferStatistics(entry.getKey(), counters.responses.sum(), counters.compressed.sum(),
+							counters.wireBytes.sum(), counters.decodedBytes.sum(), counters.decodeNanos.sum()));
+		}
+		return statistics;
+	}
+
+	public static void reset() {
+		COUNTERS.clear();
+	}
+
+	static void record(String path, boolean compressed, long wireBytes, long decodedBytes, long decodeNanos) {
+		Counters counters = COUNTERS.computeIfAbsent(path, key -> new Counters());
+		counters.responses.increment();
+		if (compressed) {
+			counters.compressed.increment();
+		}
+		counters.wireBytes.add(wireBytes);
+		counters.decodedBytes.add(decodedBytes);
+		counters.decodeNanos.add(decodeNanos);
+	}
+
+	// Endpoint path of the request, relative to base.url and without the query
+	static String endpointPath(HttpRequest request) {
+		return endpointPath(request.getRequestLine().getUri());
+	}
+
+	static String endpointPath(String uri) {
+		int queryStart = uri.indexOf('?');
+		String path = queryStart < 0 ? uri : uri.substring(0, queryStart);
+		if (path.startsWith("http://") || path.startsWith("https://")) {
+			int pathStart = path.indexOf('/', path.indexOf("//") + 2);
+			path = pathStart < 0 ? "/" : path.substring(pathStart);
+		}
+		if (!BASE_PATH.isEmpty() && path.startsWith(BASE_PATH + "/")) {
+			path = path.substring(BASE_PATH.length());
+		}
+		return path;
+	}
+
+	/**
+	 * Endpoint path with its id segments replaced by {id}, for example
+	 * /DispensaryRequisition/Dispensary/{id}. Metrics, circuit breakers and
+	 * limiter buckets are keyed by it, so each route has one entry however many
+	 * ids a load or monitor loop goes through.
+	 *
+	 * @param uri - Request URI, absolute or relative to base.url.
+	 * @return String - The route template.
+	 */
+	static String routeTemplate(String uri) {
+		String path = endpointPath(uri);
+		for (int i = 1; i < path.length(); i++) {
+			if (path.charAt(i - 1) == '/' && Character.digit(path.charAt(i), 16) >= 0) {
+				return ID_SEGMENT.matcher(path).replaceAll("{id}");
+			}
+		}
+		return path;
+	}
+
+	private static String basePath(String baseUrl) {
+		if (baseUrl == null) {
+			return "";
+		}
+		try {
+			String path = URI.create(baseUrl).getPath();
+			return path == null || path.equals("/") ? "" : path.replaceAll("/+$", "");
+		} catch (IllegalArgumentException e) {
+			return "";
+		}
+	}
+
+	private static class Counters {
+		private final LongAdder responses = new LongAdder();
+		private final LongAdder compressed = new LongAdder();
+		private final LongAdder wireBytes = new LongAdder();
+		private final LongAdder decodedBytes = new LongAdder();
+		private final LongAdder decodeNanos = new LongAdder();
+	}
+
+	private static class DecodingInterceptor implements HttpResponseInterceptor {
+		@Override
+		public void process(HttpResponse response, HttpContext context) {
+			HttpEntity entity = response.getEntity();
+			Object request = context.getAttribute(HttpCoreContext.HTTP_REQUEST);
+			if (!(request instanceof HttpRequest)) {
+				return;
+			}
+			String path = routeTemplate(((HttpRequest) request).getRequestLine().getUri());
+			if (entity == null) {
+				LatencyMetrics.record(path, context, System.nanoTime());
+				return;
+			}
+			Header encodingHeader = entity.getContentEncoding();
+			String encoding = encodingHeader == null ? "identity" : encodingHeader.getValue().trim().toLowerCase();
+			if (!encoding.equals("identity") && !encoding.equals("gzip") && !encoding.equals("x-gzip")
+					&& !encoding.equals("deflate")) {
+				// Left to RestAssured, which fails on encodings it does not know either
+				LatencyMetrics.record(path, context, System.nanoTime());
+				return;
+			}
+			response.setEntity(new MeteredEntity(entity, encoding, path, context));
+		}
+	}
+
+	private static class MeteredEntity extends HttpEntityWrapper {
+		private final String encoding;
+		private final String path;
+		private final HttpContext context;
+		private InputStream content;
+
+		MeteredEntity(HttpEntity wrapped, String encoding, String path, HttpContext context) {
+			super(wrapped);
+			this.encoding = encoding;
+			this.path = path;
+			this.context = context;
+		}
+
+		@Override
+		public synchronized InputStream getContent() throws IOException {
+			if (content == null) {
+				MeteredStream wire = new MeteredStream(wrappedEntity.getContent(), null);
+				InputStream decoded = wire;
+				if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+					decoded = new GZIPInputStream(wire, 8192);
+				} else if (encoding.equals("deflate")) {
+					decoded = inflate(wire);
+				}
+				content = decoded == wire ? wire : new MeteredStream(decoded, wire);
+			}
+			return content;
+		}
+
+		// Decoded on the fly, so RestAssured must not see the encoding
+		@Override
+		public Header getContentEncoding() {
+			return null;
+		}
+
+		@Override
+		public long getContentLength() {
+			return encoding.equals("identity") ? super.getContentLength() : -1;
+		}
+
+		@Override
+		public boolean isStreaming() {
+			return true;
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return false;
+		}
+
+		@Override
+		public void writeTo(OutputStream out) throws IOException {
+			try (InputStream in = getContent()) {
+				byte[] buffer = new byte[8192];
+				int count;
+				while ((count = in.read(buffer)) >= 0) {
+					out.write(buffer, 0, count);
+				}
+			}
+		}
+
+		// "deflate" is specified as zlib, but some servers send a raw deflate stream
+		private InputStream inflate(InputStream wire) throws IOException {
+			PushbackInputStream in = new PushbackInputStream(wire, 2);
+			int first = in.read();
+			int second = first < 0 ? -1 : in.read();
+			if (second >= 0) {
+				in.unread(second);
+			}
+			if (first >= 0) {
+				in.unread(first);
+			}
+			boolean zlib = first >= 0 && second >= 0 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+			return new InflaterInputStream(in, new Inflater(!zlib), 8192);
+		}
+
+		/**
+		 * Counts bytes and read time. The outer stream of a compressed body refers
+		 * to the wire stream beneath it, so the time spent decompressing is the
+		 * outer read time minus the time spent waiting for the network.
+		 */
+		private class MeteredStream extends FilterInputStream {
+			private final MeteredStream wire;
+			private long bytes;
+			private long nanos;
+			private boolean recorded;
+
+			MeteredStream(InputStream in, MeteredStream wire) {
+				super(in);
+				this.wire = wire;
+			}
+
+			@Override
+			public int read() throws IOException {
+				long start = System.nanoTime();
+				int b = super.read();
+				nanos += System.nanoTime() - start;
+				if (b < 0) {
+					finish();
+				} else {
+					bytes++;
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) throws IOException {
+				long start = System.nanoTime();
+				int count = super.read(buffer, offset, length);
+				nanos += System.nanoTime() - start;
+				if (count < 0) {
+					finish();
+				} else {
+					bytes += count;
+				}
+				return count;
+			}
+
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					finish();
+				}
+			}
+
+			// The outermost stream records once, at end of stream or on close
+			private void finish() {
+				if (recorded || (wire == null && content != this)) {
+					return;
+				}
+				recorded = true;
+				LatencyMetrics.record(path, context, System.nanoTime());
+				if (wire == null) {
+					TransferMetrics.record(path, false, bytes, bytes, 0);
+				} else {
+					TransferMetrics.record(path, true, wire.bytes, bytes, Math.max(0, nanos - wire.nanos));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package rest;
+
+public class TransferStatistics {
+	private final String path;
+	private final long responses;
+	private final long compressedResponses;
+	private final long wireBytes;
+	private final long decodedBytes;
+	private final long decodeNanos;
+
+	public TransferStatistics(String path, long responses, long compressedResponses, long wireBytes,
+			long decodedBytes, long decodeNanos) {
+		this.path = path;
+		this.responses = responses;
+		this.compressedResponses = compressedResponses;
+		this.wireBytes = wireBytes;
+		this.decodedBytes = decodedBytes;
+		this.decodeNanos = decodeNanos;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public long getResponses() {
+		return responses;
+	}
+
+	public long getCompressedResponses() {
+		return compressedResponses;
+	}
+
+	// Body bytes as received, before decompression
+	public long getWireBytes() {
+		return wireBytes;
+	}
+
+	public long getDecodedBytes() {
+		return decodedBytes;
+	}
+
+	public double getDecodeMillis() {
+		return decodeNanos / 1_000_000.0;
+	}
+
+	// Share of the decoded size that did not have to cross the network
+	public double getSavings() {
+		return decodedBytes == 0 ? 0 : 1 - (double) wireBytes / decodedBytes;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%-48s responses=%d compressed=%d wire=%dB decoded=%dB saved=%.1f%% decodeMs=%.1f%s",
+				path, responses, compressedResponses, wireBytes, decodedBytes, getSavings() * 100, getDecodeMillis(),
+				compressedResponses == 0 ? " (uncompressed)" : "");
+	}
+}
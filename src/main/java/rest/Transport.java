@@ -0,0 +1,38 @@
+package rest;
+
+import java.util.concurrent.CompletableFuture;
+
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+/**
+ * Sends the HTTP requests built by {@link ApiUtil} when http.transport names
+ * an alternative to RestAssured's own HttpClient. The RestAssured filters for
+ * fixtures, caching, the circuit breaker and the limiter run before the
+ * transport; the response it returns is parsed by ApiUtil exactly as before,
+ * so both paths produce the same {@link CustomResponse}. {@link AsyncApiUtil}
+ * can also call the transport directly and compose on the returned future.
+ *
+ * An implementation named by its class in http.transport needs a public
+ * no-argument constructor.
+ */
+public interface Transport extends AutoCloseable {
+
+	/**
+	 * Sends one request without blocking the caller.
+	 *
+	 * @param method  - The HTTP method, for example "GET".
+	 * @param uri     - The absolute URI including the query string.
+	 * @param headers - The request headers, Content-Type included.
+	 * @param body    - The serialized body, or null.
+	 * @return CompletableFuture - Completes with the response, its body already
+	 *         decoded, or exceptionally when the request could not be sent or
+	 *         timed out. Cancelling it aborts the exchange.
+	 */
+	CompletableFuture<Response> send(String method, String uri, Headers headers, byte[] body);
+
+	// Releases connections and threads
+	@Override
+	default void close() {
+	}
+}
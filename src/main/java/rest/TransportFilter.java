@@ -0,0 +1,136 @@
+package rest;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import restConfig.ConfigManager;
+
+/**
+ * Last filter in the chain when http.transport is not "restassured": instead of
+ * letting RestAssured send the request through {@link HttpClientPool}, it hands
+ * the request to the configured {@link Transport} and waits for the response.
+ * RestAssured's API is blocking, so the calling thread is parked until then;
+ * {@link AsyncApiUtil} avoids that by sending to {@link #getTransport()}
+ * itself.
+ * http.transport=netty selects {@link NettyTransport} and http2 selects
+ * {@link Http2Transport}; any other value is taken as the class name of a
+ * Transport implementation.
+ *
+ * The HttpClient interceptors do not run on this path, so request-level
+ * retries and the transfer statistics only apply to the RestAssured transport.
+ */
+public class TransportFilter implements OrderedFilter {
+
+	public static final int ORDER = OrderedFilter.LOWEST_PRECEDENCE;
+
+	private static final String TRANSPORT = ConfigManager.getProperty("http.transport", "restassured");
+
+	private static class Holder {
+		private static final TransportFilter INSTANCE = new TransportFilter(createTransport(TRANSPORT));
+	}
+
+	private final Transport transport;
+
+	public TransportFilter(Transport transport) {
+		this.transport = transport;
+	}
+
+	// The filter for the transport configured in config.properties
+	public static TransportFilter getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	public static boolean isCustomTransport() {
+		return !"restassured".equalsIgnoreCase(TRANSPORT);
+	}
+
+	public Transport getTransport() {
+		return transport;
+	}
+
+	// Connection counters of the HTTP/2 transport when it is in use, otherwise
+	// those of the HttpClient pool
+	public static PoolStatistics getConnectionStatistics() {
+		if (isCustomTransport() && getInstance().transport instanceof Http2Transport) {
+			return ((Http2Transport) getInstance().transport).getStatistics();
+		}
+		return HttpClientPool.getStatistics();
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+			FilterContext ctx) {
+		try {
+			return transport.send(requestSpec.getMethod(), requestSpec.getURI(), headersOf(requestSpec),
+					bodyOf(requestSpec)).join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+	}
+
+	// The headers a request built from requestSpec is sent with, Content-Type
+	// included
+	static Headers headersOf(FilterableRequestSpecification requestSpec) {
+		List<Header> headers = new ArrayList<>();
+		for (Header header : requestSpec.getHeaders()) {
+			headers.add(header);
+		}
+		if (!requestSpec.getHeaders().hasHeaderWithName("Content-Type") && requestSpec.getContentType() != null) {
+			headers.add(new Header("Content-Type", requestSpec.getContentType()));
+		}
+		return new Headers(headers);
+	}
+
+	private static byte[] bodyOf(FilterableRequestSpecification requestSpec) {
+		Object body = requestSpec.getBody();
+		if (body == null) {
+			return null;
+		}
+		if (body instanceof byte[]) {
+			return (byte[]) body;
+		}
+		String contentType = requestSpec.getContentType();
+		Charset charset = StandardCharsets.UTF_8;
+		int charsetStart = contentType == null ? -1 : contentType.toLowerCase().indexOf("charset=");
+		if (charsetStart >= 0) {
+			charset = Charset.forName(contentType.substring(charsetStart + 8).split(";")[0].trim());
+		}
+		return String.valueOf(body).getBytes(charset);
+	}
+
+	private static Transport createTransport(String name) {
+		if ("netty".equalsIgnoreCase(name)) {
+			return new NettyTransport();
+		}
+		if ("http2".equalsIgnoreCase(name)) {
+			return new Http2Transport();
+		}
+		try {
+			return (Transport) Class.forName(name).getConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IllegalStateException("http.transport=" + name + " is not a Transport implementation", e);
+		}
+	}
+}
@@ -2,6 +2,8 @@ package restConfig;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 
 public class ConfigManager {
@@ -16,7 +18,50 @@ public class ConfigManager {
 		}
 	}
 
+	// A -Dkey=value system property overrides config.properties
 	public static String getProperty(String key) {
-		return props.getProperty(key);
+		return System.getProperty(key, props.getProperty(key));
+	}
+
+	public static String getProperty(String key, String defaultValue) {
+		String value = getProperty(key);
+		return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+	}
+
+	public static int getIntProperty(String key, int defaultValue) {
+		String value = getProperty(key, null);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+	public static long getLongProperty(String key, long defaultValue) {
+		String value = getProperty(key, null);
+		return value == null ? defaultValue : Long.parseLong(value);
+	}
+
+	public static double getDoubleProperty(String key, double defaultValue) {
+		String value = getProperty(key, null);
+		return value == null ? defaultValue : Double.parseDouble(value);
+	}
+
+	public static boolean getBooleanProperty(String key, boolean defaultValue) {
+		String value = getProperty(key, null);
+		return value == null ? defaultValue : Boolean.parseBoolean(value);
+	}
+
+	// Parses "key:value,key:value" lists such as per-endpoint settings
+	public static Map<String, Long> getLongMapProperty(String key) {
+		Map<String, Long> values = new LinkedHashMap<>();
+		String value = getProperty(key, null);
+		if (value == null) {
+			return values;
+		}
+		for (String pair : value.split(",")) {
+			int separator = pair.lastIndexOf(':');
+			if (separator < 0) {
+				throw new IllegalArgumentException("Expected key:value in " + key + " but found " + pair);
+			}
+			values.put(pair.substring(0, separator).trim(), Long.parseLong(pair.substring(separator + 1).trim()));
+		}
+		return values;
 	}
 }
@@ -0,0 +1,131 @@
+package testcases;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rest.CircuitBreaker;
+import rest.CircuitBreaker.State;
+import rest.CircuitOpenException;
+
+public class CircuitBreakerTest {
+
+	private static final String PATH = "/PharmacyStock/AllStockDetails";
+	private static final long OPEN_MILLIS = 50;
+
+	@Test(description = "1. Record failures below and then at the failure rate threshold\n"
+			+ "2. Verify the circuit opens only once minimumCalls are seen and then fails fast.")
+	public void opensAtTheFailureRateThresholdTest() {
+		// Window of 10 calls, at least 4 of them, opening at 50% failures
+		CircuitBreaker breaker = breaker(10, 4, 50, 100, 10000);
+
+		call(breaker, true, 0);
+		call(breaker, true, 0);
+		call(breaker, true, 0);
+		Assert.assertEquals(breaker.getState(), State.CLOSED, "Three calls are below minimumCalls.");
+		call(breaker, false, 0);
+		Assert.assertEquals(breaker.getState(), State.OPEN, "3 of 4 failed calls should open the circuit.");
+
+		try {
+			breaker.acquirePermission();
+			Assert.fail("An open circuit should fail fast.");
+		} catch (CircuitOpenException expected) {
+			Assert.assertEquals(expected.getPath(), PATH, "Path differs.");
+			Assert.assertTrue(expected.getRetryAfterMillis() > 0 && expected.getRetryAfterMillis() <= OPEN_MILLIS,
+					"Retry-after should be within the open time: " + expected.getRetryAfterMillis());
+		}
+		Assert.assertEquals(breaker.getRejected(), 1L, "The rejected call should be counted.");
+	}
+
+	@Test(description = "1. Record successes with a few failures, then only slow calls\n"
+			+ "2. Verify failures under the threshold keep the circuit closed and slow calls open it.")
+	public void opensOnSlowCallsTest() {
+		// Opening at 50% failures or 50% calls of 100 ms or more
+		CircuitBreaker breaker = breaker(4, 4, 50, 50, 100);
+
+		call(breaker, true, 0);
+		for (int i = 0; i < 5; i++) {
+			call(breaker, false, 0);
+		}
+		Assert.assertEquals(breaker.getState(), State.CLOSED, "1 failure in 4 calls should keep it closed.");
+
+		call(breaker, false, 150);
+		Assert.assertEquals(breaker.getState(), State.CLOSED, "1 slow call in 4 should keep it closed.");
+		call(breaker, false, 100);
+		Assert.assertEquals(breaker.getState(), State.OPEN, "2 slow calls in 4 should open the circuit.");
+	}
+
+	@Test(description = "1. Open the circuit, wait for the open time and make the trial calls\n"
+			+ "2. Verify only halfOpenCalls trials are let through and successful trials close the circuit.")
+	public void closesAfterSuccessfulTrialCallsTest() throws Exception {
+		CircuitBreaker breaker = openBreaker();
+		Thread.sleep(OPEN_MILLIS + 30);
+
+		long first = breaker.acquirePermission();
+		Assert.assertEquals(breaker.getState(), State.HALF_OPEN, "The first call after the open time is a trial.");
+		long second = breaker.acquirePermission();
+		try {
+			breaker.acquirePermission();
+			Assert.fail("A third call should be rejected while two trials are in flight.");
+		} catch (CircuitOpenException expected) {
+			Assert.assertEquals(expected.getRetryAfterMillis(), 0L, "A half open rejection has no wait.");
+		}
+
+		breaker.onResult(first, false, 0);
+		Assert.assertEquals(breaker.getState(), State.HALF_OPEN, "One trial result is not enough to decide.");
+		breaker.onResult(second, false, 0);
+		Assert.assertEquals(breaker.getState(), State.CLOSED, "Successful trials should close the circuit.");
+		call(breaker, true, 0);
+		Assert.assertEquals(breaker.getState(), State.CLOSED, "The window should start empty after closing.");
+	}
+
+	@Test(description = "1. Open the circuit, wait for the open time and fail the trial calls\n"
+			+ "2. Verify the circuit opens again.")
+	public void reopensAfterFailedTrialCallsTest() throws Exception {
+		CircuitBreaker breaker = openBreaker();
+		Thread.sleep(OPEN_MILLIS + 30);
+
+		long first = breaker.acquirePermission();
+		long second = breaker.acquirePermission();
+		breaker.onResult(first, true, 0);
+		breaker.onResult(second, false, 0);
+		Assert.assertEquals(breaker.getState(), State.OPEN, "Failed trials should reopen the circuit.");
+	}
+
+	@Test(description = "1. Take a permit while the circuit is closed and finish it after the circuit opened\n"
+			+ "2. Verify the late outcome is ignored instead of deciding the trial calls.")
+	public void ignoresOutcomesOfEarlierStatesTest() throws Exception {
+		CircuitBreaker breaker = breaker(10, 2, 50, 100, 10000);
+		long stale = breaker.acquirePermission();
+		call(breaker, true, 0);
+		call(breaker, true, 0);
+		Assert.assertEquals(breaker.getState(), State.OPEN, "Two failed calls should open the circuit.");
+		Thread.sleep(OPEN_MILLIS + 30);
+
+		long first = breaker.acquirePermission();
+		long second = breaker.acquirePermission();
+		breaker.onResult(stale, true, 0);
+		breaker.onResult(first, false, 0);
+		Assert.assertEquals(breaker.getState(), State.HALF_OPEN, "The stale failure should not count as a trial.");
+		breaker.onResult(second, false, 0);
+		Assert.assertEquals(breaker.getState(), State.CLOSED, "The two trials should close the circuit.");
+	}
+
+	// Two trial calls after OPEN_MILLIS
+	private static CircuitBreaker breaker(int windowSize, int minimumCalls, int failureRate, int slowCallRate,
+			long slowCallMillis) {
+		return new CircuitBreaker(PATH, windowSize, minimumCalls, failureRate, slowCallRate, slowCallMillis,
+				OPEN_MILLIS, 2);
+	}
+
+	private static CircuitBreaker openBreaker() {
+		CircuitBreaker breaker = breaker(10, 2, 50, 100, 10000);
+		call(breaker, true, 0);
+		call(breaker, true, 0);
+		Assert.assertEquals(breaker.getState(), State.OPEN, "Two failed calls should open the circuit.");
+		return breaker;
+	}
+
+	private static void call(CircuitBreaker breaker, boolean failure, long durationMillis) {
+		breaker.onResult(breaker.acquirePermission(), failure, durationMillis);
+	}
+}
@@ -0,0 +1,128 @@
+package testcases;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rest.ColumnarResults;
+
+public class ColumnarResultsTest {
+
+	@Test(description = "1. Copy rows holding ints, longs, decimals, booleans, strings and nested values into columns\n"
+			+ "2. Verify each row equals its original map, with the same hash code, keys and boxed value types.")
+	public void rowsEqualTheOriginalMapsTest() {
+		List<Map<String, Object>> rows = new ArrayList<>();
+		rows.add(row("ItemId", 1, "Quantity", 5_000_000_000L, "Price", 12.5, "Rate", 0.5f, "IsActive", true,
+				"Status", "OK", "Batches", Arrays.asList(row("No", "B1"))));
+		rows.add(row("ItemId", 2, "Quantity", 7L, "Price", 3.0, "Rate", 1.5f, "IsActive", false, "Status", "OK",
+				"Batches", Collections.emptyList()));
+		ColumnarResults results = ColumnarResults.of(rows);
+
+		Assert.assertEquals(results.size(), 2, "Size differs.");
+		Assert.assertEquals(results, rows, "The columnar rows should equal the original maps.");
+		Assert.assertEquals(rows, results, "The original maps should equal the columnar rows.");
+		Assert.assertEquals(results.hashCode(), rows.hashCode(), "Hash codes differ.");
+		for (int i = 0; i < rows.size(); i++) {
+			Map<String, Object> row = results.get(i);
+			Assert.assertEquals(row.hashCode(), rows.get(i).hashCode(), "Hash code of row " + i + " differs.");
+			Assert.assertEquals(new ArrayList<>(row.keySet()), new ArrayList<>(rows.get(i).keySet()),
+					"Keys of row " + i + " should keep their order.");
+			for (Map.Entry<String, Object> field : rows.get(i).entrySet()) {
+				Assert.assertEquals(row.get(field.getKey()).getClass(), field.getValue().getClass(),
+						"Boxed type of " + field.getKey() + " in row " + i + " differs.");
+			}
+		}
+		Assert.assertEquals(results.get(1).get("Status"), "OK", "The dictionary should decode repeated strings.");
+		Assert.assertSame(ColumnarResults.of(results), results, "A columnar list should not be copied again.");
+	}
+
+	@Test(description = "1. Copy rows where a field is null, a field appears only from the second row on\n"
+			+ "   and a field is missing in a later row\n"
+			+ "2. Verify null fields are kept, missing fields are neither listed nor contained and rows still equal.")
+	public void keepsNullAndMissingFieldsApartTest() {
+		List<Map<String, Object>> rows = new ArrayList<>();
+		rows.add(row("ItemId", 1, "Remarks", null));
+		rows.add(row("ItemId", 2, "Remarks", "late", "BatchNo", "B2"));
+		rows.add(row("BatchNo", "B3"));
+		ColumnarResults results = ColumnarResults.from(rows.iterator());
+
+		Assert.assertEquals(results, rows, "Rows with null and missing fields should equal the originals.");
+		Assert.assertEquals(results.getKeys(), Arrays.asList("ItemId", "Remarks", "BatchNo"),
+				"Keys should be listed in the order they first appeared.");
+		Assert.assertTrue(results.get(0).containsKey("Remarks"), "A null field should be contained.");
+		Assert.assertFalse(results.get(0).containsKey("BatchNo"), "A field of later rows should not be contained.");
+		Assert.assertFalse(results.get(2).containsKey("ItemId"), "A missing field should not be contained.");
+		Assert.assertEquals(results.get(2).size(), 1, "Only the present fields should be counted.");
+		Assert.assertNull(results.get(2).get("Unknown"), "An unknown field should give null.");
+	}
+
+	@Test(description = "1. Read values by row and column index with the typed getters\n"
+			+ "2. Verify ints widen to long, whole-number columns are recognised, nulls are reported\n"
+			+ "   and unknown columns give -1.")
+	public void readsValuesByIndexTest() {
+		ColumnarResults results = ColumnarResults.of(Arrays.asList(
+				row("ItemId", 1, "Quantity", 5_000_000_000L, "Price", 12.5, "Code", 7, "Remarks", null),
+				row("ItemId", 2, "Quantity", 3L, "Price", null, "Code", "X7", "Remarks", null)));
+		int itemId = results.columnIndex("ItemId");
+		int quantity = results.columnIndex("Quantity");
+		int price = results.columnIndex("Price");
+		int code = results.columnIndex("Code");
+		int remarks = results.columnIndex("Remarks");
+
+		Assert.assertEquals(results.columnIndex("Unknown"), -1, "An unknown column should give -1.");
+		Assert.assertEquals(results.getInt(1, itemId), 2, "getInt differs.");
+		Assert.assertEquals(results.getLong(1, itemId), 2L, "An int column should widen to long.");
+		Assert.assertEquals(results.getLong(0, quantity), 5_000_000_000L, "getLong differs.");
+		Assert.assertEquals(results.get(0, price), 12.5, "get differs.");
+		Assert.assertTrue(results.isNull(1, price), "The null price should be reported.");
+		Assert.assertNull(results.getString(1, price), "getString of null should give null.");
+		Assert.assertEquals(results.getString(0, code), "7", "A mixed column should keep the int as it was.");
+		Assert.assertEquals(results.get(1, code), "X7", "A mixed column should keep the string as it was.");
+
+		Assert.assertTrue(results.isWholeNumber(itemId), "An int column is whole-numbered.");
+		Assert.assertTrue(results.isWholeNumber(quantity), "A long column is whole-numbered.");
+		Assert.assertTrue(results.isWholeNumber(remarks), "An all-null column is whole-numbered.");
+		Assert.assertFalse(results.isWholeNumber(price), "A decimal column is not whole-numbered.");
+		Assert.assertFalse(results.isWholeNumber(code), "A mixed column is not whole-numbered.");
+	}
+
+	@Test(description = "1. Read outside the rows and try to change a row\n"
+			+ "2. Verify IndexOutOfBoundsException and UnsupportedOperationException are thrown.")
+	public void rejectsBadIndexesAndChangesTest() {
+		ColumnarResults results = ColumnarResults.of(Collections.singletonList(row("ItemId", 1)));
+		Assert.assertTrue(ColumnarResults.of(Collections.emptyList()).isEmpty(), "No rows should give an empty list.");
+		try {
+			results.get(1);
+			Assert.fail("A row past the end should be rejected.");
+		} catch (IndexOutOfBoundsException expected) {
+			Assert.assertEquals(expected.getMessage(), "Index: 1, Size: 1", "Message differs.");
+		}
+		try {
+			results.getInt(-1, 0);
+			Assert.fail("A negative row should be rejected.");
+		} catch (IndexOutOfBoundsException expected) {
+			Assert.assertEquals(expected.getMessage(), "Row: -1, Size: 1", "Message differs.");
+		}
+		try {
+			results.get(0).put("ItemId", 2);
+			Assert.fail("A row should not be modifiable.");
+		} catch (UnsupportedOperationException expected) {
+			Assert.assertEquals(results.get(0).get("ItemId"), 1, "The row should be unchanged.");
+		}
+	}
+
+	// Builds a row from alternating field names and values
+	private static Map<String, Object> row(Object... fields) {
+		Map<String, Object> row = new LinkedHashMap<>();
+		for (int i = 0; i < fields.length; i += 2) {
+			row.put((String) fields[i], fields[i + 1]);
+		}
+		return row;
+	}
+}
@@ -0,0 +1,166 @@
+package testcases;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import rest.ApiEndpoint;
+import rest.ApiUtil;
+import rest.AsyncApiUtil;
+import rest.CustomResponse;
+import rest.DateRangeSplitter;
+
+public class DateRangeSplitterTest {
+
+	private static final String REQUISITIONS = "/DispensaryRequisition/Dispensary/1"
+			+ "?FromDate=2024-01-01&ToDate=2024-12-31";
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+	private final DateRangeSplitter splitter = new DateRangeSplitter(new AsyncApiUtil(new ApiUtil(), executor,
+			10000), 4, 30);
+
+	@AfterClass
+	public void shutDownExecutor() {
+		executor.shutdownNow();
+	}
+
+	@Test(description = "1. Fetch a one-year range split into at most four windows of at least 30 days\n"
+			+ "2. Verify four windows cover the range, each starting on the day the previous one ends,\n"
+			+ "   and the rest of the query is kept.")
+	public void splitsALongRangeIntoAdjacentWindowsTest() {
+		Map<String, CustomResponse> windows = new ConcurrentHashMap<>();
+		splitter.fetch(ApiEndpoint.GET_REQUISITION_BY_DATE_RANGE, REQUISITIONS, url -> {
+			CustomResponse response = response(200, "OK", row("RequisitionId", url.hashCode()));
+			windows.put(url, response);
+			return response;
+		});
+
+		Assert.assertEquals(windows.keySet().stream().sorted().collect(Collectors.toList()), Arrays.asList(
+				"/DispensaryRequisition/Dispensary/1?FromDate=2024-01-01&ToDate=2024-04-01",
+				"/DispensaryRequisition/Dispensary/1?FromDate=2024-04-01&ToDate=2024-07-01",
+				"/DispensaryRequisition/Dispensary/1?FromDate=2024-07-01&ToDate=2024-09-30",
+				"/DispensaryRequisition/Dispensary/1?FromDate=2024-09-30&ToDate=2024-12-31"), "Windows differ.");
+
+		List<String> lowerCase = new ArrayList<>();
+		splitter.fetch(ApiEndpoint.GET_IMAGING_REPORTS_WITH_STATUS_AND_DATE_RANGE,
+				"/radiology/ImagingReports?reportOrderStatus=final&fromDate=2024-01-01&toDate=2024-03-01&typeList=[1]",
+				url -> {
+					synchronized (lowerCase) {
+						lowerCase.add(url);
+					}
+					return response(200, "OK");
+				});
+		Collections.sort(lowerCase);
+		Assert.assertEquals(lowerCase, Arrays.asList(
+				"/radiology/ImagingReports?reportOrderStatus=final&fromDate=2024-01-01&toDate=2024-01-31&typeList=[1]",
+				"/radiology/ImagingReports?reportOrderStatus=final&fromDate=2024-01-31&toDate=2024-03-01&typeList=[1]"),
+				"Lower case parameters and the rest of the query should be kept.");
+	}
+
+	@Test(description = "1. Fetch a range shorter than two windows, one without dates and one with a malformed date\n"
+			+ "2. Verify each is fetched once with its URL unchanged.")
+	public void keepsShortAndUndatedRangesWholeTest() {
+		String[] urls = { "/DispensaryRequisition/Dispensary/1?FromDate=2024-01-01&ToDate=2024-02-15",
+				"/DispensaryRequisition/Dispensary/1",
+				"/DispensaryRequisition/Dispensary/1?FromDate=2024-01&ToDate=2025" };
+		for (String url : urls) {
+			List<String> calls = new ArrayList<>();
+			CustomResponse single = response(200, "OK", row("RequisitionId", 1));
+			CustomResponse result = splitter.fetch(ApiEndpoint.GET_REQUISITION_BY_DATE_RANGE, url, window -> {
+				calls.add(window);
+				return single;
+			});
+			Assert.assertEquals(calls, Collections.singletonList(url), "The URL should be fetched whole: " + url);
+			Assert.assertSame(result, single, "An unsplit response should be returned as it is: " + url);
+		}
+	}
+
+	@Test(description = "1. Merge windows whose boundary rows repeat, including rows without the natural key\n"
+			+ "2. Verify duplicates are dropped keeping the first, rows stay in window order and the merged\n"
+			+ "   response, its body and its document agree.")
+	public void mergesWindowsOnTheNaturalKeyTest() {
+		Map<String, CustomResponse> byFromDate = new LinkedHashMap<>();
+		byFromDate.put("2024-01-01", response(200, "OK", row("PatientVisitId", 1), row("PatientVisitId", 2)));
+		byFromDate.put("2024-04-01", response(200, "OK", row("PatientVisitId", 2), row("Other", "no key")));
+		byFromDate.put("2024-07-01", response(200, "OK", row("PatientVisitId", 3), row("Other", "no key")));
+		byFromDate.put("2024-09-30", response(200, "OK", row("PatientVisitId", 3), row("PatientVisitId", 4)));
+
+		CustomResponse merged = splitter.fetch(ApiEndpoint.GET_DISCHARGED_PATIENTS,
+				"/Admission/DischargedPatients?admissionStatus=discharged&FromDate=2024-01-01&ToDate=2024-12-31",
+				byFromDate(byFromDate));
+
+		List<Object> visitIds = merged.getListResults().stream().map(row -> row.get("PatientVisitId"))
+				.collect(Collectors.toList());
+		Assert.assertEquals(visitIds, Arrays.asList(1, 2, null, 3, null, 4),
+				"Duplicates should be dropped and rows kept in window order.");
+		Assert.assertEquals(merged.getStatusCode(), 200, "Status code differs.");
+		Assert.assertEquals(merged.getStatus(), "OK", "Status differs.");
+		Assert.assertEquals(merged.getDocument().getString("Status"), "OK", "The document should hold Status.");
+		Assert.assertEquals(merged.getDocument().getList("Results"), merged.getListResults(),
+				"The document should hold the merged rows.");
+		Assert.assertEquals(merged.getResponse().jsonPath().getList("Results.PatientVisitId"), visitIds,
+				"The body should hold the merged rows.");
+	}
+
+	@Test(description = "1. Merge windows of which the second and third fail\n"
+			+ "2. Verify the merged response takes the status of the first failed window and keeps the other rows.")
+	public void reportsTheFirstFailedWindowTest() {
+		Map<String, CustomResponse> byFromDate = new LinkedHashMap<>();
+		byFromDate.put("2024-01-01", response(200, "OK", row("RequisitionId", 1)));
+		byFromDate.put("2024-04-01", response(500, "Failed"));
+		byFromDate.put("2024-07-01", response(503, "Unavailable"));
+		byFromDate.put("2024-09-30", response(200, "OK", row("RequisitionId", 4)));
+
+		CustomResponse merged = splitter.fetch(ApiEndpoint.GET_REQUISITION_BY_DATE_RANGE, REQUISITIONS,
+				byFromDate(byFromDate));
+
+		Assert.assertEquals(merged.getStatusCode(), 500, "The first failure's status code should win.");
+		Assert.assertEquals(merged.getStatus(), "Failed", "The first failure's Status should win.");
+		Assert.assertEquals(merged.getResponse().getStatusCode(), 500, "The body should carry the status code.");
+		Assert.assertEquals(merged.getListResults().size(), 2, "Rows of the windows that succeeded should be kept.");
+	}
+
+	@Test(description = "1. Fetch an endpoint that does not take a date range\n"
+			+ "2. Verify it is rejected with an IllegalArgumentException.")
+	public void rejectsEndpointsWithoutADateRangeTest() {
+		try {
+			splitter.fetch(ApiEndpoint.GET_MAIN_STORE, "/PharmacySettings/MainStore", url -> response(200, "OK"));
+			Assert.fail("An endpoint without a date range should be rejected.");
+		} catch (IllegalArgumentException expected) {
+			Assert.assertEquals(expected.getMessage(), "getMainStore does not take a date range", "Message differs.");
+		}
+	}
+
+	// Answers each window with the response registered for its FromDate
+	private static Function<String, CustomResponse> byFromDate(Map<String, CustomResponse> responses) {
+		return url -> {
+			String fromDate = url.replaceAll(".*[?&]FromDate=([^&]*).*", "$1");
+			CustomResponse response = responses.get(fromDate);
+			Assert.assertNotNull(response, "Unexpected window " + url);
+			return response;
+		};
+	}
+
+	@SafeVarargs
+	private static CustomResponse response(int statusCode, String status, Map<String, Object>... rows) {
+		return new CustomResponse(null, statusCode, status, new ArrayList<>(Arrays.asList(rows)));
+	}
+
+	private static Map<String, Object> row(String field, Object value) {
+		Map<String, Object> row = new LinkedHashMap<>();
+		row.put(field, value);
+		return row;
+	}
+}
@@ -0,0 +1,173 @@
+package testcases;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import io.restassured.http.Header;
+import rest.Fixture;
+import rest.FixtureStore;
+
+public class FixtureStoreTest {
+
+	private static final List<Header> HEADERS = Arrays.asList(new Header("Content-Type", "application/json"),
+			new Header("ETag", "\"1\""));
+
+	private Path directory;
+	private File dataFile;
+	private File indexFile;
+
+	@BeforeMethod
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("fixtures");
+		dataFile = directory.resolve("nested/fixtures.bin").toFile();
+		indexFile = new File(dataFile.getPath() + ".idx");
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void deleteDirectory() throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	@Test(description = "1. Record three fixtures, one of them twice, and reopen the store read-only\n"
+			+ "2. Verify every fixture reads back whole, the first recording of a key wins\n"
+			+ "   and the read-only store refuses new fixtures.")
+	public void readsBackRecordedFixturesTest() throws IOException {
+		try (FixtureStore store = new FixtureStore(dataFile, true, false)) {
+			Assert.assertTrue(store.put(fixture("GET /MainStore", "{\"Status\":\"OK\"}")), "The first put writes.");
+			Assert.assertTrue(store.put(fixture("GET /FilmTypes", "{\"Results\":[]}")), "A new key writes.");
+			Assert.assertTrue(store.put(fixture("POST /Patient body=ab12", "")), "An empty body writes.");
+			Assert.assertFalse(store.put(fixture("GET /MainStore", "{\"Status\":\"Failed\"}")),
+					"A key already stored should not be written again.");
+		}
+
+		try (FixtureStore store = new FixtureStore(dataFile, false, false)) {
+			Assert.assertEquals(store.size(), 3, "Three fixtures expected.");
+			Fixture mainStore = store.get("GET /MainStore");
+			Assert.assertEquals(new String(mainStore.getBody(), StandardCharsets.UTF_8), "{\"Status\":\"OK\"}",
+					"The first recording should win.");
+			Assert.assertEquals(mainStore.getMethod(), "GET", "Method differs.");
+			Assert.assertEquals(mainStore.getEndpoint(), "/PharmacySettings/MainStore", "Endpoint differs.");
+			Assert.assertEquals(mainStore.getQuery(), "a=1", "Query differs.");
+			Assert.assertEquals(mainStore.getStatusCode(), 200, "Status code differs.");
+			Assert.assertEquals(mainStore.getStatusLine(), "HTTP/1.1 200 OK", "Status line differs.");
+			Assert.assertEquals(mainStore.getHeaders(), HEADERS, "Headers differ.");
+			Assert.assertEquals(store.get("POST /Patient body=ab12").getBody().length, 0, "Body should be empty.");
+			Assert.assertNull(store.get("GET /Unknown"), "An unknown key should give null.");
+			try {
+				store.put(fixture("GET /Other", "{}"));
+				Assert.fail("A read-only store should refuse new fixtures.");
+			} catch (IllegalStateException expected) {
+				Assert.assertTrue(expected.getMessage().endsWith("was opened read-only"),
+						"Unexpected message: " + expected.getMessage());
+			}
+		}
+	}
+
+	@Test(description = "1. Record three fixtures and cut the index back to its first line, as when a recording\n"
+			+ "   is killed between the data and the index writes\n"
+			+ "2. Verify the unindexed records are recovered from the data file and indexed again.")
+	public void recoversRecordsMissingFromTheIndexTest() throws IOException {
+		record("GET /One", "GET /Two", "GET /Three");
+		List<String> lines = Files.readAllLines(indexFile.toPath());
+		Files.write(indexFile.toPath(), (lines.get(0) + "\n").getBytes(StandardCharsets.UTF_8));
+
+		try (FixtureStore store = new FixtureStore(dataFile, false, false)) {
+			Assert.assertEquals(store.size(), 3, "A read-only store should recover the records too.");
+			Assert.assertEquals(body(store, "GET /Three"), "body of GET /Three", "Recovered record differs.");
+		}
+		Assert.assertEquals(Files.readAllLines(indexFile.toPath()).size(), 1, "A read-only store writes nothing.");
+
+		try (FixtureStore store = new FixtureStore(dataFile, true, false)) {
+			Assert.assertEquals(store.size(), 3, "Three fixtures expected.");
+		}
+		Assert.assertEquals(Files.readAllLines(indexFile.toPath()), lines, "The index should be rebuilt.");
+
+		Files.delete(indexFile.toPath());
+		try (FixtureStore store = new FixtureStore(dataFile, false, false)) {
+			Assert.assertEquals(store.size(), 3, "A store without an index should be rebuilt from the data file.");
+		}
+	}
+
+	@Test(description = "1. Record two fixtures, then append half a record to the data file and a line without\n"
+			+ "   its newline to the index, as a crash in the middle of a write would\n"
+			+ "2. Verify both torn tails are cut off and new fixtures are appended after the last whole record.")
+	public void cutsOffTornTailsTest() throws IOException {
+		record("GET /One", "GET /Two");
+		long dataLength = dataFile.length();
+		long indexLength = indexFile.length();
+		// The header and the first bytes of the first record
+		byte[] torn = Arrays.copyOfRange(Files.readAllBytes(dataFile.toPath()), 0, 20);
+		try (RandomAccessFile data = new RandomAccessFile(dataFile, "rw");
+				RandomAccessFile index = new RandomAccessFile(indexFile, "rw")) {
+			data.seek(dataLength);
+			data.write(torn);
+			index.seek(indexLength);
+			index.write(("" + dataLength + " 99 GET /Torn").getBytes(StandardCharsets.UTF_8));
+		}
+
+		try (FixtureStore store = new FixtureStore(dataFile, true, false)) {
+			Assert.assertEquals(store.size(), 2, "Only the whole records should be read.");
+			Assert.assertFalse(store.contains("GET /Torn"), "The torn index line should be ignored.");
+			Assert.assertEquals(dataFile.length(), dataLength, "The torn record should be cut off.");
+			Assert.assertEquals(indexFile.length(), indexLength, "The torn index line should be cut off.");
+			Assert.assertTrue(store.put(fixture("GET /Three", "body of GET /Three")), "A new fixture writes.");
+		}
+
+		try (FixtureStore store = new FixtureStore(dataFile, false, false)) {
+			Assert.assertEquals(store.size(), 3, "Three fixtures expected.");
+			Assert.assertEquals(body(store, "GET /Two"), "body of GET /Two", "Old record differs.");
+			Assert.assertEquals(body(store, "GET /Three"), "body of GET /Three", "New record differs.");
+		}
+	}
+
+	@Test(description = "1. Reopen a recorded store with truncate, and open a read-only store that does not exist\n"
+			+ "2. Verify the first starts empty and the second fails with FileNotFoundException.")
+	public void truncatesOrRejectsMissingStoresTest() throws IOException {
+		record("GET /One");
+		try (FixtureStore store = new FixtureStore(dataFile, true, true)) {
+			Assert.assertEquals(store.size(), 0, "A truncated store should start empty.");
+		}
+		Assert.assertEquals(dataFile.length(), 0L, "The data file should be emptied.");
+
+		try {
+			new FixtureStore(directory.resolve("missing.bin").toFile(), false, false).close();
+			Assert.fail("A missing read-only store should be rejected.");
+		} catch (FileNotFoundException expected) {
+			Assert.assertTrue(expected.getMessage().startsWith("No fixture store at "),
+					"Unexpected message: " + expected.getMessage());
+		}
+	}
+
+	private void record(String... keys) throws IOException {
+		try (FixtureStore store = new FixtureStore(dataFile, true, false)) {
+			for (String key : keys) {
+				store.put(fixture(key, "body of " + key));
+			}
+		}
+	}
+
+	private static String body(FixtureStore store, String key) {
+		return new String(store.get(key).getBody(), StandardCharsets.UTF_8);
+	}
+
+	private static Fixture fixture(String key, String body) {
+		return new Fixture(key, key.substring(0, key.indexOf(' ')), "/PharmacySettings/MainStore", "a=1", 200,
+				"HTTP/1.1 200 OK", HEADERS, body.getBytes(StandardCharsets.UTF_8));
+	}
+}
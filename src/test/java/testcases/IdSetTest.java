@@ -0,0 +1,115 @@
+package testcases;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rest.IdBitmap;
+import rest.IdSet;
+import rest.LongHashSet;
+
+public class IdSetTest {
+
+	@Test(description = "1. Add a dense run of ids, enough to turn a chunk into a bitmap, and scattered ids\n"
+			+ "2. Verify every add and contains answers as a HashSet would, including unsigned ids above 2^31.")
+	public void idBitmapMatchesAHashSetTest() {
+		IdBitmap bitmap = new IdBitmap();
+		Set<Long> expected = new HashSet<>();
+		// A dense run crossing the 4096 ids at which a chunk switches to a bitmap
+		for (int id = 100_000; id < 110_000; id++) {
+			Assert.assertEquals(bitmap.add(id), expected.add((long) id), "add differs for " + id);
+		}
+		Random random = new Random(20240122L);
+		for (int i = 0; i < 20000; i++) {
+			int id = random.nextBoolean() ? random.nextInt() : 100_000 + random.nextInt(20000);
+			Assert.assertEquals(bitmap.add(id), expected.add(Integer.toUnsignedLong(id)), "add differs for " + id);
+		}
+		Assert.assertEquals(bitmap.size(), expected.size(), "Size differs.");
+
+		for (long id : expected) {
+			Assert.assertTrue(bitmap.contains((int) id), "Added id " + id + " should be contained.");
+		}
+		for (int i = 0; i < 20000; i++) {
+			int id = random.nextInt();
+			Assert.assertEquals(bitmap.contains(id), expected.contains(Integer.toUnsignedLong(id)),
+					"contains differs for " + id);
+		}
+		Assert.assertTrue(bitmap.add(-1), "The unsigned id 2^32 - 1 should be added.");
+		Assert.assertTrue(bitmap.contains(-1), "The unsigned id 2^32 - 1 should be contained.");
+	}
+
+	@Test(description = "1. Fill a bitmap with 100000 dense ids and another with 1000 ids spread over the range\n"
+			+ "2. Verify the dense one costs about one bit per id and the sparse one about two bytes per id.")
+	public void idBitmapStaysCompactTest() {
+		IdBitmap dense = new IdBitmap();
+		for (int id = 1; id <= 100_000; id++) {
+			dense.add(id);
+		}
+		Assert.assertTrue(dense.getSizeInBytes() < 100_000 / 8 * 2,
+				"Dense ids should cost about one bit each: " + dense.getSizeInBytes() + " bytes");
+
+		IdBitmap sparse = new IdBitmap();
+		for (int id = 0; id < 1000; id++) {
+			sparse.add(id * 97);
+		}
+		Assert.assertTrue(sparse.getSizeInBytes() <= 1000 * 2 * 2,
+				"Sparse ids should cost about two bytes each: " + sparse.getSizeInBytes() + " bytes");
+		Assert.assertTrue(new IdBitmap().isEmpty(), "A new bitmap should be empty.");
+	}
+
+	@Test(description = "1. Add random, negative, 64-bit and zero values to a LongHashSet through several resizes\n"
+			+ "   and clear it\n"
+			+ "2. Verify every add and contains answers as a HashSet would and the cleared set is empty.")
+	public void longHashSetMatchesAHashSetTest() {
+		LongHashSet set = new LongHashSet(4);
+		Set<Long> expected = new HashSet<>();
+		Random random = new Random(20240123L);
+		long[] edges = { 0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, 1L << 32 };
+		for (long value : edges) {
+			Assert.assertEquals(set.add(value), expected.add(value), "add differs for " + value);
+			Assert.assertFalse(set.add(value), "A repeated add of " + value + " should give false.");
+		}
+		for (int i = 0; i < 50000; i++) {
+			long value = random.nextBoolean() ? random.nextLong() : random.nextInt(10000) - 5000L;
+			Assert.assertEquals(set.add(value), expected.add(value), "add differs for " + value);
+		}
+		Assert.assertEquals(set.size(), expected.size(), "Size differs.");
+		for (long value : expected) {
+			Assert.assertTrue(set.contains(value), "Added value " + value + " should be contained.");
+		}
+		Assert.assertFalse(set.contains(5001L), "A value never added should not be contained.");
+
+		set.clear();
+		Assert.assertTrue(set.isEmpty(), "A cleared set should be empty.");
+		Assert.assertFalse(set.contains(0L), "A cleared set should not contain 0.");
+		Assert.assertFalse(set.contains(Long.MAX_VALUE), "A cleared set should not contain old values.");
+		Assert.assertTrue(set.add(0L), "0 should be added again after clear.");
+	}
+
+	@Test(description = "1. Add Integer, Long, wide, string and null values to an IdSet\n"
+			+ "2. Verify an Integer and a Long of the same value are one id, other values compare by equals\n"
+			+ "   and null counts once.")
+	public void idSetRoutesValuesByTypeTest() {
+		IdSet ids = new IdSet();
+		Assert.assertTrue(ids.isEmpty(), "A new set should be empty.");
+		Assert.assertTrue(ids.add((Object) 42), "A new Integer id should be added.");
+		Assert.assertFalse(ids.add((Object) 42L), "A Long of the same value should be the same id.");
+		Assert.assertTrue(ids.add((Object) (1L << 40)), "A 64-bit id should be added.");
+		Assert.assertFalse(ids.add(1L << 40), "A repeated 64-bit id should give false.");
+		Assert.assertTrue(ids.add((Object) (-7)), "A negative id should be added.");
+		Assert.assertTrue(ids.add("RQ-1"), "A string key should be added.");
+		Assert.assertFalse(ids.add("RQ-1"), "A repeated string key should give false.");
+		Assert.assertTrue(ids.add((Object) 42.0), "A decimal is not a whole-number id.");
+		Assert.assertTrue(ids.add((Object) null), "The first null should be added.");
+		Assert.assertFalse(ids.add((Object) null), "A second null should give false.");
+
+		Assert.assertEquals(ids.size(), 6, "Size differs.");
+		Assert.assertTrue(ids.contains(42L), "42 should be contained.");
+		Assert.assertTrue(ids.contains(-7L), "-7 should be contained.");
+		Assert.assertTrue(ids.contains(1L << 40), "The 64-bit id should be contained.");
+		Assert.assertFalse(ids.contains(43L), "43 should not be contained.");
+	}
+}
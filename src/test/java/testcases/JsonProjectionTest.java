@@ -0,0 +1,100 @@
+package testcases;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rest.JsonProjection;
+import rest.ProjectionResult;
+
+public class JsonProjectionTest {
+
+	private static final String STOCKS = "{\"Status\":\"OK\",\"Results\":["
+			+ "{\"ItemId\":1,\"ItemName\":\"Paracetamol\",\"Batches\":[{\"No\":\"A\"},{\"No\":\"B\"}],"
+			+ "\"Skip\":{\"x\":[1,2]}},"
+			+ "{\"ItemName\":\"Ibuprofen\",\"ItemId\":2,\"Batches\":[]},"
+			+ "{\"ItemId\":3,\"ItemName\":null,\"Batches\":[{\"No\":\"C\"}]}],\"ErrorMessage\":\"\"}";
+
+	@Test(description = "1. Project Status and spread paths over the Results array of a fixed body\n"
+			+ "2. Verify each path yields its values in document order, whatever the field order of a row.")
+	public void spreadPathsCollectEveryElementTest() {
+		ProjectionResult result = JsonProjection.of("Status", "Results[*].ItemId", "Results[*].ItemName")
+				.decode(bytes(STOCKS));
+
+		Assert.assertEquals(result.getString("Status"), "OK", "Status differs.");
+		Assert.assertEquals(result.getList("Results[*].ItemId"), Arrays.asList(1, 2, 3), "ItemIds differ.");
+		Assert.assertEquals(result.getList("Results[*].ItemName"), Arrays.asList("Paracetamol", "Ibuprofen", null),
+				"ItemNames differ.");
+		Assert.assertEquals(result.getPaths(), Arrays.asList("Status", "Results[*].ItemId", "Results[*].ItemName"),
+				"The declared paths should be kept in order.");
+	}
+
+	@Test(description = "1. Project the same fields with plain segments, through nested arrays and from a stream\n"
+			+ "2. Verify a plain segment applies to each array element as with JsonPath, and a final plain segment\n"
+			+ "   that selects an array yields the array itself.")
+	public void plainSegmentsApplyToEachArrayElementTest() {
+		ProjectionResult plain = JsonProjection.of("Results.ItemId", "Results.Batches.No")
+				.decode(new ByteArrayInputStream(bytes(STOCKS)));
+		ProjectionResult arrays = JsonProjection.of("Results[*].Batches").decode(bytes(STOCKS));
+
+		Assert.assertEquals(plain.getList("Results.ItemId"), Arrays.asList(1, 2, 3),
+				"Results.ItemId should match Results[*].ItemId.");
+		Assert.assertEquals(plain.getList("Results.Batches.No"), Arrays.asList("A", "B", "C"),
+				"Plain segments should reach into nested arrays.");
+		Assert.assertEquals(arrays.getList("Results[*].Batches").size(), 3, "Each row should yield its array.");
+		Assert.assertEquals(arrays.getList("Results[*].Batches").get(1), Collections.emptyList(),
+				"An empty array should be yielded as is.");
+		List<?> firstBatches = (List<?>) arrays.getList("Results[*].Batches").get(0);
+		Assert.assertEquals(((Map<?, ?>) firstBatches.get(1)).get("No"), "B",
+				"Selected arrays should be materialized with their objects.");
+	}
+
+	@Test(description = "1. Project paths that are missing, cross a scalar or were never declared\n"
+			+ "2. Verify missing paths yield nothing, skipped fields do not leak into the result\n"
+			+ "   and an undeclared path is rejected.")
+	public void skipsUnselectedAndMissingFieldsTest() {
+		ProjectionResult result = JsonProjection.of("Results.Missing", "Status.Nested", "ErrorMessage")
+				.decode(bytes(STOCKS));
+
+		Assert.assertTrue(result.getList("Results.Missing").isEmpty(), "A missing field should yield nothing.");
+		Assert.assertNull(result.get("Status.Nested"), "A path through a scalar should yield nothing.");
+		Assert.assertEquals(result.getString("ErrorMessage"), "", "ErrorMessage after the array should be read.");
+		try {
+			result.getList("Results.Skip");
+			Assert.fail("An undeclared path should be rejected.");
+		} catch (IllegalArgumentException expected) {
+			Assert.assertTrue(expected.getMessage().contains("was not part of the projection"),
+					"Unexpected message: " + expected.getMessage());
+		}
+
+		ProjectionResult empty = JsonProjection.of("Status").decode(bytes(""));
+		Assert.assertNull(empty.get("Status"), "An empty body should yield nothing.");
+	}
+
+	@Test(description = "1. Declare paths where one extends, repeats or contains another\n"
+			+ "2. Verify every such projection is rejected with an IllegalArgumentException.")
+	public void rejectsOverlappingPathsTest() {
+		String[][] overlapping = { { "Results", "Results.ItemId" }, { "Results.ItemId", "Results" },
+				{ "Results[*].ItemId", "Results.ItemId" }, { "Status", "Status" },
+				{ "Results.Batches", "Results[*].Batches[*].No" } };
+		for (String[] paths : overlapping) {
+			try {
+				JsonProjection.of(paths);
+				Assert.fail("Overlapping paths should be rejected: " + Arrays.toString(paths));
+			} catch (IllegalArgumentException expected) {
+				Assert.assertTrue(expected.getMessage().contains("another declared path"),
+						"Unexpected message for " + Arrays.toString(paths) + ": " + expected.getMessage());
+			}
+		}
+	}
+
+	private static byte[] bytes(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,121 @@
+package testcases;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rest.JsonResultsReader;
+
+public class JsonResultsReaderTest {
+
+	@Test(description = "1. Stream the Results array of a body whose Status and ErrorMessage follow the array\n"
+			+ "2. Verify every row is handed out in order with its nested values, the row count matches\n"
+			+ "   and the trailing top-level fields are captured once the array is exhausted.")
+	public void readsRowsAndTrailingTopLevelFieldsTest() throws Exception {
+		String json = "{\"Meta\":{\"Page\":1},"
+				+ "\"Results\":[{\"ItemId\":1,\"ItemName\":\"Paracetamol\",\"Tags\":[\"a\",\"b\"]},"
+				+ "{\"ItemId\":2,\"ItemName\":\"Ibuprofen\",\"Batch\":{\"No\":\"B-7\"}},{}],"
+				+ "\"Status\":\"OK\",\"ErrorMessage\":null}";
+		try (JsonResultsReader reader = reader(json, "Results")) {
+			List<Map<String, Object>> rows = readAll(reader);
+
+			Assert.assertEquals(rows.size(), 3, "Every row should be handed out.");
+			Assert.assertEquals(reader.getRowCount(), 3L, "The row count should match the rows handed out.");
+			Assert.assertEquals(rows.get(0).get("ItemId"), 1, "ItemId of the first row differs.");
+			Assert.assertEquals(rows.get(0).get("Tags"), Arrays.asList("a", "b"), "Nested arrays should be kept.");
+			Assert.assertEquals(((Map<?, ?>) rows.get(1).get("Batch")).get("No"), "B-7",
+					"Nested objects should be kept.");
+			Assert.assertTrue(rows.get(2).isEmpty(), "An empty object should give an empty row.");
+
+			Assert.assertEquals(reader.getStatus(), "OK", "Status after the array should be captured.");
+			Assert.assertTrue(reader.getTopLevelFields().containsKey("ErrorMessage"),
+					"A null top-level field should be captured.");
+			Assert.assertNull(reader.getTopLevelFields().get("ErrorMessage"), "ErrorMessage should be null.");
+			Assert.assertFalse(reader.getTopLevelFields().containsKey("Meta"),
+					"Top-level objects are not scalar fields.");
+		}
+	}
+
+	@Test(description = "1. Stream Results.BillItems of a body with sibling fields at every level\n"
+			+ "2. Verify only the rows of the nested array are handed out and the Status before it is captured.")
+	public void readsNestedArrayPathTest() throws Exception {
+		String json = "{\"Status\":\"OK\",\"Results\":{\"PatientId\":7,\"Other\":[{\"ItemId\":99}],"
+				+ "\"BillItems\":[{\"ItemId\":10,\"Price\":2},{\"ItemId\":11,\"Price\":3}],\"TotalDue\":5}}";
+		try (JsonResultsReader reader = reader(json, "Results.BillItems")) {
+			List<Map<String, Object>> rows = readAll(reader);
+
+			Assert.assertEquals(rows.size(), 2, "Only the BillItems rows should be handed out.");
+			Assert.assertEquals(rows.get(0).get("ItemId"), 10, "ItemId of the first bill item differs.");
+			Assert.assertEquals(rows.get(1).get("ItemId"), 11, "ItemId of the second bill item differs.");
+			Assert.assertEquals(reader.getStatus(), "OK", "Status before the array should be captured.");
+			Assert.assertFalse(reader.getTopLevelFields().containsKey("TotalDue"),
+					"Fields below the top level should not be captured.");
+		}
+	}
+
+	@Test(description = "1. Stream a row holding whole numbers, decimals, booleans and null\n"
+			+ "2. Verify the values decode to the types JsonPath returns: Integer or Long, Float or Double.")
+	public void decodesNumbersLikeJsonPathTest() throws Exception {
+		String json = "{\"Results\":[{\"Int\":42,\"Negative\":-1,\"Long\":3000000000,\"Float\":1.5,"
+				+ "\"Double\":1e300,\"True\":true,\"False\":false,\"Null\":null}],\"Status\":\"OK\"}";
+		try (JsonResultsReader reader = reader(json, "Results")) {
+			Map<String, Object> row = reader.next();
+
+			Assert.assertEquals(row.get("Int"), Integer.valueOf(42), "Small whole numbers should be Integer.");
+			Assert.assertEquals(row.get("Negative"), Integer.valueOf(-1), "Negative numbers should be Integer.");
+			Assert.assertEquals(row.get("Long"), Long.valueOf(3000000000L), "Large whole numbers should be Long.");
+			Assert.assertEquals(row.get("Float"), Float.valueOf(1.5f), "Decimals should be Float.");
+			Assert.assertEquals(row.get("Double"), Double.valueOf(1e300), "Decimals beyond Float should be Double.");
+			Assert.assertEquals(row.get("True"), Boolean.TRUE, "true should be Boolean.TRUE.");
+			Assert.assertEquals(row.get("False"), Boolean.FALSE, "false should be Boolean.FALSE.");
+			Assert.assertTrue(row.containsKey("Null") && row.get("Null") == null, "null should be kept as null.");
+			Assert.assertFalse(reader.hasNext(), "The array holds a single row.");
+		}
+	}
+
+	@Test(description = "1. Stream a body without the requested array, then one whose array holds a scalar\n"
+			+ "2. Verify the first hands out no rows but keeps Status, and the second is rejected.")
+	public void handlesMissingArrayAndRejectsScalarRowsTest() throws Exception {
+		try (JsonResultsReader reader = reader("{\"Status\":\"Failed\",\"Results\":{\"Id\":1}}", "Results")) {
+			Assert.assertFalse(reader.hasNext(), "A missing array should hand out no rows.");
+			Assert.assertEquals(reader.getRowCount(), 0L, "No rows should be counted.");
+			Assert.assertEquals(reader.getStatus(), "Failed", "Status should still be captured.");
+			try {
+				reader.next();
+				Assert.fail("next() should throw once the rows are exhausted.");
+			} catch (NoSuchElementException expected) {
+				// expected
+			}
+		}
+
+		try (JsonResultsReader reader = reader("{\"Results\":[{\"Id\":1},2]}", "Results")) {
+			Assert.assertEquals(reader.next().get("Id"), 1, "The object row should be handed out.");
+			try {
+				reader.hasNext();
+				Assert.fail("A scalar in the array should be rejected.");
+			} catch (IllegalStateException expected) {
+				Assert.assertTrue(expected.getMessage().startsWith("Expected an object in Results"),
+						"Unexpected message: " + expected.getMessage());
+			}
+		}
+	}
+
+	private static JsonResultsReader reader(String json, String arrayPath) {
+		return new JsonResultsReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), arrayPath);
+	}
+
+	private static List<Map<String, Object>> readAll(JsonResultsReader reader) {
+		List<Map<String, Object>> rows = new ArrayList<>();
+		while (reader.hasNext()) {
+			rows.add(reader.next());
+		}
+		return rows;
+	}
+}
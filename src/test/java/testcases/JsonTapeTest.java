@@ -0,0 +1,171 @@
+package testcases;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rest.JsonDocument;
+import rest.JsonTape;
+
+public class JsonTapeTest {
+
+	// Override with -DjsonTape.seed=<n> to replay a failure
+	private static final long SEED = Long.getLong("jsonTape.seed", 20240117L);
+	private static final int DOCUMENTS = 2000;
+
+	private static final String[] KEYS = { "Status", "Results", "ItemId", "ItemName", "a", "b", "été",
+			"quote\"d", "back\\slash" };
+	private static final String[] PATHS = { "Status", "Results", "Results.ItemId", "Results[0]",
+			"Results[-1].ItemName", "Results[*].a", "a.b", "a[1].Results", "été" };
+
+	@Test(description = "1. Generate random JSON documents with nested objects and arrays, escapes, duplicate keys\n"
+			+ "   and numbers of every size\n"
+			+ "2. Verify the tape builds the same value as JsonDocument for the whole document and for a set of paths.")
+	public void tapeMatchesDocumentOnRandomJsonTest() {
+		Random random = new Random(SEED);
+		for (int i = 0; i < DOCUMENTS; i++) {
+			String json = appendValue(new StringBuilder(), random, 0).toString();
+			byte[] body = json.getBytes(StandardCharsets.UTF_8);
+			JsonTape tape = JsonTape.index(ByteBuffer.wrap(body));
+			JsonDocument document = JsonDocument.parse(body);
+
+			String context = " (seed " + SEED + ", document " + i + "): " + json;
+			Assert.assertEquals(tape.value(tape.root()), document.getRoot(), "Whole document differs" + context);
+			for (String path : PATHS) {
+				Assert.assertEquals(tape.get(path), document.get(path), "Path " + path + " differs" + context);
+			}
+		}
+	}
+
+	@Test(description = "1. Index malformed JSON: a missing value, a missing colon, trailing commas, empty input\n"
+			+ "   and other broken documents\n" + "2. Verify every one is rejected with an IllegalArgumentException.")
+	public void indexRejectsMalformedJsonTest() {
+		String[] malformed = { "{\"a\":}", "{\"a\" 1}", "{\"a\"}", "[1,]", "{\"a\":1,}", "", "   \n\t ", "[1 2]",
+				"{1:2}", "{\"a\":1 \"b\":2}", "[,1]", "{,}", "[:1]", ":1", ",", "{\"a\":1}}", "[", "{\"a\":[1}",
+				"01", "1.", "-", ".5", "1e", "1x", "tru", "nul", "{\"a\":1}x", "1 2", "\"abc" };
+		for (String json : malformed) {
+			try {
+				JsonTape.index(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+				Assert.fail("Malformed JSON should be rejected: " + json);
+			} catch (IllegalArgumentException expected) {
+				Assert.assertTrue(expected.getMessage().startsWith("Malformed JSON"),
+						"Unexpected message for " + json + ": " + expected.getMessage());
+			}
+		}
+	}
+
+	@Test(description = "1. Index an object whose keys repeat\n"
+			+ "2. Verify field() and get() return the last value, as JsonDocument does.")
+	public void duplicateKeysResolveToTheLastValueTest() {
+		byte[] body = "{\"a\":1,\"b\":{\"c\":true},\"a\":2,\"b\":{\"c\":false}}".getBytes(StandardCharsets.UTF_8);
+		JsonTape tape = JsonTape.index(ByteBuffer.wrap(body));
+		JsonDocument document = JsonDocument.parse(body);
+
+		Assert.assertEquals(tape.intValue(tape.field(tape.root(), "a")), 2, "The last 'a' should win.");
+		Assert.assertEquals(tape.get("a"), document.get("a"), "field() and JsonDocument should agree on 'a'.");
+		Assert.assertEquals(tape.get("b.c"), Boolean.FALSE, "The last 'b' should win.");
+		Assert.assertEquals(tape.value(tape.root()), document.getRoot(), "Whole document differs.");
+	}
+
+	private static StringBuilder appendValue(StringBuilder json, Random random, int depth) {
+		appendWhitespace(json, random);
+		int kind = depth == 0 ? 0 : random.nextInt(depth > 4 ? 5 : 7);
+		switch (kind) {
+		case 0:
+			json.append('{');
+			int fields = random.nextInt(6);
+			for (int i = 0; i < fields; i++) {
+				appendWhitespace(json, random);
+				appendString(json, random, KEYS[random.nextInt(KEYS.length)]);
+				appendWhitespace(json, random);
+				json.append(':');
+				appendValue(json, random, depth + 1);
+				if (i < fields - 1) {
+					json.append(',');
+				}
+			}
+			appendWhitespace(json, random);
+			json.append('}');
+			break;
+		case 1:
+			appendString(json, random, randomText(random));
+			break;
+		case 2:
+			json.append(randomNumber(random));
+			break;
+		case 3:
+			json.append(random.nextBoolean() ? "true" : "false");
+			break;
+		case 4:
+			json.append("null");
+			break;
+		default:
+			json.append('[');
+			int elements = random.nextInt(5);
+			for (int i = 0; i < elements; i++) {
+				appendValue(json, random, depth + 1);
+				if (i < elements - 1) {
+					json.append(',');
+				}
+			}
+			appendWhitespace(json, random);
+			json.append(']');
+		}
+		appendWhitespace(json, random);
+		return json;
+	}
+
+	private static void appendWhitespace(StringBuilder json, Random random) {
+		while (random.nextInt(4) == 0) {
+			json.append(" \t\r\n".charAt(random.nextInt(4)));
+		}
+	}
+
+	// Writes text as a JSON string, escaping with a mix of short and \\u forms
+	private static void appendString(StringBuilder json, Random random, String text) {
+		json.append('"');
+		for (char c : text.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20 || (c > 0x7e && random.nextBoolean())) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+
+	private static String randomText(Random random) {
+		String alphabet = "abcXYZ019 _-/\"\\\n\téü中";
+		StringBuilder text = new StringBuilder();
+		int length = random.nextInt(8);
+		for (int i = 0; i < length; i++) {
+			text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return text.toString();
+	}
+
+	private static String randomNumber(Random random) {
+		switch (random.nextInt(7)) {
+		case 0:
+			return Integer.toString(random.nextInt(200) - 100);
+		case 1:
+			return Integer.toString(random.nextInt());
+		case 2:
+			return Long.toString(random.nextLong());
+		case 3:
+			return (random.nextBoolean() ? "-" : "") + "9223372036854775808" + random.nextInt(1000);
+		case 4:
+			return (random.nextInt(2000) - 1000) + "." + random.nextInt(1000);
+		case 5:
+			return random.nextInt(100) + "." + random.nextInt(100) + (random.nextBoolean() ? "e" : "E")
+					+ (random.nextBoolean() ? "-" : "+") + random.nextInt(40);
+		default:
+			return random.nextBoolean() ? "0" : "-0";
+		}
+	}
+}
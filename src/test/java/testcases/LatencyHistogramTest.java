@@ -0,0 +1,123 @@
+package testcases;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rest.LatencyHistogram;
+import rest.LatencyStatistics;
+
+public class LatencyHistogramTest {
+
+	private static final long MICROS = 1000;
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test(description = "1. Record the latencies 1 to 100 microseconds\n"
+			+ "2. Verify count, percentiles, max and mean are exact, since values below 128 us have their own bucket.")
+	public void keepsSmallValuesExactTest() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long micros = 1; micros <= 100; micros++) {
+			histogram.record(0, micros * MICROS);
+		}
+		LatencyStatistics statistics = histogram.getStatistics("/MainStore");
+
+		Assert.assertEquals(statistics.getPath(), "/MainStore", "Path differs.");
+		Assert.assertEquals(statistics.getCount(), 100L, "Count differs.");
+		Assert.assertEquals(statistics.getP50Millis(), 0.050, "p50 differs.");
+		Assert.assertEquals(statistics.getP90Millis(), 0.090, "p90 differs.");
+		Assert.assertEquals(statistics.getP99Millis(), 0.099, "p99 differs.");
+		Assert.assertEquals(statistics.getMaxMillis(), 0.100, "Max differs.");
+		Assert.assertEquals(statistics.getMeanMillis(), 0.0505, 1e-9, "Mean differs.");
+	}
+
+	@Test(description = "1. Record random latencies from 128 us to one hour\n"
+			+ "2. Verify every percentile is at least the exact one and within 1.6% of it, and max is exact.")
+	public void keepsPercentilesWithinTheBucketErrorTest() {
+		Random random = new Random(20240117L);
+		for (int round = 0; round < 50; round++) {
+			LatencyHistogram histogram = new LatencyHistogram();
+			long[] micros = new long[1 + random.nextInt(500)];
+			for (int i = 0; i < micros.length; i++) {
+				micros[i] = 128 + (long) Math.pow(random.nextDouble(), 4) * 3_600_000_000L;
+				histogram.record(0, micros[i] * MICROS);
+			}
+			Arrays.sort(micros);
+			LatencyStatistics statistics = histogram.getStatistics("/AllStockDetails");
+
+			assertWithinBucketError(statistics.getP50Millis(), exactPercentile(micros, 50), "p50", round);
+			assertWithinBucketError(statistics.getP90Millis(), exactPercentile(micros, 90), "p90", round);
+			assertWithinBucketError(statistics.getP99Millis(), exactPercentile(micros, 99), "p99", round);
+			Assert.assertEquals(statistics.getMaxMillis(), micros[micros.length - 1] / 1000.0,
+					"Max should be exact in round " + round);
+		}
+	}
+
+	@Test(description = "1. Record a latency of 100 hours, beyond the trackable range\n"
+			+ "2. Verify it lands in the last bucket, capped at about 38.2 hours.")
+	public void capsValuesBeyondTheTrackableRangeTest() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(0, TimeUnit.HOURS.toNanos(100));
+		LatencyStatistics statistics = histogram.getStatistics("/Slow");
+
+		double maxTrackableMillis = ((128L << 30) - 1) / 1000.0;
+		Assert.assertEquals(statistics.getCount(), 1L, "Count differs.");
+		Assert.assertEquals(statistics.getMaxMillis(), maxTrackableMillis, "Max should be capped.");
+		Assert.assertEquals(statistics.getP99Millis(), maxTrackableMillis, "p99 should be capped.");
+	}
+
+	@Test(description = "1. Record one request, then a second that ends one second after the first started\n"
+			+ "2. Verify throughput is 0 for a single request and two per second afterwards.")
+	public void reportsThroughputFromTwoRequestsTest() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(0, SECOND / 4);
+		Assert.assertEquals(histogram.getStatistics("/MainStore").getThroughput(), 0.0,
+				"A single request has no throughput.");
+
+		histogram.record(SECOND / 2, SECOND);
+		Assert.assertEquals(histogram.getStatistics("/MainStore").getThroughput(), 2.0, 1e-9,
+				"Two requests in one second should give two per second.");
+		Assert.assertEquals(new LatencyHistogram().getStatistics("/Empty").getCount(), 0L,
+				"An empty histogram should count nothing.");
+	}
+
+	@Test(description = "1. Record from several threads at once\n"
+			+ "2. Verify no recording is lost.")
+	public void recordsFromManyThreadsTest() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		int threads = 4;
+		int recordsPerThread = 20000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int t = 0; t < threads; t++) {
+				executor.submit(() -> {
+					for (int i = 0; i < recordsPerThread; i++) {
+						histogram.record(0, (i % 5000) * MICROS);
+					}
+				});
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS), "Recording should finish.");
+		LatencyStatistics statistics = histogram.getStatistics("/MainStore");
+		Assert.assertEquals(statistics.getCount(), (long) threads * recordsPerThread, "Recordings were lost.");
+		Assert.assertEquals(statistics.getMaxMillis(), 4.999, "Max differs.");
+	}
+
+	// Nearest-rank percentile, in milliseconds
+	private static double exactPercentile(long[] sortedMicros, double percentile) {
+		int rank = (int) Math.max(1, Math.ceil(percentile / 100 * sortedMicros.length));
+		return sortedMicros[rank - 1] / 1000.0;
+	}
+
+	private static void assertWithinBucketError(double actualMillis, double exactMillis, String name, int round) {
+		String context = name + " in round " + round + ": " + actualMillis + " vs " + exactMillis;
+		Assert.assertTrue(actualMillis >= exactMillis, "Percentile below the exact value for " + context);
+		Assert.assertTrue(actualMillis <= exactMillis * 1.016, "Percentile beyond 1.6% for " + context);
+	}
+}
@@ -0,0 +1,143 @@
+package testcases;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rest.CustomResponse;
+import rest.RequestCoalescer;
+
+public class RequestCoalescerTest {
+
+	private static final int FOLLOWERS = 4;
+
+	@Test(description = "1. Start a slow call and send the same call from several other threads while it runs\n"
+			+ "2. Verify the request is made once and every caller receives its own copy of the response.")
+	public void joinsIdenticalCallsInFlightTest() throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer(true);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger requests = new AtomicInteger();
+		Supplier<CustomResponse> call = () -> {
+			requests.incrementAndGet();
+			await(release);
+			return response("OK");
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+		try {
+			List<Future<CustomResponse>> results = new ArrayList<>();
+			results.add(executor.submit(() -> coalescer.execute("getMainStore", "/MainStore", null, call)));
+			waitFor(() -> requests.get() == 1, "The leader should start its request.");
+			for (int i = 0; i < FOLLOWERS; i++) {
+				results.add(executor.submit(() -> coalescer.execute("getMainStore", "/MainStore", null, call)));
+			}
+			waitFor(() -> coalescer.getCoalescedCalls() == FOLLOWERS, "Every follower should join the leader.");
+			release.countDown();
+
+			Set<CustomResponse> responses = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (Future<CustomResponse> result : results) {
+				CustomResponse response = result.get(10, TimeUnit.SECONDS);
+				Assert.assertEquals(response.getStatus(), "OK", "Every caller should get the response.");
+				responses.add(response);
+			}
+			Assert.assertEquals(responses.size(), FOLLOWERS + 1, "Every caller should get its own copy.");
+			results.get(0).get().setResultMessage("changed");
+			Assert.assertEquals(results.get(1).get().getResultMessage(), "done",
+					"A change to one caller's response should not reach the others.");
+		} finally {
+			executor.shutdownNow();
+		}
+		Assert.assertEquals(requests.get(), 1, "Only the leader should make the request.");
+		Assert.assertEquals(coalescer.getCalls(), (long) FOLLOWERS + 1, "Every call should be counted.");
+	}
+
+	@Test(description = "1. Start a slow call that fails and send the same call from another thread while it runs\n"
+			+ "2. Verify both callers receive the leader's exception unwrapped.")
+	public void sharesTheLeadersExceptionTest() throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer(true);
+		CountDownLatch release = new CountDownLatch(1);
+		Supplier<CustomResponse> call = () -> {
+			await(release);
+			throw new IllegalStateException("Server unavailable");
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<CustomResponse> leader = executor.submit(() -> coalescer.execute("getMainStore", "/MainStore",
+					null, call));
+			waitFor(() -> coalescer.getCalls() == 1, "The leader should start its request.");
+			Future<CustomResponse> follower = executor.submit(() -> coalescer.execute("getMainStore", "/MainStore",
+					null, call));
+			waitFor(() -> coalescer.getCoalescedCalls() == 1, "The follower should join the leader.");
+			release.countDown();
+
+			for (Future<CustomResponse> result : List.of(leader, follower)) {
+				try {
+					result.get(10, TimeUnit.SECONDS);
+					Assert.fail("The call should fail.");
+				} catch (ExecutionException expected) {
+					Assert.assertTrue(expected.getCause() instanceof IllegalStateException,
+							"The leader's exception should be rethrown unwrapped: " + expected.getCause());
+					Assert.assertEquals(expected.getCause().getMessage(), "Server unavailable", "Message differs.");
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(description = "1. Repeat a call one after the other, send calls with a body and use a disabled coalescer\n"
+			+ "2. Verify every one of those calls makes its own request.")
+	public void runsSequentialBodyAndDisabledCallsTest() {
+		AtomicInteger requests = new AtomicInteger();
+		Supplier<CustomResponse> call = () -> {
+			requests.incrementAndGet();
+			return response("OK");
+		};
+
+		RequestCoalescer coalescer = new RequestCoalescer(true);
+		coalescer.execute("getMainStore", "/MainStore", null, call);
+		coalescer.execute("getMainStore", "/MainStore", null, call);
+		coalescer.execute("createPatient", "/Patient", "{}", call);
+		new RequestCoalescer(false).execute("getMainStore", "/MainStore", null, call);
+
+		Assert.assertEquals(requests.get(), 4, "Nothing should be kept once a call completes.");
+		Assert.assertEquals(coalescer.getCoalescedCalls(), 0L, "No call should be coalesced.");
+	}
+
+	private static CustomResponse response(String status) {
+		return new CustomResponse(null, 200, status, "done");
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			if (!latch.await(10, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("The test never released the call");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void waitFor(Supplier<Boolean> condition, String message) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condition.get()) {
+			Assert.assertTrue(System.nanoTime() < deadline, message);
+			Thread.sleep(5);
+		}
+	}
+}
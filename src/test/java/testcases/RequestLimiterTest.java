@@ -0,0 +1,113 @@
+package testcases;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import rest.LatencyStatistics;
+import rest.RequestLimiter;
+import rest.RequestLimiter.TokenBucket;
+
+public class RequestLimiterTest {
+
+	private static final String STOCKS = "/PharmacyStock/AllStockDetails";
+	private static final String MAIN_STORE = "/PharmacySettings/MainStore";
+	private static final long MAX_WAIT_MILLIS = 50;
+
+	@Test(description = "1. Take the burst of a token bucket, then one more token with and without time to wait\n"
+			+ "2. Verify the burst is free, a token that is not due in time is refused and a due one is waited for.")
+	public void tokenBucketLetsTheBurstThroughThenRefillsTest() throws Exception {
+		TokenBucket bucket = new TokenBucket(20, 3);
+		for (int i = 0; i < 3; i++) {
+			Assert.assertTrue(bucket.take(0), "Token " + i + " of the burst should be free.");
+		}
+		Assert.assertFalse(bucket.take(TimeUnit.MILLISECONDS.toNanos(1)), "An empty bucket should refuse a token.");
+
+		long start = System.nanoTime();
+		Assert.assertTrue(bucket.take(TimeUnit.SECONDS.toNanos(1)), "A token due within the wait should be taken.");
+		long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		Assert.assertTrue(waitedMillis >= 40 && waitedMillis < 1000,
+				"The next token at 20/s should take about 50 ms, took " + waitedMillis + " ms");
+	}
+
+	@Test(description = "1. Empty a token bucket and give a token back, then give one back to a full bucket\n"
+			+ "2. Verify the returned token can be taken again and a full bucket does not grow past its burst.")
+	public void tokenBucketTakesBackUnusedTokensTest() throws Exception {
+		TokenBucket bucket = new TokenBucket(1, 1);
+		Assert.assertTrue(bucket.take(0), "The first token should be free.");
+		Assert.assertFalse(bucket.take(0), "The bucket should be empty.");
+		bucket.giveBack();
+		Assert.assertTrue(bucket.take(0), "The returned token should be free.");
+
+		TokenBucket full = new TokenBucket(1, 1);
+		full.giveBack();
+		Assert.assertTrue(full.take(0), "The burst token should be free.");
+		Assert.assertFalse(full.take(0), "Giving back to a full bucket should not add a token.");
+	}
+
+	@Test(description = "1. Hold the only slot of an endpoint, then admit a second call to it and one elsewhere\n"
+			+ "2. Verify the second call is rejected after limiter.maxWaitMs, the other endpoint is not held up\n"
+			+ "   and the slot is free again once released.")
+	public void limitsCallsInFlightPerEndpointTest() {
+		RequestLimiter limiter = new RequestLimiter(0, 0, 0, MAX_WAIT_MILLIS, Collections.emptyMap(),
+				Map.of(STOCKS, 1L));
+
+		Runnable first = limiter.admit(STOCKS);
+		assertRejected(limiter, STOCKS);
+		limiter.admit(MAIN_STORE).run();
+		first.run();
+		limiter.admit(STOCKS).run();
+
+		Map<String, LatencyStatistics> waits = limiter.getWaitStatistics();
+		Assert.assertEquals(waits.keySet(), new TreeSet<>(Arrays.asList(MAIN_STORE, STOCKS)),
+				"Waits should be kept per endpoint.");
+		Assert.assertEquals(waits.get(STOCKS).getCount(), 2L, "Only admitted calls should record a wait.");
+	}
+
+	@Test(description = "1. Take a global token with a call that is then rejected for want of an endpoint slot\n"
+			+ "2. Verify the token is given back, so the next call is admitted without waiting for the refill.")
+	public void givesBackTokensOfRejectedCallsTest() {
+		// Two tokens and one more per second; the refill is far beyond the wait
+		RequestLimiter limiter = new RequestLimiter(1, 2, 0, MAX_WAIT_MILLIS, Collections.emptyMap(),
+				Map.of(STOCKS, 1L));
+
+		Runnable first = limiter.admit(STOCKS);
+		assertRejected(limiter, STOCKS);
+		first.run();
+		limiter.admit(STOCKS).run();
+		assertRejected(limiter, MAIN_STORE);
+	}
+
+	@Test(description = "1. Hold the only global slot and admit a call to another endpoint\n"
+			+ "2. Verify the global limit applies across endpoints and the wait table has no throughput column.")
+	public void limitsCallsInFlightGloballyTest() {
+		RequestLimiter limiter = new RequestLimiter(0, 0, 1, MAX_WAIT_MILLIS, Collections.emptyMap(),
+				Collections.emptyMap());
+
+		Runnable first = limiter.admit(STOCKS);
+		assertRejected(limiter, MAIN_STORE);
+		first.run();
+		limiter.admit(MAIN_STORE).run();
+
+		String[][] table = limiter.toWaitTable();
+		Assert.assertEquals(table[0], new String[] { "Endpoint", "Count", "p50 ms", "p90 ms", "p99 ms", "Max ms",
+				"Mean ms" }, "Header differs.");
+		Assert.assertEquals(table.length, 3, "One row per endpoint expected after the header.");
+	}
+
+	private static void assertRejected(RequestLimiter limiter, String path) {
+		try {
+			limiter.admit(path).run();
+			Assert.fail("The call to " + path + " should not be admitted.");
+		} catch (IllegalStateException expected) {
+			Assert.assertEquals(expected.getMessage(),
+					"Waited more than " + MAX_WAIT_MILLIS + " ms for the request limiter on " + path,
+					"Unexpected message.");
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package testcases;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.restassured.RestAssured;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import rest.CacheStatistics;
+import rest.ResponseCache;
+
+public class ResponseCacheTest {
+
+	private static final String FILM_TYPES = "/radiology/FilmTypes";
+	private static final String MAIN_STORE = "/PharmacySettings/MainStore";
+
+	@Test(description = "1. Send the same GET twice to a cached path, then once to a path that is not configured\n"
+			+ "2. Verify the second call is served from the cache with the same body and the other path is not cached.")
+	public void servesRepeatedGetsFromTheCacheTest() {
+		ResponseCache cache = new ResponseCache(10, ttl(FILM_TYPES, 60000L));
+		FakeServer server = new FakeServer();
+
+		Response first = get(cache, server, FILM_TYPES);
+		Response second = get(cache, server, FILM_TYPES);
+		get(cache, server, "/radiology/Other");
+		get(cache, server, "/radiology/Other");
+
+		Assert.assertEquals(server.requests.size(), 3, "Only the repeated cached GET should skip the server.");
+		Assert.assertEquals(second.getStatusCode(), 200, "A hit should keep the status code.");
+		Assert.assertEquals(second.asString(), first.asString(), "A hit should return the cached body.");
+		Assert.assertEquals(second.getHeader("ETag"), first.getHeader("ETag"), "A hit should keep the headers.");
+		CacheStatistics statistics = cache.getStatistics();
+		Assert.assertEquals(statistics.getHits(), 1L, "One hit expected.");
+		Assert.assertEquals(statistics.getMisses(), 1L, "Only cached paths count misses.");
+		Assert.assertEquals(statistics.getSize(), 1, "One entry expected.");
+	}
+
+	@Test(description = "1. Answer a cached path with Cache-Control no-cache and an ETag, then call it again\n"
+			+ "2. Verify the second call revalidates with If-None-Match and a 304 returns the cached body.")
+	public void revalidatesExpiredEntriesWithTheEtagTest() {
+		ResponseCache cache = new ResponseCache(10, ttl(FILM_TYPES, 60000L));
+		FakeServer server = new FakeServer();
+		server.cacheControl = "no-cache";
+
+		Response first = get(cache, server, FILM_TYPES);
+		Response second = get(cache, server, FILM_TYPES);
+
+		Assert.assertEquals(server.requests.size(), 2, "Every call should reach the server.");
+		Assert.assertNull(server.requests.get(0).get("If-None-Match"), "The first call has nothing to revalidate.");
+		Assert.assertEquals(server.requests.get(1).get("If-None-Match"), first.getHeader("ETag"),
+				"The second call should send the cached ETag.");
+		Assert.assertEquals(server.notModified, 1, "The server should answer the revalidation with 304.");
+		Assert.assertEquals(second.getStatusCode(), 200, "A revalidated entry should be returned as a 200.");
+		Assert.assertEquals(second.asString(), first.asString(), "A revalidated entry should keep its body.");
+		Assert.assertEquals(cache.getStatistics().getRevalidations(), 1L, "One revalidation expected.");
+	}
+
+	@Test(description = "1. Answer a cached path with Cache-Control no-store, then send a POST to another cached path\n"
+			+ "2. Verify neither response is stored and every call reaches the server.")
+	public void skipsNoStoreResponsesAndOtherMethodsTest() {
+		ResponseCache cache = new ResponseCache(10, ttl(FILM_TYPES, 60000L, MAIN_STORE, 60000L));
+		FakeServer server = new FakeServer();
+		server.cacheControl = "no-store";
+
+		get(cache, server, FILM_TYPES);
+		get(cache, server, FILM_TYPES);
+		server.cacheControl = null;
+		RestAssured.given().baseUri("http://localhost").filter(cache).filter(server).post(MAIN_STORE);
+		RestAssured.given().baseUri("http://localhost").filter(cache).filter(server).post(MAIN_STORE);
+
+		Assert.assertEquals(server.requests.size(), 4, "Every call should reach the server.");
+		Assert.assertEquals(cache.getStatistics().getHits(), 0L, "No hit expected.");
+		Assert.assertEquals(cache.getStatistics().getSize(), 0, "Nothing should be stored.");
+	}
+
+	@Test(description = "1. Fill a cache of two entries, read the oldest again and add a third entry\n"
+			+ "2. Verify the least recently used entry is evicted and the others are still served from the cache.")
+	public void evictsTheLeastRecentlyUsedEntryTest() {
+		ResponseCache cache = new ResponseCache(2, ttl(FILM_TYPES, 60000L));
+		FakeServer server = new FakeServer();
+
+		get(cache, server, FILM_TYPES + "?page=1");
+		get(cache, server, FILM_TYPES + "?page=2");
+		get(cache, server, FILM_TYPES + "?page=1");
+		get(cache, server, FILM_TYPES + "?page=3");
+		int beforeRereads = server.requests.size();
+		get(cache, server, FILM_TYPES + "?page=1");
+		get(cache, server, FILM_TYPES + "?page=3");
+
+		Assert.assertEquals(beforeRereads, 3, "The re-read of page 1 should be a hit.");
+		Assert.assertEquals(server.requests.size(), 3, "Pages 1 and 3 should still be cached.");
+		Assert.assertEquals(cache.getStatistics().getEvictions(), 1L, "Page 2 should have been evicted.");
+		Assert.assertEquals(cache.getStatistics().getSize(), 2, "The cache should hold two entries.");
+
+		get(cache, server, FILM_TYPES + "?page=2");
+		Assert.assertEquals(server.requests.size(), 4, "The evicted page should be fetched again.");
+	}
+
+	private static Response get(ResponseCache cache, FakeServer server, String path) {
+		return RestAssured.given().baseUri("http://localhost").urlEncodingEnabled(false).filter(cache)
+				.filter(server).get(path);
+	}
+
+	private static Map<String, Long> ttl(Object... pathsAndMillis) {
+		Map<String, Long> ttl = new HashMap<>();
+		for (int i = 0; i < pathsAndMillis.length; i += 2) {
+			ttl.put((String) pathsAndMillis[i], (Long) pathsAndMillis[i + 1]);
+		}
+		return ttl;
+	}
+
+	// Answers in place of the network; records the headers of every request it receives
+	private static class FakeServer implements Filter {
+		private final List<Map<String, String>> requests = new ArrayList<>();
+		private String cacheControl;
+		private int notModified;
+
+		@Override
+		public Response filter(FilterableRequestSpecification requestSpec,
+				FilterableResponseSpecification responseSpec, FilterContext ctx) {
+			Map<String, String> headers = new HashMap<>();
+			requestSpec.getHeaders().forEach(header -> headers.put(header.getName(), header.getValue()));
+			requests.add(headers);
+
+			String etag = "\"" + requestSpec.getURI().hashCode() + "\"";
+			ResponseBuilder response = new ResponseBuilder().setHeader("ETag", etag);
+			if (cacheControl != null) {
+				response.setHeader("Cache-Control", cacheControl);
+			}
+			if (etag.equals(headers.get("If-None-Match"))) {
+				notModified++;
+				return response.setStatusCode(304).setStatusLine("HTTP/1.1 304 Not Modified").build();
+			}
+			return response.setStatusCode(200).setStatusLine("HTTP/1.1 200 OK").setContentType("application/json")
+					.setBody("{\"Status\":\"OK\",\"Results\":[{\"Uri\":\"" + requestSpec.getURI() + "\"}]}")
+					.build();
+		}
+	}
+}
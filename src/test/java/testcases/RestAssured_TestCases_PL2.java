@@ -123,10 +123,7 @@ public class RestAssured_TestCases_PL2 {
 
 		// 3. Validate that RequisitionIds are unique
 		List<Map<String, Object>> requisitionList = customResponse.getListResults();
-		List<Integer> requisitionIds = requisitionList.stream()
-				.map(requisition -> (Integer) requisition.get("RequisitionId")).collect(Collectors.toList());
-		Set<Integer> uniqueRequisitionIds = new HashSet<>(requisitionIds);
-		Assert.assertEquals(uniqueRequisitionIds.size(), requisitionIds.size(), "RequisitionIds should be unique.");
+		customResponse.assertUnique("RequisitionId");
 
 		// 4. Validate that RequisitionNo and RequisitionStatus are not null
 		requisitionList.forEach(requisition -> {
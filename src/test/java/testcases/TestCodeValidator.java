@@ -5,13 +5,10 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import rest.CustomResponse;
 
@@ -116,14 +113,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid1[0] = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField = customResponse.getDocument().getString("Status");
 			if (statusField == null || !statusField.equals("OK")) {
 				isValid1[0] = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -132,17 +129,8 @@ public class TestCodeValidator {
 			// Validate ItemId, ItemName, and GenericName fields inside Results
 			List<Map<String, Object>> results = customResponse.getListResults();
 			results.forEach(result -> {
-				if (result.get("ItemId") == null || result.get("ItemId").toString().isEmpty()) {
+				if (!validateStockItem(result)) {
 					isValid1[0] = false;
-					System.out.println("ItemId is missing or invalid in one of the stock items.");
-				}
-				if (result.get("ItemName") == null || result.get("ItemName").toString().isEmpty()) {
-					isValid1[0] = false;
-					System.out.println("ItemName is missing or invalid in one of the stock items.");
-				}
-				if (result.get("GenericName") == null || result.get("GenericName").toString().isEmpty()) {
-					isValid1[0] = false;
-					System.out.println("GenericName is missing or invalid in one of the stock items.");
 				}
 			});
 
@@ -164,21 +152,21 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields1) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField1 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField1 = customResponse.getDocument().getString("Status");
 			if (statusField1 == null || !statusField1.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
 			}
 
 			// Validate StoreId field inside Results
-			Object storeIdObj = customResponse.getResponse().jsonPath().get("Results.StoreId");
+			Object storeIdObj = customResponse.getDocument().get("Results.StoreId");
 			if (storeIdObj == null || !(storeIdObj instanceof Integer) || (Integer) storeIdObj == 0) {
 				isValid = false;
 				System.out.println("StoreId is missing or invalid in the response.");
@@ -198,14 +186,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields11) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid13 = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField11 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField11 = customResponse.getDocument().getString("Status");
 			if (statusField11 == null || !statusField11.equals("OK")) {
 				isValid13 = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -213,10 +201,7 @@ public class TestCodeValidator {
 
 			// Validate RequisitionId uniqueness inside Results
 			List<Map<String, Object>> requisitionList = customResponse.getListResults();
-			List<Integer> requisitionIds = requisitionList.stream()
-					.map(requisition -> (Integer) requisition.get("RequisitionId")).collect(Collectors.toList());
-			Set<Integer> uniqueRequisitionIds = new HashSet<>(requisitionIds);
-			if (uniqueRequisitionIds.size() != requisitionIds.size()) {
+			if (customResponse.indexOfDuplicate("RequisitionId") >= 0) {
 				isValid13 = false;
 				System.out.println("RequisitionIds are not unique.");
 			}
@@ -251,14 +236,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields14) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField14 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField14 = customResponse.getDocument().getString("Status");
 			if (statusField14 == null || !statusField14.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -288,14 +273,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields15) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField6 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField6 = customResponse.getDocument().getString("Status");
 			if (statusField6 == null || !statusField6.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -323,14 +308,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields6) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField61 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField61 = customResponse.getDocument().getString("Status");
 			if (statusField61 == null || !statusField61.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -358,14 +343,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields7) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField7 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField7 = customResponse.getDocument().getString("Status");
 			if (statusField7 == null || !statusField7.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -393,14 +378,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields8) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField8 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField8 = customResponse.getDocument().getString("Status");
 			if (statusField8 == null || !statusField8.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -408,10 +393,7 @@ public class TestCodeValidator {
 
 			// Validate PatientConsumptionId uniqueness inside Results
 			List<Map<String, Object>> consumptionsList = customResponse.getListResults();
-			List<Integer> patientConsumptionIds = consumptionsList.stream()
-					.map(consumption -> (Integer) consumption.get("PatientConsumptionId")).collect(Collectors.toList());
-			Set<Integer> uniqueIds = new HashSet<>(patientConsumptionIds);
-			if (patientConsumptionIds.size() != uniqueIds.size()) {
+			if (customResponse.indexOfDuplicate("PatientConsumptionId") >= 0) {
 				isValid = false;
 				System.out.println("PatientConsumptionId is not unique.");
 			}
@@ -435,14 +417,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields9) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField9 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField9 = customResponse.getDocument().getString("Status");
 			if (statusField9 == null || !statusField9.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -450,11 +432,7 @@ public class TestCodeValidator {
 
 			// Validate ConsumptionReturnReceiptNo uniqueness inside Results
 			List<Map<String, Object>> returnConsumptions = customResponse.getListResults();
-			List<Integer> consumptionReturnReceiptNos = returnConsumptions.stream()
-					.map(consumption -> (Integer) consumption.get("ConsumptionReturnReceiptNo"))
-					.collect(Collectors.toList());
-			Set<Integer> uniqueReceiptNos = new HashSet<>(consumptionReturnReceiptNos);
-			if (consumptionReturnReceiptNos.size() != uniqueReceiptNos.size()) {
+			if (customResponse.indexOfDuplicate("ConsumptionReturnReceiptNo") >= 0) {
 				isValid = false;
 				System.out.println("ConsumptionReturnReceiptNo is not unique.");
 			}
@@ -478,14 +456,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields10) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField10 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField10 = customResponse.getDocument().getString("Status");
 			if (statusField10 == null || !statusField10.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -493,18 +471,12 @@ public class TestCodeValidator {
 
 			// Validate PatientVisitId and PatientAdmissionId uniqueness inside Results
 			List<Map<String, Object>> dischargedPatients = customResponse.getListResults();
-			List<Integer> patientVisitIds = dischargedPatients.stream()
-					.map(patient -> (Integer) patient.get("PatientVisitId")).collect(Collectors.toList());
-			Set<Integer> uniquePatientVisitIds = new HashSet<>(patientVisitIds);
-			if (patientVisitIds.size() != uniquePatientVisitIds.size()) {
+			if (customResponse.indexOfDuplicate("PatientVisitId") >= 0) {
 				isValid = false;
 				System.out.println("PatientVisitId is not unique.");
 			}
 
-			List<Integer> patientAdmissionIds = dischargedPatients.stream()
-					.map(patient -> (Integer) patient.get("PatientAdmissionId")).collect(Collectors.toList());
-			Set<Integer> uniquePatientAdmissionIds = new HashSet<>(patientAdmissionIds);
-			if (patientAdmissionIds.size() != uniquePatientAdmissionIds.size()) {
+			if (customResponse.indexOfDuplicate("PatientAdmissionId") >= 0) {
 				isValid = false;
 				System.out.println("PatientAdmissionId is not unique.");
 			}
@@ -528,14 +500,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields101) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField101 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField101 = customResponse.getDocument().getString("Status");
 			if (statusField101 == null || !statusField101.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -543,10 +515,7 @@ public class TestCodeValidator {
 
 			// Validate FilmTypeId uniqueness inside Results
 			List<Map<String, Object>> results101 = customResponse.getListResults();
-			List<Integer> filmTypeIds = results101.stream().map(result -> (Integer) result.get("FilmTypeId"))
-					.collect(Collectors.toList());
-			Set<Integer> uniqueFilmTypeIds = new HashSet<>(filmTypeIds);
-			if (filmTypeIds.size() != uniqueFilmTypeIds.size()) {
+			if (customResponse.indexOfDuplicate("FilmTypeId") >= 0) {
 				isValid = false;
 				System.out.println("FilmTypeId is not unique.");
 			}
@@ -574,14 +543,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields12) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField12 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField12 = customResponse.getDocument().getString("Status");
 			if (statusField12 == null || !statusField12.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -589,10 +558,7 @@ public class TestCodeValidator {
 
 			// Validate ImagingRequisitionId uniqueness inside Results
 			List<Map<String, Object>> results12 = customResponse.getListResults();
-			List<Integer> imagingRequisitionIds = results12.stream()
-					.map(result -> (Integer) result.get("ImagingRequisitionId")).collect(Collectors.toList());
-			Set<Integer> uniqueImagingRequisitionIds = new HashSet<>(imagingRequisitionIds);
-			if (imagingRequisitionIds.size() != uniqueImagingRequisitionIds.size()) {
+			if (customResponse.indexOfDuplicate("ImagingRequisitionId") >= 0) {
 				isValid = false;
 				System.out.println("ImagingRequisitionId is not unique.");
 			}
@@ -620,14 +586,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields13) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField13 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField13 = customResponse.getDocument().getString("Status");
 			if (statusField13 == null || !statusField13.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -635,10 +601,7 @@ public class TestCodeValidator {
 
 			// Validate ImagingRequisitionId uniqueness inside Results
 			List<Map<String, Object>> results13 = customResponse.getListResults();
-			List<Integer> imagingRequisitionIds13 = results13.stream()
-					.map(result -> (Integer) result.get("ImagingRequisitionId")).collect(Collectors.toList());
-			Set<Integer> uniqueImagingRequisitionIds13 = new HashSet<>(imagingRequisitionIds13);
-			if (imagingRequisitionIds13.size() != uniqueImagingRequisitionIds13.size()) {
+			if (customResponse.indexOfDuplicate("ImagingRequisitionId") >= 0) {
 				isValid = false;
 				System.out.println("ImagingRequisitionId is not unique.");
 			}
@@ -664,14 +627,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields1414) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField1414 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField1414 = customResponse.getDocument().getString("Status");
 			if (statusField1414 == null || !statusField1414.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -727,14 +690,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields1515) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField1515 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField1515 = customResponse.getDocument().getString("Status");
 			if (statusField1515 == null || !statusField1515.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -783,14 +746,14 @@ public class TestCodeValidator {
 
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields16) {
-				if (customResponse.getResponse().jsonPath().get(field) == null) {
+				if (customResponse.getDocument().get(field) == null) {
 					isValid = false;
 					System.out.println("Missing field in response: " + field);
 				}
 			}
 
 			// Validate the Status field at the top level
-			String statusField16 = customResponse.getResponse().jsonPath().getString("Status");
+			String statusField16 = customResponse.getDocument().getString("Status");
 			if (statusField16 == null || !statusField16.equals("OK")) {
 				isValid = false;
 				System.out.println("Status field is missing or invalid in the response.");
@@ -837,4 +800,21 @@ public class TestCodeValidator {
 		return isValid;
 	}
 
-}
\ No newline at end of file
+	// Validates the ItemId, ItemName, and GenericName fields of one stock item
+	public static boolean validateStockItem(Map<String, Object> result) {
+		boolean isValid = true;
+		if (result.get("ItemId") == null || result.get("ItemId").toString().isEmpty()) {
+			isValid = false;
+			System.out.println("ItemId is missing or invalid in one of the stock items.");
+		}
+		if (result.get("ItemName") == null || result.get("ItemName").toString().isEmpty()) {
+			isValid = false;
+			System.out.println("ItemName is missing or invalid in one of the stock items.");
+		}
+		if (result.get("GenericName") == null || result.get("GenericName").toString().isEmpty()) {
+			isValid = false;
+			System.out.println("GenericName is missing or invalid in one of the stock items.");
+		}
+		return isValid;
+	}
+}